@@ -0,0 +1,255 @@
+package com.xmalloc.javatool.codec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * ID集合的紧凑二进制编码, 用来代替逗号分隔的十进制文本.
+ *
+ * ID先排序, 第一个值按zigzag varint写入, 之后写相邻两个值的差. 差值可以逐个写成varint, 也可以每128个一块,
+ * 按块内最大差值的位数打包. 格式:
+ *
+ * <pre>
+ * byte     格式: 1 varint, 2 按块打包
+ * varint   个数
+ * varint   第一个值(zigzag)
+ * 差值     varint格式: 每个差值一个无符号varint
+ *          打包格式: 每块一个字节的位数, 然后是按小端位序排列的差值
+ * </pre>
+ *
+ * 编码不保留原来的顺序, 重复的ID会保留. 所有方法都是线程安全的.
+ */
+public class IdCodec {
+
+	/** 差值逐个写成varint */
+	public static final byte FORMAT_VARINT = 1;
+	/** 差值按块打包 */
+	public static final byte FORMAT_PACKED = 2;
+
+	/** 打包格式每块的差值个数 */
+	private static final int BLOCK_SIZE = 128;
+
+	private static final Base64.Encoder URL_ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder URL_DECODER = Base64.getUrlDecoder();
+
+	/**
+	 * 按varint格式编码
+	 *
+	 * @param ids 不会被修改
+	 * @return
+	 */
+	public static byte[] encode(long[] ids) {
+		return encode(ids, false);
+	}
+
+	/**
+	 * 编码
+	 *
+	 * @param ids 不会被修改
+	 * @param packed 是否按块打包, ID密集时打包更小
+	 * @return
+	 */
+	public static byte[] encode(long[] ids, boolean packed) {
+		ByteBuffer out = ByteBuffer.allocate(maxEncodedLength(ids.length));
+		encode(ids, packed, out);
+		return Arrays.copyOf(out.array(), out.position());
+	}
+
+	/**
+	 * 编码到ByteBuffer的position处
+	 *
+	 * @param ids 不会被修改
+	 * @param packed 是否按块打包
+	 * @param out 剩余空间不少于 {@link #maxEncodedLength(int)}
+	 * @return 写入的字节数
+	 * @throws java.nio.BufferOverflowException 空间不够
+	 */
+	public static int encode(long[] ids, boolean packed, ByteBuffer out) {
+		int begin = out.position();
+		long[] sorted = ids.clone();
+		Arrays.sort(sorted);
+		out.put(packed ? FORMAT_PACKED : FORMAT_VARINT);
+		writeVarint(out, sorted.length);
+		if (sorted.length > 0) {
+			long first = sorted[0];
+			writeVarint(out, (first << 1) ^ (first >> 63));
+			if (packed) {
+				for (int i = 1; i < sorted.length; i += BLOCK_SIZE) {
+					writeBlock(out, sorted, i, Math.min(sorted.length, i + BLOCK_SIZE));
+				}
+			} else {
+				for (int i = 1; i < sorted.length; i++) {
+					writeVarint(out, sorted[i] - sorted[i - 1]);
+				}
+			}
+		}
+		return out.position() - begin;
+	}
+
+	/**
+	 * 编码后最多占用的字节数
+	 *
+	 * @param count ID个数
+	 * @return
+	 */
+	public static int maxEncodedLength(int count) {
+		long max = 1 + 5 + 10 + 10L * count + count / BLOCK_SIZE + 1;
+		if (max > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Too many ids: " + count);
+		}
+		return (int) max;
+	}
+
+	/**
+	 * 解码
+	 *
+	 * @param bytes
+	 * @return 排好序的ID
+	 * @throws IllegalArgumentException 数据不完整或格式不对
+	 */
+	public static long[] decode(byte[] bytes) {
+		return decode(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * 从ByteBuffer的position处解码, 结束后position停在编码之后
+	 *
+	 * @param in
+	 * @return 排好序的ID
+	 * @throws IllegalArgumentException 数据不完整或格式不对
+	 */
+	public static long[] decode(ByteBuffer in) {
+		try {
+			byte format = in.get();
+			if (format != FORMAT_VARINT && format != FORMAT_PACKED) {
+				throw new IllegalArgumentException("Unknown id format: " + format);
+			}
+			long count = readVarint(in);
+			// 每块差值至少占一个字节, 防止错误的个数导致分配过大的数组
+			if (count < 0 || count > Integer.MAX_VALUE || count > (long) BLOCK_SIZE * in.remaining() + 1) {
+				throw new IllegalArgumentException("Bad id count: " + count);
+			}
+			long[] ids = new long[(int) count];
+			if (count == 0) {
+				return ids;
+			}
+			long zigzag = readVarint(in);
+			ids[0] = (zigzag >>> 1) ^ -(zigzag & 1);
+			if (format == FORMAT_PACKED) {
+				for (int i = 1; i < ids.length; i += BLOCK_SIZE) {
+					readBlock(in, ids, i, Math.min(ids.length, i + BLOCK_SIZE));
+				}
+			} else {
+				for (int i = 1; i < ids.length; i++) {
+					ids[i] = ids[i - 1] + readVarint(in);
+				}
+			}
+			return ids;
+		} catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException("Truncated id data", e);
+		}
+	}
+
+	/**
+	 * 编码成URL安全的Base64(不带填充), 可以直接放在查询参数中
+	 *
+	 * @param ids 不会被修改
+	 * @return
+	 */
+	public static String encodeBase64(long[] ids) {
+		byte[] varint = encode(ids, false);
+		byte[] packed = encode(ids, true);
+		return URL_ENCODER.encodeToString(packed.length < varint.length ? packed : varint);
+	}
+
+	/**
+	 * 解码 {@link #encodeBase64(long[])} 的结果
+	 *
+	 * @param text
+	 * @return 排好序的ID
+	 * @throws IllegalArgumentException 数据不完整或格式不对
+	 */
+	public static long[] decodeBase64(String text) {
+		return decode(URL_DECODER.decode(text));
+	}
+
+	/**
+	 * 无符号varint, 每字节7位, 最高位表示后面还有字节
+	 */
+	private static void writeVarint(ByteBuffer out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.put((byte) value);
+	}
+
+	private static long readVarint(ByteBuffer in) {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = in.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed varint");
+	}
+
+	/**
+	 * 写入 sorted[from, to) 与前一个值的差, 先写位数再按位打包
+	 */
+	private static void writeBlock(ByteBuffer out, long[] sorted, int from, int to) {
+		long bitsUsed = 0;
+		for (int i = from; i < to; i++) {
+			bitsUsed |= sorted[i] - sorted[i - 1];
+		}
+		int width = 64 - Long.numberOfLeadingZeros(bitsUsed);
+		out.put((byte) width);
+		int current = 0;
+		int bitPos = 0;
+		for (int i = from; i < to; i++) {
+			long gap = sorted[i] - sorted[i - 1];
+			for (int remaining = width; remaining > 0;) {
+				int take = Math.min(8 - bitPos, remaining);
+				current |= (int) (gap & ((1 << take) - 1)) << bitPos;
+				gap >>>= take;
+				remaining -= take;
+				bitPos += take;
+				if (bitPos == 8) {
+					out.put((byte) current);
+					current = 0;
+					bitPos = 0;
+				}
+			}
+		}
+		if (bitPos > 0) {
+			out.put((byte) current);
+		}
+	}
+
+	private static void readBlock(ByteBuffer in, long[] ids, int from, int to) {
+		int width = in.get();
+		if (width < 0 || width > 64) {
+			throw new IllegalArgumentException("Bad block width: " + width);
+		}
+		int current = 0;
+		int bitPos = 8;
+		for (int i = from; i < to; i++) {
+			long gap = 0;
+			for (int filled = 0; filled < width;) {
+				if (bitPos == 8) {
+					current = in.get() & 0xFF;
+					bitPos = 0;
+				}
+				int take = Math.min(8 - bitPos, width - filled);
+				gap |= (long) ((current >>> bitPos) & ((1 << take) - 1)) << filled;
+				bitPos += take;
+				filled += take;
+			}
+			ids[i] = ids[i - 1] + gap;
+		}
+	}
+}
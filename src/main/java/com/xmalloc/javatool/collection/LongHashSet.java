@@ -0,0 +1,316 @@
+package com.xmalloc.javatool.collection;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+/**
+ * 开放寻址(线性探测)的long集合, 元素不装箱.
+ *
+ * 0作为空槽的标记, 集合中的0单独记录. 删除时把后面同一探测链上的元素前移, 不留墓碑.
+ * 非线程安全, 迭代顺序不固定.
+ */
+public class LongHashSet implements LongConsumer {
+
+	private static final float LOAD_FACTOR = 0.6f;
+
+	private long[] table;
+	private int mask;
+	/** 不含0的元素个数 */
+	private int used;
+	private boolean containsZero;
+	private int threshold;
+
+	public LongHashSet() {
+		this(16);
+	}
+
+	/**
+	 * @param expectedSize 预计的元素个数, 达到之前不需要扩容
+	 */
+	public LongHashSet(int expectedSize) {
+		if (expectedSize < 0) {
+			throw new IllegalArgumentException("Illegal size: " + expectedSize);
+		}
+		allocate(tableSize(expectedSize));
+	}
+
+	public int size() {
+		return used + (containsZero ? 1 : 0);
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * @return 集合中原来没有这个值时返回true
+	 */
+	public boolean add(long value) {
+		if (value == 0) {
+			boolean added = !containsZero;
+			containsZero = true;
+			return added;
+		}
+		int i = slot(value);
+		while (table[i] != 0) {
+			if (table[i] == value) {
+				return false;
+			}
+			i = (i + 1) & mask;
+		}
+		table[i] = value;
+		if (++used >= threshold) {
+			rehash(table.length << 1);
+		}
+		return true;
+	}
+
+	public boolean contains(long value) {
+		if (value == 0) {
+			return containsZero;
+		}
+		int i = slot(value);
+		while (table[i] != 0) {
+			if (table[i] == value) {
+				return true;
+			}
+			i = (i + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * @return 集合中原来有这个值时返回true
+	 */
+	public boolean remove(long value) {
+		if (value == 0) {
+			boolean removed = containsZero;
+			containsZero = false;
+			return removed;
+		}
+		int i = slot(value);
+		while (table[i] != value) {
+			if (table[i] == 0) {
+				return false;
+			}
+			i = (i + 1) & mask;
+		}
+		removeSlot(i, 0, null);
+		return true;
+	}
+
+	/**
+	 * 删除一个槽, 把探测链上后面的元素移到空出来的位置
+	 *
+	 * @param visited 迭代器已经访问过下标不小于visited的槽
+	 * @param wrapped 从没有访问过的槽移到访问过的槽的元素, 为null时不记录
+	 */
+	private void removeSlot(int i, int visited, LongList wrapped) {
+		int gap = i;
+		int j = (i + 1) & mask;
+		while (table[j] != 0) {
+			int home = slot(table[j]);
+			if (((j - home) & mask) >= ((j - gap) & mask)) {
+				if (wrapped != null && j < visited && gap >= visited) {
+					wrapped.add(table[j]);
+				}
+				table[gap] = table[j];
+				gap = j;
+			}
+			j = (j + 1) & mask;
+		}
+		table[gap] = 0;
+		used--;
+	}
+
+	public void clear() {
+		Arrays.fill(table, 0);
+		used = 0;
+		containsZero = false;
+	}
+
+	@Override
+	public void accept(long value) {
+		add(value);
+	}
+
+	public void forEach(LongConsumer consumer) {
+		if (containsZero) {
+			consumer.accept(0);
+		}
+		for (long value : table) {
+			if (value != 0) {
+				consumer.accept(value);
+			}
+		}
+	}
+
+	public long[] toArray() {
+		long[] result = new long[size()];
+		int n = 0;
+		if (containsZero) {
+			result[n++] = 0;
+		}
+		for (long value : table) {
+			if (value != 0) {
+				result[n++] = value;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Set&lt;Long&gt; 视图, 读写都直接作用在本集合上. 迭代期间只能通过迭代器的remove修改集合, 不能添加null.
+	 *
+	 * @return
+	 */
+	public Set<Long> asSet() {
+		return new SetView();
+	}
+
+	private int slot(long value) {
+		long h = value * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	private static int tableSize(int expectedSize) {
+		long needed = (long) Math.ceil(expectedSize / LOAD_FACTOR) + 1;
+		int size = 2;
+		while (size < needed) {
+			size <<= 1;
+			if (size >= 1 << 30) {
+				break;
+			}
+		}
+		return size;
+	}
+
+	private void allocate(int size) {
+		table = new long[size];
+		mask = size - 1;
+		threshold = Math.min((int) (size * LOAD_FACTOR), size - 1);
+	}
+
+	private void rehash(int size) {
+		long[] old = table;
+		allocate(size);
+		for (long value : old) {
+			if (value != 0) {
+				int i = slot(value);
+				while (table[i] != 0) {
+					i = (i + 1) & mask;
+				}
+				table[i] = value;
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return asSet().toString();
+	}
+
+	private final class SetView extends AbstractSet<Long> {
+
+		/**
+		 * @throws NullPointerException e为null
+		 */
+		@Override
+		public boolean add(Long e) {
+			if (e == null) {
+				throw new NullPointerException("LongHashSet does not permit null elements");
+			}
+			return LongHashSet.this.add(e);
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return o instanceof Long && LongHashSet.this.contains((Long) o);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			return o instanceof Long && LongHashSet.this.remove((Long) o);
+		}
+
+		@Override
+		public void clear() {
+			LongHashSet.this.clear();
+		}
+
+		@Override
+		public int size() {
+			return LongHashSet.this.size();
+		}
+
+		@Override
+		public Iterator<Long> iterator() {
+			return new SetIterator();
+		}
+	}
+
+	/**
+	 * 从数组末尾向前迭代. 删除时后移的元素只会从还没访问的槽移到更靠前的槽, 只有探测链绕回数组开头时
+	 * 才会移到已经访问过的槽, 这些元素记录下来最后返回.
+	 */
+	private final class SetIterator implements Iterator<Long> {
+		/** 下一个要检查的槽是pos - 1 */
+		private int pos = table.length;
+		private int remaining = size();
+		private boolean zeroPending = containsZero;
+		private LongList wrapped;
+		private int wrappedIndex;
+		/** 上一个返回的元素: 槽的下标, -1表示没有, -2表示0, -3表示wrapped中的元素 */
+		private int last = -1;
+		private long lastValue;
+
+		@Override
+		public boolean hasNext() {
+			return remaining > 0;
+		}
+
+		@Override
+		public Long next() {
+			if (remaining <= 0) {
+				throw new NoSuchElementException();
+			}
+			remaining--;
+			if (zeroPending) {
+				zeroPending = false;
+				last = -2;
+				return 0L;
+			}
+			while (--pos >= 0) {
+				if (table[pos] != 0) {
+					last = pos;
+					return table[pos];
+				}
+			}
+			last = -3;
+			lastValue = wrapped.get(wrappedIndex++);
+			return lastValue;
+		}
+
+		@Override
+		public void remove() {
+			if (last == -1) {
+				throw new IllegalStateException();
+			}
+			if (last == -2) {
+				containsZero = false;
+			} else if (last == -3) {
+				LongHashSet.this.remove(lastValue);
+			} else {
+				if (wrapped == null) {
+					wrapped = new LongList(2);
+				}
+				removeSlot(last, pos, wrapped);
+			}
+			last = -1;
+		}
+	}
+}
@@ -0,0 +1,279 @@
+package com.xmalloc.javatool.collection;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+/**
+ * 可增长的long列表, 元素不装箱.
+ *
+ * 非线程安全. {@link #asList()} 返回的视图和列表共用同一个数组, 供需要 List&lt;Long&gt; 的旧代码使用.
+ */
+public class LongList implements LongConsumer {
+
+	private static final long[] EMPTY = new long[0];
+
+	private long[] values;
+	private int size;
+
+	public LongList() {
+		this(10);
+	}
+
+	public LongList(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Illegal capacity: " + capacity);
+		}
+		values = capacity == 0 ? EMPTY : new long[capacity];
+	}
+
+	/**
+	 * 包装已有的数组, 不复制
+	 *
+	 * @param values
+	 * @return
+	 */
+	public static LongList wrap(long[] values) {
+		LongList list = new LongList(0);
+		list.values = values;
+		list.size = values.length;
+		return list;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public long get(int index) {
+		checkIndex(index);
+		return values[index];
+	}
+
+	/**
+	 * @return 原来的值
+	 */
+	public long set(int index, long value) {
+		checkIndex(index);
+		long old = values[index];
+		values[index] = value;
+		return old;
+	}
+
+	public void add(long value) {
+		if (size == values.length) {
+			grow(size + 1);
+		}
+		values[size++] = value;
+	}
+
+	public void add(int index, long value) {
+		if (index < 0 || index > size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		if (size == values.length) {
+			grow(size + 1);
+		}
+		System.arraycopy(values, index, values, index + 1, size - index);
+		values[index] = value;
+		size++;
+	}
+
+	public void addAll(long[] array) {
+		addAll(array, 0, array.length);
+	}
+
+	public void addAll(long[] array, int offset, int length) {
+		if (size + length > values.length) {
+			grow(size + length);
+		}
+		System.arraycopy(array, offset, values, size, length);
+		size += length;
+	}
+
+	public void addAll(LongList list) {
+		addAll(list.values, 0, list.size);
+	}
+
+	/**
+	 * @return 被删除的值
+	 */
+	public long removeAt(int index) {
+		checkIndex(index);
+		long old = values[index];
+		System.arraycopy(values, index + 1, values, index, size - index - 1);
+		size--;
+		return old;
+	}
+
+	public int indexOf(long value) {
+		for (int i = 0; i < size; i++) {
+			if (values[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public boolean contains(long value) {
+		return indexOf(value) >= 0;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	@Override
+	public void accept(long value) {
+		add(value);
+	}
+
+	public void forEach(LongConsumer consumer) {
+		for (int i = 0; i < size; i++) {
+			consumer.accept(values[i]);
+		}
+	}
+
+	public long[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+
+	/**
+	 * 复制到已有的数组
+	 *
+	 * @param dest 目标数组
+	 * @param offset 目标数组中的起始位置
+	 * @return 复制的最后一个元素之后的位置
+	 */
+	public int copyTo(long[] dest, int offset) {
+		System.arraycopy(values, 0, dest, offset, size);
+		return offset + size;
+	}
+
+	public LongStream stream() {
+		return Arrays.stream(values, 0, size);
+	}
+
+	/**
+	 * List&lt;Long&gt; 视图, 读写都直接作用在本列表上, 只在取值时装箱
+	 *
+	 * @return
+	 */
+	public List<Long> asList() {
+		return new ListView();
+	}
+
+	private void grow(int minCapacity) {
+		int capacity = Math.max(values.length + (values.length >> 1), Math.max(minCapacity, 10));
+		values = Arrays.copyOf(values, capacity);
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof LongList)) {
+			return false;
+		}
+		LongList other = (LongList) obj;
+		if (size != other.size) {
+			return false;
+		}
+		for (int i = 0; i < size; i++) {
+			if (values[i] != other.values[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 1;
+		for (int i = 0; i < size; i++) {
+			hash = 31 * hash + Long.hashCode(values[i]);
+		}
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(size * 8 + 2).append('[');
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(values[i]);
+		}
+		return sb.append(']').toString();
+	}
+
+	private static long requireElement(Long element) {
+		if (element == null) {
+			throw new NullPointerException("LongList does not permit null elements");
+		}
+		return element;
+	}
+
+	private final class ListView extends AbstractList<Long> implements RandomAccess {
+
+		@Override
+		public Long get(int index) {
+			return LongList.this.get(index);
+		}
+
+		/**
+		 * @throws NullPointerException element为null
+		 */
+		@Override
+		public Long set(int index, Long element) {
+			return LongList.this.set(index, requireElement(element));
+		}
+
+		/**
+		 * @throws NullPointerException element为null
+		 */
+		@Override
+		public void add(int index, Long element) {
+			LongList.this.add(index, requireElement(element));
+			modCount++;
+		}
+
+		@Override
+		public Long remove(int index) {
+			modCount++;
+			return removeAt(index);
+		}
+
+		@Override
+		public int indexOf(Object o) {
+			return o instanceof Long ? LongList.this.indexOf((Long) o) : -1;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return indexOf(o) >= 0;
+		}
+
+		@Override
+		public void clear() {
+			modCount++;
+			LongList.this.clear();
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
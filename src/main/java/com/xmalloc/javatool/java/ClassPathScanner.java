@@ -0,0 +1,390 @@
+package com.xmalloc.javatool.java;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 扫描classpath中的目录和jar, 查找包下的类或者匹配glob的资源.
+ *
+ * 每个根目录或jar在ForkJoin公共线程池中并行扫描. 目录只遍历和包名或glob的固定前缀对应的子目录;
+ * jar只读取末尾的中央目录, 按名字过滤, 不读取条目的内容. jar的条目列表按大小和修改时间缓存在内存中,
+ * 指定了索引目录时也保存到磁盘, 下次启动时大小和修改时间都没有变化就直接使用, 否则重新读取中央目录.
+ * 实例是线程安全的.
+ */
+public final class ClassPathScanner {
+
+	private static Logger LOG = LoggerFactory.getLogger(ClassPathScanner.class);
+
+	private static final int INDEX_MAGIC = 0x4A54434C;
+	private static final int INDEX_VERSION = 2;
+	private static final String CLASS_SUFFIX = ".class";
+	private static final FileAttribute<Set<PosixFilePermission>> OWNER_ONLY = PosixFilePermissions
+			.asFileAttribute(PosixFilePermissions.fromString("rwx------"));
+
+	private final List<Path> roots;
+	private final Path indexDir;
+	private final ConcurrentHashMap<Path, JarIndex> jars = new ConcurrentHashMap<Path, JarIndex>();
+
+	/**
+	 * @param roots classpath中的目录和jar
+	 * @param indexDir 保存jar索引的目录, 为null时只缓存在内存中
+	 */
+	public ClassPathScanner(List<Path> roots, Path indexDir) {
+		this.roots = Collections.unmodifiableList(new ArrayList<Path>(roots));
+		this.indexDir = indexDir;
+	}
+
+	public List<Path> getRoots() {
+		return roots;
+	}
+
+	/**
+	 * 查找包和子包下的类, 不含package-info和module-info
+	 *
+	 * @param packageName 例如 com.xmalloc.javatool, 空字符串表示全部
+	 * @return 排序后的类名
+	 */
+	public List<String> findClasses(String packageName) {
+		String prefix = packageName.isEmpty() ? "" : packageName.replace('.', '/') + '/';
+		List<String> names = scan(prefix, null);
+		List<String> classes = new ArrayList<String>();
+		for (String name : names) {
+			if (name.endsWith(CLASS_SUFFIX) && !name.endsWith("package-info.class")
+					&& !name.endsWith("module-info.class")) {
+				classes.add(name.substring(0, name.length() - CLASS_SUFFIX.length()).replace('/', '.'));
+			}
+		}
+		return classes;
+	}
+
+	/**
+	 * 查找匹配glob的资源. '*' 匹配除 '/' 外的任意字符, '**' 可以跨目录, '?' 匹配一个字符
+	 *
+	 * @param glob 例如 META-INF/spring/*.xml, com/xmalloc/**&#47;*.properties
+	 * @return 排序后的资源名
+	 */
+	public List<String> findResources(String glob) {
+		return scan(literalPrefix(glob), globPattern(glob));
+	}
+
+	/**
+	 * 丢弃内存中的jar索引
+	 */
+	public void clearCache() {
+		jars.clear();
+	}
+
+	/**
+	 * 并行扫描所有的根, 合并后排序去重
+	 *
+	 * @param prefix 名字的固定前缀, 用来剪枝
+	 * @param pattern 为null时只按前缀过滤
+	 */
+	private List<String> scan(final String prefix, final Pattern pattern) {
+		List<List<String>> results = roots.parallelStream().map(root -> scanRoot(root, prefix, pattern))
+				.collect(Collectors.toList());
+		Set<String> names = new TreeSet<String>();
+		for (List<String> result : results) {
+			names.addAll(result);
+		}
+		return new ArrayList<String>(names);
+	}
+
+	private List<String> scanRoot(Path root, String prefix, Pattern pattern) {
+		try {
+			if (Files.isDirectory(root)) {
+				return scanDirectory(root, prefix, pattern);
+			}
+			if (Files.isRegularFile(root)) {
+				return filter(jarIndex(root).names, prefix, pattern);
+			}
+		} catch (IOException | RuntimeException e) {
+			// 一个损坏的jar不影响其它根的扫描
+			LOG.warn("扫描classpath错误。 path: " + root, e);
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * 从前缀中最后一个 '/' 对应的子目录开始遍历
+	 */
+	private static List<String> scanDirectory(final Path root, final String prefix, final Pattern pattern)
+			throws IOException {
+		int slash = prefix.lastIndexOf('/');
+		Path start = slash < 0 ? root : root.resolve(prefix.substring(0, slash));
+		final List<String> names = new ArrayList<String>();
+		if (!Files.isDirectory(start)) {
+			return names;
+		}
+		Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+				return mayContain(relativeName(root, dir), prefix) ? FileVisitResult.CONTINUE
+						: FileVisitResult.SKIP_SUBTREE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				String name = relativeName(root, file);
+				if (attrs.isRegularFile() && matches(name, prefix, pattern)) {
+					names.add(name);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException e) {
+				LOG.warn("扫描classpath错误。 path: " + file, e);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		return names;
+	}
+
+	/**
+	 * 目录下可能有以prefix开头的名字, 没有公共部分时跳过整个子树
+	 *
+	 * @param directory 相对于根的目录名, 不以 '/' 结尾, 根是空字符串
+	 */
+	static boolean mayContain(String directory, String prefix) {
+		if (directory.isEmpty()) {
+			return true;
+		}
+		String name = directory + '/';
+		return name.startsWith(prefix) || prefix.startsWith(name);
+	}
+
+	private static String relativeName(Path root, Path path) {
+		String name = root.relativize(path).toString();
+		return path.getFileSystem().getSeparator().equals("/") ? name : name.replace(path.getFileSystem()
+				.getSeparator(), "/");
+	}
+
+	private static List<String> filter(List<String> names, String prefix, Pattern pattern) {
+		List<String> result = new ArrayList<String>();
+		for (String name : names) {
+			if (matches(name, prefix, pattern)) {
+				result.add(name);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 先比较固定前缀, 再匹配正则
+	 */
+	private static boolean matches(String name, String prefix, Pattern pattern) {
+		return name.startsWith(prefix) && (pattern == null || pattern.matcher(name).matches());
+	}
+
+	/**
+	 * 内存, 磁盘索引, 最后读取中央目录
+	 */
+	private JarIndex jarIndex(Path jar) throws IOException {
+		Path key = jar.toAbsolutePath().normalize();
+		BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+		long size = attributes.size();
+		long modified = attributes.lastModifiedTime().toMillis();
+		JarIndex index = jars.get(key);
+		if (index != null && index.size == size && index.modified == modified) {
+			return index;
+		}
+		if (index == null) {
+			index = readIndex(key);
+		}
+		if (index != null && index.size == size && index.modified == modified) {
+			jars.put(key, index);
+			return index;
+		}
+		try (FileChannel channel = FileChannel.open(key, StandardOpenOption.READ)) {
+			index = new JarIndex(size, modified, Collections.unmodifiableList(ZipDirectory.read(channel).names()));
+		}
+		jars.put(key, index);
+		writeIndex(key, index);
+		return index;
+	}
+
+	private Path indexFile(Path jar) {
+		String name = jar.getFileName().toString();
+		return indexDir.resolve(name + '-' + Integer.toHexString(jar.toString().hashCode()) + ".idx");
+	}
+
+	/**
+	 * @return 没有索引目录, 索引不存在或已损坏时返回null
+	 */
+	private JarIndex readIndex(Path jar) {
+		if (indexDir == null) {
+			return null;
+		}
+		Path file = indexFile(jar);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION || !in.readUTF().equals(jar.toString())) {
+				return null;
+			}
+			long size = in.readLong();
+			long modified = in.readLong();
+			int count = in.readInt();
+			List<String> names = new ArrayList<String>(Math.max(0, Math.min(count, 1 << 20)));
+			for (int i = 0; i < count; i++) {
+				byte[] buf = new byte[in.readInt()];
+				in.readFully(buf);
+				names.add(new String(buf, StandardCharsets.UTF_8));
+			}
+			return new JarIndex(size, modified, Collections.unmodifiableList(names));
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException | RuntimeException e) {
+			LOG.debug("读取jar索引错误。 filename: " + file, e);
+			return null;
+		}
+	}
+
+	/**
+	 * 写入临时文件后重命名, 多个进程同时写入时不会读到一半的索引
+	 */
+	private void writeIndex(Path jar, JarIndex index) {
+		if (indexDir == null) {
+			return;
+		}
+		Path file = indexFile(jar);
+		Path temp = null;
+		try {
+			createIndexDir();
+			temp = Files.createTempFile(indexDir, file.getFileName().toString(), ".tmp");
+			try (OutputStream os = Files.newOutputStream(temp);
+					DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+				out.writeInt(INDEX_MAGIC);
+				out.writeInt(INDEX_VERSION);
+				out.writeUTF(jar.toString());
+				out.writeLong(index.size);
+				out.writeLong(index.modified);
+				out.writeInt(index.names.size());
+				for (String name : index.names) {
+					byte[] buf = name.getBytes(StandardCharsets.UTF_8);
+					out.writeInt(buf.length);
+					out.write(buf);
+				}
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | RuntimeException e) {
+			LOG.debug("写入jar索引错误。 filename: " + file, e);
+		} finally {
+			if (temp != null) {
+				try {
+					Files.deleteIfExists(temp);
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	/**
+	 * 新建的索引目录只有所有者可以访问, 避免其它用户替换索引
+	 */
+	private void createIndexDir() throws IOException {
+		if (Files.isDirectory(indexDir)) {
+			return;
+		}
+		Files.createDirectories(indexDir.toAbsolutePath().getParent());
+		try {
+			Files.createDirectory(indexDir, OWNER_ONLY);
+		} catch (UnsupportedOperationException e) {
+			// 不是POSIX文件系统
+			Files.createDirectories(indexDir);
+		} catch (FileAlreadyExistsException e) {
+			// 其它线程或进程已经创建
+		}
+	}
+
+	/**
+	 * glob中第一个通配符之前的部分
+	 */
+	static String literalPrefix(String glob) {
+		for (int i = 0; i < glob.length(); i++) {
+			char c = glob.charAt(i);
+			if (c == '*' || c == '?') {
+				return glob.substring(0, i);
+			}
+		}
+		return glob;
+	}
+
+	static Pattern globPattern(String glob) {
+		StringBuilder regex = new StringBuilder(glob.length() * 2);
+		int literal = -1;
+		for (int i = 0; i < glob.length(); i++) {
+			char c = glob.charAt(i);
+			if (c == '*' || c == '?') {
+				if (literal >= 0) {
+					regex.append(Pattern.quote(glob.substring(literal, i)));
+					literal = -1;
+				}
+				if (c == '?') {
+					regex.append("[^/]");
+				} else if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+					i++;
+					if (i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+						// "**/" 也匹配0层目录
+						i++;
+						regex.append("(?:.*/)?");
+					} else {
+						regex.append(".*");
+					}
+				} else {
+					regex.append("[^/]*");
+				}
+			} else if (literal < 0) {
+				literal = i;
+			}
+		}
+		if (literal >= 0) {
+			regex.append(Pattern.quote(glob.substring(literal)));
+		}
+		return Pattern.compile(regex.toString());
+	}
+
+	/**
+	 * 一个jar的条目列表
+	 */
+	private static final class JarIndex {
+		final long size;
+		final long modified;
+		final List<String> names;
+
+		JarIndex(long size, long modified, List<String> names) {
+			this.size = size;
+			this.modified = modified;
+			this.names = names;
+		}
+	}
+}
@@ -1,6 +1,297 @@
 package com.xmalloc.javatool.java;
 
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * classpath相关的工具.
+ *
+ * classpath的根目录只解析一次. classpath下的配置文件按ClassLoader缓存解析结果, 查找不加锁. ClassLoader是弱引用,
+ * 重新部署后旧的ClassLoader可以被回收, 它的缓存在下一次查找时清除. 找不到的资源也会缓存, 返回null, 不抛出异常.
+ * 查找类和资源见 {@link ClassPathScanner}.
+ */
 public class ClassUtil {
-	
-	// TODO ZHCH  获取classpath路径
+
+	private static Logger LOG = LoggerFactory.getLogger(ClassUtil.class);
+
+	/** 缓存中表示资源不存在 */
+	private static final Object MISSING = new Object();
+
+	/** ClassLoader到资源名和解析结果的缓存, value不能引用ClassLoader, 否则不会被回收 */
+	private static final ConcurrentHashMap<LoaderKey, ConcurrentHashMap<String, Object>> RESOURCES = new ConcurrentHashMap<LoaderKey, ConcurrentHashMap<String, Object>>();
+
+	/** 被回收的ClassLoader的key */
+	private static final ReferenceQueue<ClassLoader> COLLECTED = new ReferenceQueue<ClassLoader>();
+
+	/** 保存jar索引的目录的系统属性, 默认是用户目录下的 .cache/javatool/classpath-index, 为空字符串时只缓存在内存中 */
+	public static final String INDEX_DIR_PROPERTY = "javatool.classpath.index.dir";
+
+	private static volatile String classPath;
+	private static volatile List<Path> classPathRoots;
+	private static volatile ClassPathScanner scanner;
+
+	/**
+	 * 取得classpath的根目录, 例如 WEB-INF/classes/, 不在目录中时返回user.dir. 结果只解析一次
+	 *
+	 * @return
+	 */
+	public static String getClassPath() {
+		String path = classPath;
+		if (path == null) {
+			path = resolveClassPath();
+			classPath = path;
+		}
+		return path;
+	}
+
+	/**
+	 * java.class.path中的目录和jar, 只解析一次
+	 *
+	 * @return 不可修改的列表
+	 */
+	public static List<Path> getClassPathRoots() {
+		List<Path> roots = classPathRoots;
+		if (roots == null) {
+			roots = resolveClassPathRoots(System.getProperty("java.class.path", ""));
+			classPathRoots = roots;
+		}
+		return roots;
+	}
+
+	/**
+	 * 扫描java.class.path的共享实例, jar的索引保存在 {@link #INDEX_DIR_PROPERTY} 指定的目录
+	 *
+	 * @return
+	 */
+	public static ClassPathScanner getScanner() {
+		ClassPathScanner current = scanner;
+		if (current == null) {
+			synchronized (ClassUtil.class) {
+				current = scanner;
+				if (current == null) {
+					current = new ClassPathScanner(getClassPathRoots(), defaultIndexDir());
+					scanner = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * 索引不放在共享的java.io.tmpdir中, 否则其它用户可以预先创建目录或替换索引
+	 *
+	 * @return 没有用户目录或者不合法时返回null, 只缓存在内存中
+	 */
+	private static Path defaultIndexDir() {
+		String dir = System.getProperty(INDEX_DIR_PROPERTY);
+		try {
+			if (dir != null) {
+				return dir.isEmpty() ? null : Paths.get(dir);
+			}
+			String home = System.getProperty("user.home");
+			if (home == null || home.isEmpty() || "?".equals(home)) {
+				return null;
+			}
+			return Paths.get(home, ".cache", "javatool", "classpath-index");
+		} catch (RuntimeException e) {
+			LOG.warn("不合法的jar索引目录, 只缓存在内存中: " + dir);
+			return null;
+		}
+	}
+
+	/**
+	 * 查找包和子包下的类
+	 *
+	 * @param packageName 例如 com.xmalloc.javatool
+	 * @return 排序后的类名
+	 * @see ClassPathScanner#findClasses(String)
+	 */
+	public static List<String> findClasses(String packageName) {
+		return getScanner().findClasses(packageName);
+	}
+
+	/**
+	 * 查找匹配glob的资源
+	 *
+	 * @param glob 例如 META-INF/spring/*.xml
+	 * @return 排序后的资源名
+	 * @see ClassPathScanner#findResources(String)
+	 */
+	public static List<String> findResources(String glob) {
+		return getScanner().findResources(glob);
+	}
+
+	/**
+	 * 读取classpath下的配置文件, 解析结果按ClassLoader缓存
+	 *
+	 * @param name 资源名, 开头的 '/' 会被去掉
+	 * @return 不可修改的map, 资源不存在或读取失败时返回null
+	 */
+	public static Map<String, String> getProperties(String name) {
+		return getProperties(defaultClassLoader(), name);
+	}
+
+	/**
+	 * 读取classpath下的配置文件, 解析结果按ClassLoader缓存
+	 *
+	 * @param loader 为null时使用系统ClassLoader
+	 * @param name 资源名, 开头的 '/' 会被去掉
+	 * @return 不可修改的map, 资源不存在或读取失败时返回null
+	 */
+	@SuppressWarnings("unchecked")
+	public static Map<String, String> getProperties(ClassLoader loader, String name) {
+		final ClassLoader cl = loader == null ? ClassLoader.getSystemClassLoader() : loader;
+		final String resource = name.startsWith("/") ? name.substring(1) : name;
+		ConcurrentHashMap<String, Object> cache = cache(cl);
+		Object value = cache.get(resource);
+		if (value == null) {
+			value = cache.computeIfAbsent(resource, key -> load(cl, key));
+			if (value == null) {
+				// 读取失败不缓存, 下次重试
+				return null;
+			}
+		}
+		return value == MISSING ? null : (Map<String, String>) value;
+	}
+
+	/**
+	 * 丢弃一个ClassLoader的缓存, 例如修改了classes目录下的配置文件后
+	 *
+	 * @param loader
+	 */
+	public static void clearCache(ClassLoader loader) {
+		RESOURCES.remove(new LoaderKey(loader, null));
+	}
+
+	/**
+	 * 当前线程的ContextClassLoader, 没有时使用加载ClassUtil的ClassLoader
+	 *
+	 * @return
+	 */
+	public static ClassLoader defaultClassLoader() {
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		return loader != null ? loader : ClassUtil.class.getClassLoader();
+	}
+
+	private static ConcurrentHashMap<String, Object> cache(ClassLoader loader) {
+		expungeCollected();
+		ConcurrentHashMap<String, Object> cache = RESOURCES.get(new LoaderKey(loader, null));
+		if (cache == null) {
+			ConcurrentHashMap<String, Object> created = new ConcurrentHashMap<String, Object>();
+			cache = RESOURCES.putIfAbsent(new LoaderKey(loader, COLLECTED), created);
+			if (cache == null) {
+				cache = created;
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * 清除已经被回收的ClassLoader的缓存
+	 */
+	private static void expungeCollected() {
+		Reference<? extends ClassLoader> ref;
+		while ((ref = COLLECTED.poll()) != null) {
+			RESOURCES.remove(ref);
+		}
+	}
+
+	/**
+	 * @return 解析结果, 资源不存在时返回MISSING, 读取失败时返回null
+	 */
+	private static Object load(ClassLoader loader, String name) {
+		URL url = loader.getResource(name);
+		if (url == null) {
+			LOG.warn("classpath配置文件不存在。 filename: " + name);
+			return MISSING;
+		}
+		Properties props = new Properties();
+		try (InputStream in = new BufferedInputStream(url.openStream())) {
+			props.load(in);
+		} catch (IOException | IllegalArgumentException e) {
+			LOG.error("读取classpath配置文件错误。 filename: " + name, e);
+			return null;
+		}
+		Map<String, String> map = new HashMap<String, String>(props.size() * 4 / 3 + 1);
+		for (String key : props.stringPropertyNames()) {
+			map.put(key, props.getProperty(key));
+		}
+		return Collections.unmodifiableMap(map);
+	}
+
+	/**
+	 * ClassLoader的弱引用, 按对象身份比较. 回收后只和自己相等
+	 */
+	private static final class LoaderKey extends WeakReference<ClassLoader> {
+		private final int hash;
+
+		LoaderKey(ClassLoader loader, ReferenceQueue<ClassLoader> queue) {
+			super(loader, queue);
+			this.hash = System.identityHashCode(loader);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof LoaderKey)) {
+				return false;
+			}
+			ClassLoader loader = get();
+			return loader != null && loader == ((LoaderKey) obj).get();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	private static String resolveClassPath() {
+		URL url = ClassUtil.class.getResource("/");
+		if (url != null && "file".equals(url.getProtocol())) {
+			try {
+				return new File(url.toURI()).getPath() + File.separator;
+			} catch (URISyntaxException | IllegalArgumentException e) {
+				LOG.info("Resolve classpath from " + url + " failed: " + e.getMessage());
+			}
+		}
+		LOG.info("Get /WEB-INF/class path failed, try to use [user.dir] path.");
+		return System.getProperty("user.dir");
+	}
+
+	private static List<Path> resolveClassPathRoots(String value) {
+		List<Path> roots = new ArrayList<Path>();
+		for (String entry : value.split(File.pathSeparator)) {
+			if (entry.isEmpty()) {
+				continue;
+			}
+			try {
+				roots.add(Paths.get(entry).toAbsolutePath().normalize());
+			} catch (RuntimeException e) {
+				LOG.warn("classpath中不合法的路径: " + entry);
+			}
+		}
+		return Collections.unmodifiableList(roots);
+	}
 }
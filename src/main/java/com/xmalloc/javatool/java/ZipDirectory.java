@@ -0,0 +1,170 @@
+package com.xmalloc.javatool.java;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipException;
+
+/**
+ * 只读取zip/jar文件末尾的中央目录, 得到全部条目的名字, 不读取和解压条目的内容.
+ *
+ * 支持ZIP64和前面附加了其它字节的jar. 中央目录一次读入内存, 按小端序解析.
+ */
+final class ZipDirectory {
+
+	private static final int EOCD_SIGNATURE = 0x06054b50;
+	private static final int EOCD_SIZE = 22;
+	private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+	private static final int ZIP64_LOCATOR_SIZE = 20;
+	private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+	private static final int CEN_SIGNATURE = 0x02014b50;
+	private static final int CEN_SIZE = 46;
+	/** 通用标志位11, 名字是UTF-8 */
+	private static final int FLAG_UTF8 = 0x800;
+	/** zip文件末尾注释的最大长度 */
+	private static final int MAX_COMMENT = 0xffff;
+
+	private static final Charset CP437 = cp437();
+
+	/** 中央目录的原始字节 */
+	private final ByteBuffer directory;
+	private final int count;
+
+	private ZipDirectory(ByteBuffer directory, int count) {
+		this.directory = directory;
+		this.count = count;
+	}
+
+	/**
+	 * 定位并读取中央目录
+	 *
+	 * @param channel
+	 * @return
+	 * @throws IOException 不是zip文件或者文件已损坏
+	 */
+	static ZipDirectory read(FileChannel channel) throws IOException {
+		long size = channel.size();
+		if (size < EOCD_SIZE) {
+			throw new ZipException("zip END header not found");
+		}
+		int tailLength = (int) Math.min(size, EOCD_SIZE + MAX_COMMENT);
+		ByteBuffer tail = readFully(channel, size - tailLength, tailLength);
+		int eocd = -1;
+		for (int i = tailLength - EOCD_SIZE; i >= 0; i--) {
+			if (tail.getInt(i) == EOCD_SIGNATURE && i + EOCD_SIZE + (tail.getShort(i + 20) & 0xffff) <= tailLength) {
+				eocd = i;
+				break;
+			}
+		}
+		if (eocd < 0) {
+			throw new ZipException("zip END header not found");
+		}
+		// 和java.util.zip一样, 中央目录紧挨在END之前, 按长度倒推它的位置, 所以jar前面有附加的字节(例如启动脚本)时也能读取
+		long endPos = size - tailLength + eocd;
+		long count = tail.getShort(eocd + 10) & 0xffff;
+		long length = tail.getInt(eocd + 12) & 0xffffffffL;
+		long offset = tail.getInt(eocd + 16) & 0xffffffffL;
+		if (count == 0xffff || length == 0xffffffffL || offset == 0xffffffffL) {
+			long locator = endPos - ZIP64_LOCATOR_SIZE;
+			if (locator >= 0) {
+				ByteBuffer loc = readFully(channel, locator, ZIP64_LOCATOR_SIZE);
+				if (loc.getInt(0) == ZIP64_LOCATOR_SIGNATURE) {
+					long end64Pos = loc.getLong(8);
+					if (end64Pos < 0 || end64Pos > locator - 56) {
+						throw new ZipException("invalid zip64 END header offset");
+					}
+					ByteBuffer end = readFully(channel, end64Pos, 56);
+					if (end.getInt(0) != ZIP64_EOCD_SIGNATURE) {
+						throw new ZipException("invalid zip64 END header");
+					}
+					count = end.getLong(32);
+					length = end.getLong(40);
+					offset = end.getLong(48);
+					endPos = end64Pos;
+				}
+			}
+		}
+		long cenPos = endPos - length;
+		if (count < 0 || count > Integer.MAX_VALUE || length < 0 || length > Integer.MAX_VALUE || offset < 0
+				|| cenPos < 0 || cenPos - offset < 0) {
+			throw new ZipException("invalid zip central directory");
+		}
+		// 每个条目至少占CEN_SIZE个字节, 损坏的个数不能用来分配内存
+		if (count > length / CEN_SIZE) {
+			throw new ZipException("invalid zip entry count: " + count);
+		}
+		return new ZipDirectory(readFully(channel, cenPos, (int) length), (int) count);
+	}
+
+	/**
+	 * 全部文件条目的名字, 不含目录
+	 *
+	 * @return
+	 * @throws ZipException 中央目录已损坏
+	 */
+	List<String> names() throws ZipException {
+		List<String> names = new ArrayList<String>(count);
+		ByteBuffer cen = directory;
+		int limit = cen.limit();
+		int pos = 0;
+		for (int i = 0; i < count; i++) {
+			if (pos + CEN_SIZE > limit || cen.getInt(pos) != CEN_SIGNATURE) {
+				throw new ZipException("invalid zip central directory header");
+			}
+			int flags = cen.getShort(pos + 8) & 0xffff;
+			int nameLength = cen.getShort(pos + 28) & 0xffff;
+			int extraLength = cen.getShort(pos + 30) & 0xffff;
+			int commentLength = cen.getShort(pos + 32) & 0xffff;
+			int start = pos + CEN_SIZE;
+			if (start + nameLength > limit) {
+				throw new ZipException("invalid zip central directory header");
+			}
+			if (nameLength > 0 && cen.get(start + nameLength - 1) != '/') {
+				names.add(name(cen, start, nameLength, (flags & FLAG_UTF8) != 0));
+			}
+			pos = start + nameLength + extraLength + commentLength;
+		}
+		return names;
+	}
+
+	private static String name(ByteBuffer cen, int start, int length, boolean utf8) {
+		byte[] buf = new byte[length];
+		boolean ascii = true;
+		for (int i = 0; i < length; i++) {
+			buf[i] = cen.get(start + i);
+			ascii &= buf[i] >= 0;
+		}
+		if (ascii) {
+			return new String(buf, StandardCharsets.ISO_8859_1);
+		}
+		return new String(buf, utf8 || CP437 == null ? StandardCharsets.UTF_8 : CP437);
+	}
+
+	private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException("unexpected end of zip file");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * zip默认的名字编码, 有些JRE没有时返回null, 按UTF-8解码
+	 */
+	private static Charset cp437() {
+		try {
+			return Charset.forName("IBM437");
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+}
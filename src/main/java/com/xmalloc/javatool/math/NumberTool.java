@@ -1,27 +1,75 @@
 package com.xmalloc.javatool.math;
 
-import java.text.NumberFormat;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class NumberTool {
 
+	private static final AtomicReferenceArray<PercentFormat> PERCENT_FORMATS = new AtomicReferenceArray<PercentFormat>(
+			PercentFormat.MAX_FRACTION_DIGITS + 1);
+
 	/**
-	 * 计算百分率
+	 * 计算百分率, 使用默认地区, 不保留小数
 	 * 
 	 * @param p1
-	 * @param p2
+	 * @param p2 为0时返回 {@link PercentFormat#DEFAULT_DIVIDE_BY_ZERO}
 	 * @return
 	 */
 	public static String percent(double p1, double p2) {
-		String str;
+		return percentFormat(Locale.getDefault(Locale.Category.FORMAT), 0).format(p1, p2);
+	}
 
-		double p3 = p1 / p2;
+	/**
+	 * 计算百分率, 使用默认地区
+	 * 
+	 * @param p1
+	 * @param p2 为0时返回 {@link PercentFormat#DEFAULT_DIVIDE_BY_ZERO}
+	 * @param fractionDigits 小数位数
+	 * @return
+	 */
+	public static String percent(double p1, double p2, int fractionDigits) {
+		return percentFormat(Locale.getDefault(Locale.Category.FORMAT), fractionDigits).format(p1, p2);
+	}
 
-		NumberFormat nf = NumberFormat.getPercentInstance();
+	/**
+	 * 计算百分率
+	 * 
+	 * @param p1
+	 * @param p2 为0时返回 {@link PercentFormat#DEFAULT_DIVIDE_BY_ZERO}
+	 * @param fractionDigits 小数位数
+	 * @param locale 地区
+	 * @return
+	 */
+	public static String percent(double p1, double p2, int fractionDigits, Locale locale) {
+		return percentFormat(locale, fractionDigits).format(p1, p2);
+	}
 
-		nf.setMinimumFractionDigits(0);
-		str = nf.format(p3);
+	/**
+	 * 计算两个整数的百分率, 舍入是精确的
+	 * 
+	 * @param part
+	 * @param total 为0时返回 {@link PercentFormat#DEFAULT_DIVIDE_BY_ZERO}
+	 * @param fractionDigits 小数位数
+	 * @return
+	 */
+	public static String percent(long part, long total, int fractionDigits) {
+		return percentFormat(Locale.getDefault(Locale.Category.FORMAT), fractionDigits).format(part, total);
+	}
 
-		return str;
+	/**
+	 * 缓存的百分比格式, 每个小数位数保留最近用到的地区
+	 */
+	private static PercentFormat percentFormat(Locale locale, int fractionDigits) {
+		if (fractionDigits < 0 || fractionDigits > PercentFormat.MAX_FRACTION_DIGITS) {
+			throw new IllegalArgumentException("fractionDigits out of range: " + fractionDigits);
+		}
+		PercentFormat format = PERCENT_FORMATS.get(fractionDigits);
+		if (format == null || !format.getLocale().equals(locale)) {
+			format = new PercentFormat(locale, fractionDigits);
+			PERCENT_FORMATS.set(fractionDigits, format);
+		}
+		return format;
 	}
 
 	/**
@@ -31,10 +79,152 @@ public class NumberTool {
 	 * @return
 	 */
 	public static long parseId(String s) {
-		try {
-			return Long.parseLong(s);
-		} catch (Exception e) {
-			return -1;
+		long id = tryParseLong(s, -1);
+		return id < 0 ? -1 : id;
+	}
+
+	/**
+	 * 按十进制解析long, 规则和 {@link Long#parseLong(String)} 相同, 失败时不抛异常
+	 * 
+	 * @param s 可以为null
+	 * @param defaultValue 无法解析或溢出时的返回值
+	 * @return
+	 */
+	public static long tryParseLong(CharSequence s, long defaultValue) {
+		return s == null ? defaultValue : tryParseLong(s, 0, s.length(), defaultValue);
+	}
+
+	/**
+	 * 解析 [from, to) 之间的字符
+	 * 
+	 * @param s
+	 * @param from 起始位置
+	 * @param to 结束位置(不含)
+	 * @param defaultValue 无法解析或溢出时的返回值
+	 * @return
+	 */
+	public static long tryParseLong(CharSequence s, int from, int to, long defaultValue) {
+		return parse(s, from, to, Long.MIN_VALUE, Long.MAX_VALUE, defaultValue);
+	}
+
+	/**
+	 * 按十进制解析int, 规则和 {@link Integer#parseInt(String)} 相同, 失败时不抛异常
+	 * 
+	 * @param s 可以为null
+	 * @param defaultValue 无法解析或溢出时的返回值
+	 * @return
+	 */
+	public static int tryParseInt(CharSequence s, int defaultValue) {
+		return s == null ? defaultValue : tryParseInt(s, 0, s.length(), defaultValue);
+	}
+
+	/**
+	 * 解析 [from, to) 之间的字符
+	 * 
+	 * @param s
+	 * @param from 起始位置
+	 * @param to 结束位置(不含)
+	 * @param defaultValue 无法解析或溢出时的返回值
+	 * @return
+	 */
+	public static int tryParseInt(CharSequence s, int from, int to, int defaultValue) {
+		return (int) parse(s, from, to, Integer.MIN_VALUE, Integer.MAX_VALUE, defaultValue);
+	}
+
+	/**
+	 * 从ASCII字节中解析long, 例如HTTP请求中的原始字节
+	 * 
+	 * @param bytes
+	 * @param offset 起始位置
+	 * @param length 字节数
+	 * @param defaultValue 无法解析或溢出时的返回值
+	 * @return
+	 */
+	public static long tryParseLong(byte[] bytes, int offset, int length, long defaultValue) {
+		if (offset < 0 || length < 0 || length > bytes.length - offset) {
+			throw new IndexOutOfBoundsException();
+		}
+		return parse(ByteBuffer.wrap(bytes), offset, offset + length, defaultValue);
+	}
+
+	/**
+	 * 从ByteBuffer的position到limit之间的ASCII字节解析long, 不改变position
+	 * 
+	 * @param buffer 堆内或直接缓冲区
+	 * @param defaultValue 无法解析或溢出时的返回值
+	 * @return
+	 */
+	public static long tryParseLong(ByteBuffer buffer, long defaultValue) {
+		return parse(buffer, buffer.position(), buffer.limit(), defaultValue);
+	}
+
+	/**
+	 * 解析 [from, to) 之间的ASCII字节, 用绝对位置读取, 堆内和直接缓冲区共用
+	 */
+	private static long parse(ByteBuffer buffer, int from, int to, long defaultValue) {
+		int i = from;
+		if (i == to) {
+			return defaultValue;
+		}
+		boolean negative = false;
+		byte first = buffer.get(i);
+		if (first == '-' || first == '+') {
+			negative = first == '-';
+			if (++i == to) {
+				return defaultValue;
+			}
+		}
+		long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		long multmin = limit / 10;
+		long result = 0;
+		for (; i < to; i++) {
+			int digit = buffer.get(i) - '0';
+			if (digit < 0 || digit > 9 || result < multmin) {
+				return defaultValue;
+			}
+			result *= 10;
+			if (result < limit + digit) {
+				return defaultValue;
+			}
+			result -= digit;
+		}
+		return negative ? result : -result;
+	}
+
+	/**
+	 * 和Long.parseLong一样按负数累加, 这样最小值也不会溢出; 非ASCII字符用Character.digit判断
+	 */
+	private static long parse(CharSequence s, int from, int to, long min, long max, long defaultValue) {
+		if (from < 0 || from > to || to > s.length()) {
+			throw new IndexOutOfBoundsException();
+		}
+		int i = from;
+		if (i == to) {
+			return defaultValue;
+		}
+		boolean negative = false;
+		char first = s.charAt(i);
+		if (first == '-' || first == '+') {
+			negative = first == '-';
+			if (++i == to) {
+				return defaultValue;
+			}
+		}
+		long limit = negative ? min : -max;
+		long multmin = limit / 10;
+		long result = 0;
+		for (; i < to; i++) {
+			char c = s.charAt(i);
+			int digit = c < 128 ? c - '0' : Character.digit(c, 10);
+			if (digit < 0 || digit > 9 || result < multmin) {
+				return defaultValue;
+			}
+			result *= 10;
+			if (result < limit + digit) {
+				return defaultValue;
+			}
+			result -= digit;
 		}
+		return negative ? result : -result;
 	}
 }
@@ -0,0 +1,266 @@
+package com.xmalloc.javatool.math;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 线程安全的百分比格式, 输出和 {@link NumberFormat#getPercentInstance(Locale)} 固定小数位数时相同.
+ *
+ * 每个地区的前后缀, 分组和小数点符号只从NumberFormat读取一次并缓存, 之后的格式化只做整数运算,
+ * 数字直接写入StringBuilder; 只有非常接近舍入边界或者非常大的值才使用BigDecimal或NumberFormat. 小数位按四舍六入五成双(HALF_EVEN)舍入,
+ * 正好在两个数中间时按比率的十进制表示({@link BigDecimal#valueOf(double)})舍入, 例如0.125保留零位小数是12%,
+ * 这时可能和按二进制精确值舍入的NumberFormat不同. 分母为0时输出指定的文本, 不会输出 "∞" 或 "NaN".
+ */
+public final class PercentFormat {
+
+	/** 默认的分母为0时的文本 */
+	public static final String DEFAULT_DIVIDE_BY_ZERO = "-";
+
+	/** 最多的小数位数 */
+	public static final int MAX_FRACTION_DIGITS = 6;
+
+	private static final ConcurrentHashMap<Locale, Symbols> SYMBOLS = new ConcurrentHashMap<Locale, Symbols>();
+
+	private static final long[] POW10 = new long[19];
+
+	static {
+		POW10[0] = 1;
+		for (int i = 1; i < POW10.length; i++) {
+			POW10[i] = POW10[i - 1] * 10;
+		}
+	}
+
+	/** 缩放值不超过这个数时double的舍入误差远小于1, 结果和NumberFormat一致 */
+	private static final double MAX_SCALED = 1e13;
+
+	/** 小数部分和0.5相差小于这个数时按精确值舍入 */
+	private static final double TIE_EPSILON = 1e-3;
+
+	private final Locale locale;
+	private final int fractionDigits;
+	private final String divideByZero;
+	private final Symbols symbols;
+
+	/**
+	 * @param locale 地区
+	 * @param fractionDigits 小数位数, 0到 {@link #MAX_FRACTION_DIGITS}
+	 */
+	public PercentFormat(Locale locale, int fractionDigits) {
+		this(locale, fractionDigits, DEFAULT_DIVIDE_BY_ZERO);
+	}
+
+	/**
+	 * @param locale 地区
+	 * @param fractionDigits 小数位数, 0到 {@link #MAX_FRACTION_DIGITS}
+	 * @param divideByZero 分母为0时输出的文本
+	 */
+	public PercentFormat(Locale locale, int fractionDigits, String divideByZero) {
+		if (fractionDigits < 0 || fractionDigits > MAX_FRACTION_DIGITS) {
+			throw new IllegalArgumentException("fractionDigits out of range: " + fractionDigits);
+		}
+		if (divideByZero == null) {
+			throw new NullPointerException("divideByZero");
+		}
+		this.locale = locale;
+		this.fractionDigits = fractionDigits;
+		this.divideByZero = divideByZero;
+		this.symbols = symbols(locale);
+	}
+
+	public Locale getLocale() {
+		return locale;
+	}
+
+	public int getFractionDigits() {
+		return fractionDigits;
+	}
+
+	public String getDivideByZero() {
+		return divideByZero;
+	}
+
+	/**
+	 * 格式化 part / total
+	 *
+	 * @param part
+	 * @param total 为0时返回divideByZero
+	 * @return
+	 */
+	public String format(double part, double total) {
+		return format(part, total, new StringBuilder(16)).toString();
+	}
+
+	/**
+	 * 格式化 part / total 后写入sb
+	 *
+	 * @return sb
+	 */
+	public StringBuilder format(double part, double total, StringBuilder sb) {
+		if (total == 0) {
+			return sb.append(divideByZero);
+		}
+		return formatRatio(part / total, sb);
+	}
+
+	/**
+	 * 格式化 part / total, 整数相除的舍入是精确的
+	 *
+	 * @param part
+	 * @param total 为0时返回divideByZero
+	 * @return
+	 */
+	public String format(long part, long total) {
+		return format(part, total, new StringBuilder(16)).toString();
+	}
+
+	/**
+	 * 格式化 part / total 后写入sb
+	 *
+	 * @return sb
+	 */
+	public StringBuilder format(long part, long total, StringBuilder sb) {
+		if (total == 0) {
+			return sb.append(divideByZero);
+		}
+		long scale = 100 * POW10[fractionDigits];
+		long limit = Long.MAX_VALUE / scale;
+		// 乘积超出long或者分母是Long.MIN_VALUE时按浮点数计算
+		if (part > limit || part < -limit || total == Long.MIN_VALUE) {
+			return formatRatio((double) part / total, sb);
+		}
+		long numerator = part * scale;
+		long quotient = numerator / total;
+		long remainder = numerator % total;
+		if (remainder != 0) {
+			long twice = Math.abs(remainder) * 2;
+			long divisor = Math.abs(total);
+			if (twice > divisor || twice == divisor && (quotient & 1) != 0) {
+				quotient += (numerator < 0) == (total < 0) ? 1 : -1;
+			}
+		}
+		boolean negative = (numerator < 0) != (total < 0) && numerator != 0;
+		return write(negative, Math.abs(quotient), sb);
+	}
+
+	/**
+	 * 格式化一个比率, 例如0.5输出50%
+	 *
+	 * @param ratio
+	 * @return
+	 */
+	public String formatRatio(double ratio) {
+		return formatRatio(ratio, new StringBuilder(16)).toString();
+	}
+
+	/**
+	 * 格式化一个比率后写入sb
+	 *
+	 * @return sb
+	 */
+	public StringBuilder formatRatio(double ratio, StringBuilder sb) {
+		// 和DecimalFormat一样先乘以100
+		double percent = Math.abs(ratio) * 100;
+		double product = percent * POW10[fractionDigits];
+		if (!(product < MAX_SCALED)) {
+			// 无穷, NaN和超出整数运算范围的值很少见, 交给NumberFormat
+			return sb.append(slowFormat(ratio));
+		}
+		long scaled;
+		if (Math.abs(product - Math.floor(product) - 0.5) < TIE_EPSILON) {
+			// 接近两个数的正中间时, 乘法的舍入误差可能改变结果, 按ratio的十进制表示舍入
+			scaled = BigDecimal.valueOf(Math.abs(ratio)).movePointRight(2 + fractionDigits)
+					.setScale(0, RoundingMode.HALF_EVEN).longValue();
+		} else {
+			scaled = (long) Math.rint(product);
+		}
+		return write(Double.doubleToRawLongBits(ratio) < 0, scaled, sb);
+	}
+
+	/**
+	 * 写入缩放后的非负值, 例如两位小数时1234表示12.34%
+	 */
+	private StringBuilder write(boolean negative, long scaled, StringBuilder sb) {
+		Symbols s = symbols;
+		sb.append(negative ? s.negativePrefix : s.positivePrefix);
+		long integer = scaled / POW10[fractionDigits];
+		long fraction = scaled % POW10[fractionDigits];
+		int digits = 1;
+		while (digits < POW10.length && integer >= POW10[digits]) {
+			digits++;
+		}
+		for (int k = digits - 1; k >= 0; k--) {
+			sb.append((char) (s.zero + integer / POW10[k] % 10));
+			if (k > 0 && s.groupingSize > 0 && k % s.groupingSize == 0) {
+				sb.append(s.groupingSeparator);
+			}
+		}
+		if (fractionDigits > 0) {
+			sb.append(s.decimalSeparator);
+			for (int k = fractionDigits - 1; k >= 0; k--) {
+				sb.append((char) (s.zero + fraction / POW10[k] % 10));
+			}
+		}
+		return sb.append(negative ? s.negativeSuffix : s.positiveSuffix);
+	}
+
+	private String slowFormat(double ratio) {
+		NumberFormat format = NumberFormat.getPercentInstance(locale);
+		format.setMinimumFractionDigits(fractionDigits);
+		format.setMaximumFractionDigits(fractionDigits);
+		format.setRoundingMode(RoundingMode.HALF_EVEN);
+		return format.format(ratio);
+	}
+
+	private static Symbols symbols(Locale locale) {
+		Symbols s = SYMBOLS.get(locale);
+		if (s == null) {
+			s = new Symbols(NumberFormat.getPercentInstance(locale));
+			SYMBOLS.putIfAbsent(locale, s);
+		}
+		return s;
+	}
+
+	/**
+	 * 一个地区的百分比符号
+	 */
+	private static final class Symbols {
+		final String positivePrefix;
+		final String positiveSuffix;
+		final String negativePrefix;
+		final String negativeSuffix;
+		final char zero;
+		final char decimalSeparator;
+		final char groupingSeparator;
+		/** 不分组时为0 */
+		final int groupingSize;
+
+		Symbols(NumberFormat format) {
+			if (format instanceof DecimalFormat) {
+				DecimalFormat decimal = (DecimalFormat) format;
+				DecimalFormatSymbols dfs = decimal.getDecimalFormatSymbols();
+				positivePrefix = decimal.getPositivePrefix();
+				positiveSuffix = decimal.getPositiveSuffix();
+				negativePrefix = decimal.getNegativePrefix();
+				negativeSuffix = decimal.getNegativeSuffix();
+				zero = dfs.getZeroDigit();
+				decimalSeparator = dfs.getDecimalSeparator();
+				groupingSeparator = dfs.getGroupingSeparator();
+				groupingSize = decimal.isGroupingUsed() ? decimal.getGroupingSize() : 0;
+			} else {
+				positivePrefix = "";
+				positiveSuffix = "%";
+				negativePrefix = "-";
+				negativeSuffix = "%";
+				zero = '0';
+				decimalSeparator = '.';
+				groupingSeparator = ',';
+				groupingSize = 3;
+			}
+		}
+	}
+}
@@ -0,0 +1,308 @@
+package com.xmalloc.javatool.properties;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * 内存映射的只读配置文件, 适合有几十万个key的大文件.
+ *
+ * 文件按ISO-8859-1读取, 语法和 {@link Properties#load(java.io.InputStream)} 相同: 注释, 续行,
+ * '='/':'/空白分隔符和转义. 加载时只扫描一遍映射的字节, key解码后放进开放寻址的散列表, value只记录位置,
+ * 第一次读取时才解码. 创建后不可修改, 查找不加锁, 可以在多个线程中共享.
+ *
+ * 实例存在期间文件保持映射, 不能被截断或原地改写; 更新文件应该写到新文件后重命名覆盖.
+ */
+public final class MappedProperties extends AbstractMap<String, String> {
+
+	private final Latin1 text;
+	private final String[] keys;
+	/** value在文件中的起始位置 */
+	private final int[] starts;
+	/** value的结束位置, 含有转义时取反 */
+	private final int[] ends;
+	/** 解码后的value, 多个线程同时解码时结果相同, 不需要加锁 */
+	private final String[] values;
+	private final int size;
+
+	private MappedProperties(ByteBuffer bytes) {
+		this.text = new Latin1(bytes);
+		Table table = new Table(capacity(bytes));
+		parse(table);
+		this.keys = table.keys;
+		this.starts = table.starts;
+		this.ends = table.ends;
+		this.values = table.values;
+		this.size = table.size;
+	}
+
+	/**
+	 * 映射并解析文件
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 * @throws IllegalArgumentException 有不合法的 \\uxxxx 转义, 或者文件超过2G
+	 */
+	public static MappedProperties load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long length = channel.size();
+			if (length > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("file too large: " + file);
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+			return new MappedProperties(buffer);
+		}
+	}
+
+	/**
+	 * 解析内存中的字节, 例如已经读入的文件内容
+	 *
+	 * @param buffer 从position到limit的ISO-8859-1字节, 不改变position
+	 * @return
+	 */
+	public static MappedProperties parse(ByteBuffer buffer) {
+		return new MappedProperties(buffer.slice());
+	}
+
+	public String getProperty(String key) {
+		int slot = find(key);
+		return slot < 0 ? null : value(slot);
+	}
+
+	public String getProperty(String key, String defaultValue) {
+		String value = getProperty(key);
+		return value == null ? defaultValue : value;
+	}
+
+	@Override
+	public String get(Object key) {
+		return key instanceof String ? getProperty((String) key) : null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key instanceof String && find((String) key) >= 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * 复制成Properties
+	 *
+	 * @return
+	 */
+	public Properties toProperties() {
+		Properties props = new Properties();
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				props.setProperty(keys[i], value(i));
+			}
+		}
+		return props;
+	}
+
+	@Override
+	public Set<Map.Entry<String, String>> entrySet() {
+		return new AbstractSet<Map.Entry<String, String>>() {
+			@Override
+			public Iterator<Map.Entry<String, String>> iterator() {
+				return new Iterator<Map.Entry<String, String>>() {
+					private int next = advance(0);
+
+					private int advance(int from) {
+						while (from < keys.length && keys[from] == null) {
+							from++;
+						}
+						return from;
+					}
+
+					@Override
+					public boolean hasNext() {
+						return next < keys.length;
+					}
+
+					@Override
+					public Map.Entry<String, String> next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						int slot = next;
+						next = advance(slot + 1);
+						return new AbstractMap.SimpleImmutableEntry<String, String>(keys[slot], value(slot));
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	private int find(String key) {
+		int mask = keys.length - 1;
+		for (int slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+			String k = keys[slot];
+			if (k == null) {
+				return -1;
+			}
+			if (k.equals(key)) {
+				return slot;
+			}
+		}
+	}
+
+	private String value(int slot) {
+		String value = values[slot];
+		if (value == null) {
+			int end = ends[slot];
+			value = end < 0 ? PropertiesLineReader.convert(text, starts[slot], ~end) : text.substring(starts[slot], end);
+			values[slot] = value;
+		}
+		return value;
+	}
+
+	private static int hash(String key) {
+		int h = key.hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * 解析时使用的开放寻址散列表
+	 */
+	private static final class Table {
+		String[] keys;
+		int[] starts;
+		int[] ends;
+		String[] values;
+		int size;
+
+		Table(int capacity) {
+			keys = new String[capacity];
+			starts = new int[capacity];
+			ends = new int[capacity];
+			values = new String[capacity];
+		}
+
+		/**
+		 * 后出现的key覆盖前面的, 和Properties相同
+		 *
+		 * @param value 已经解码的value, 为null时按位置延迟解码
+		 */
+		void put(String key, int start, int end, String value) {
+			if ((size + 1) * 2 > keys.length) {
+				Table larger = new Table(keys.length * 2);
+				for (int i = 0; i < keys.length; i++) {
+					if (keys[i] != null) {
+						larger.put(keys[i], starts[i], ends[i], values[i]);
+					}
+				}
+				keys = larger.keys;
+				starts = larger.starts;
+				ends = larger.ends;
+				values = larger.values;
+			}
+			int mask = keys.length - 1;
+			int slot = hash(key) & mask;
+			while (keys[slot] != null && !keys[slot].equals(key)) {
+				slot = (slot + 1) & mask;
+			}
+			if (keys[slot] == null) {
+				keys[slot] = key;
+				size++;
+			}
+			starts[slot] = start;
+			ends[slot] = end;
+			values[slot] = value;
+		}
+	}
+
+	/**
+	 * 按行数估计散列表的大小, 避免解析过程中反复扩容
+	 */
+	private static int capacity(ByteBuffer bytes) {
+		int lines = 1;
+		for (int i = 0, n = bytes.limit(); i < n; i++) {
+			if (bytes.get(i) == '\n') {
+				lines++;
+			}
+		}
+		return Integer.highestOneBit(Math.min(lines, 1 << 28) * 2 - 1) << 1;
+	}
+
+	/**
+	 * 一遍扫描所有的逻辑行
+	 */
+	private void parse(Table table) {
+		PropertiesLineReader reader = new PropertiesLineReader(text);
+		int limit;
+		while ((limit = reader.readLine()) >= 0) {
+			String key = reader.key();
+			if (reader.isJoined()) {
+				// 续行很少见, 直接解码
+				table.put(key, 0, 0, reader.value());
+			} else {
+				int start = reader.getStart() + reader.getValueStart();
+				int end = reader.getStart() + limit;
+				boolean escaped = reader.hasBackslash() && PropertiesLineReader.validate(text, start, end);
+				table.put(key, start, escaped ? ~end : end, null);
+			}
+		}
+	}
+
+	/**
+	 * 把字节按ISO-8859-1当作字符读取, 不复制
+	 */
+	private static final class Latin1 implements CharSequence {
+		private final ByteBuffer bytes;
+
+		Latin1(ByteBuffer bytes) {
+			this.bytes = bytes;
+		}
+
+		@Override
+		public int length() {
+			return bytes.limit();
+		}
+
+		@Override
+		public char charAt(int index) {
+			return (char) (bytes.get(index) & 0xff);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return substring(start, end);
+		}
+
+		String substring(int start, int end) {
+			byte[] buf = new byte[end - start];
+			ByteBuffer view = bytes.duplicate();
+			view.position(start);
+			view.get(buf);
+			return new String(buf, StandardCharsets.ISO_8859_1);
+		}
+
+		@Override
+		public String toString() {
+			return substring(0, bytes.limit());
+		}
+	}
+
+}
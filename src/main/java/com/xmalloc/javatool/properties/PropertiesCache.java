@@ -0,0 +1,271 @@
+package com.xmalloc.javatool.properties;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 按路径缓存解析后的配置文件.
+ *
+ * 每个文件保存一份不可变的快照, 查找不加锁. 距上次检查超过检查间隔时才读取文件的修改时间和大小,
+ * 有变化才重新解析并通知监听器. 文件不存在时记录错误, 返回空的快照; 从来没有存在过的文件不缓存,
+ * 查询过的路径再多也不占用内存. 读取失败时记录错误, 继续使用原来的快照, 没有时返回空的快照,
+ * 都不记录这次的修改时间, 下一次检查时重试. 解析在锁外进行, 不阻塞其它文件的读取.
+ */
+public final class PropertiesCache {
+
+	private static Logger LOG = LoggerFactory.getLogger(PropertiesCache.class);
+
+	/** 默认的检查间隔, 毫秒 */
+	public static final long DEFAULT_CHECK_INTERVAL = 1000;
+
+	private static final PropertiesCache DEFAULT = new PropertiesCache(DEFAULT_CHECK_INTERVAL);
+
+	private final long checkIntervalNanos;
+	private final ConcurrentHashMap<Path, Entry> entries = new ConcurrentHashMap<Path, Entry>();
+	private final CopyOnWriteArrayList<ReloadListener> listeners = new CopyOnWriteArrayList<ReloadListener>();
+
+	/**
+	 * 配置文件重新加载后的回调
+	 */
+	public interface ReloadListener {
+		/**
+		 * @param file 配置文件的绝对路径
+		 * @param properties 新的快照
+		 */
+		void reloaded(Path file, Map<String, String> properties);
+	}
+
+	/**
+	 * 一个文件的快照, 创建后只更新检查时间. 已经缓存的文件被删除后保存一个modified为null的空快照
+	 */
+	private static final class Entry {
+		/** 文件不存在时为null */
+		final FileTime modified;
+		final long size;
+		final Map<String, String> properties;
+		volatile long checkedAt;
+
+		Entry(FileTime modified, long size, Map<String, String> properties, long checkedAt) {
+			this.modified = modified;
+			this.size = size;
+			this.properties = properties;
+			this.checkedAt = checkedAt;
+		}
+
+		boolean sameFile(BasicFileAttributes attributes) {
+			return attributes == null ? modified == null
+					: attributes.lastModifiedTime().equals(modified) && attributes.size() == size;
+		}
+
+		boolean sameVersion(Entry other) {
+			return Objects.equals(modified, other.modified) && size == other.size;
+		}
+	}
+
+	/**
+	 * @param checkInterval 两次检查文件是否修改的最小间隔, 毫秒; 0表示每次都检查
+	 */
+	public PropertiesCache(long checkInterval) {
+		if (checkInterval < 0) {
+			throw new IllegalArgumentException("checkInterval must not be negative: " + checkInterval);
+		}
+		this.checkIntervalNanos = TimeUnit.MILLISECONDS.toNanos(checkInterval);
+	}
+
+	/**
+	 * 全局共享的缓存, 检查间隔为 {@link #DEFAULT_CHECK_INTERVAL}
+	 *
+	 * @return
+	 */
+	public static PropertiesCache getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * 取得配置文件的快照
+	 *
+	 * @param filePath
+	 * @return 不可修改的map
+	 */
+	public Map<String, String> get(String filePath) {
+		return get(Paths.get(filePath));
+	}
+
+	/**
+	 * 取得配置文件的快照
+	 *
+	 * @param file
+	 * @return 不可修改的map
+	 */
+	public Map<String, String> get(Path file) {
+		Path key = file.toAbsolutePath().normalize();
+		Entry entry = entries.get(key);
+		long now = System.nanoTime();
+		if (entry != null && now - entry.checkedAt < checkIntervalNanos) {
+			return entry.properties;
+		}
+		return refresh(key, entry, now, false).properties;
+	}
+
+	/**
+	 * 根据key读取value
+	 *
+	 * @param filePath
+	 * @param key
+	 * @return 没有时返回null
+	 */
+	public String getValue(String filePath, String key) {
+		return get(filePath).get(key);
+	}
+
+	/**
+	 * 丢弃文件的快照, 下一次读取时重新解析
+	 *
+	 * @param file
+	 */
+	public void invalidate(Path file) {
+		entries.remove(file.toAbsolutePath().normalize());
+	}
+
+	/**
+	 * 立即重新解析已经缓存的文件并通知监听器, 例如修改文件之后, 不用等到修改时间变化. 没有缓存的文件不处理,
+	 * 下一次读取时解析
+	 *
+	 * @param file
+	 */
+	public void reload(Path file) {
+		Path key = file.toAbsolutePath().normalize();
+		if (entries.containsKey(key)) {
+			refresh(key, null, System.nanoTime(), true);
+		}
+	}
+
+	/**
+	 * 丢弃全部快照
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	public void addListener(ReloadListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(ReloadListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * 检查文件是否修改, 修改时在锁外重新解析, 再用compute安装新的快照. 多个线程同时发现修改时都会解析,
+	 * 先安装的生效, 之后相同版本的快照被丢弃, 监听器只通知一次
+	 *
+	 * @param force 为true时不比较修改时间, 只重新解析已经缓存的文件
+	 */
+	private Entry refresh(final Path file, Entry entry, final long now, final boolean force) {
+		BasicFileAttributes latest = attributes(file);
+		if (!force && entry != null && entry.sameFile(latest)) {
+			entry.checkedAt = now;
+			return entry;
+		}
+		final Entry loaded = load(file, latest, now);
+		if (loaded == null) {
+			if (force) {
+				// 修改时间可能没有变化, 丢弃快照, 下一次读取时重试
+				entries.remove(file);
+			} else if (entry != null) {
+				// 读取失败时保留原来的快照, 它的修改时间和文件不同, 下一次检查时重试
+				entry.checkedAt = now;
+				return entry;
+			}
+			return new Entry(null, -1, Collections.<String, String> emptyMap(), now);
+		}
+		final boolean[] reloaded = new boolean[1];
+		Entry current = entries.compute(file, (path, old) -> {
+			if (old == null && (force || loaded.modified == null)) {
+				// reload只处理已经缓存的文件; 不存在的文件不缓存
+				return null;
+			}
+			if (!force && old != null && old.sameVersion(loaded)) {
+				// 其它线程已经安装了同一个版本
+				old.checkedAt = now;
+				return old;
+			}
+			reloaded[0] = old != null;
+			return loaded;
+		});
+		if (current == null) {
+			return loaded;
+		}
+		if (reloaded[0]) {
+			for (ReloadListener listener : listeners) {
+				try {
+					listener.reloaded(file, current.properties);
+				} catch (RuntimeException e) {
+					LOG.error("配置文件重新加载的回调错误。 filename: " + file, e);
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * 缓存的文件个数
+	 */
+	int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return 读取失败时返回null
+	 */
+	private static Entry load(Path file, BasicFileAttributes attributes, long now) {
+		if (attributes == null) {
+			LOG.error("读取配置文件错误, 文件不存在。 filename: " + file);
+			return new Entry(null, -1, Collections.<String, String> emptyMap(), now);
+		}
+		Properties props = new Properties();
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+			props.load(in);
+		} catch (IOException | IllegalArgumentException e) {
+			LOG.error("读取配置文件错误。 filename: " + file, e);
+			return null;
+		}
+		Map<String, String> map = new HashMap<String, String>(props.size() * 4 / 3 + 1);
+		for (String name : props.stringPropertyNames()) {
+			map.put(name, props.getProperty(name));
+		}
+		return new Entry(attributes.lastModifiedTime(), attributes.size(), Collections.unmodifiableMap(map), now);
+	}
+
+	/**
+	 * @return 文件不存在时返回null
+	 */
+	private static BasicFileAttributes attributes(Path file) {
+		try {
+			return Files.readAttributes(file, BasicFileAttributes.class);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			LOG.error("读取配置文件属性错误。 filename: " + file, e);
+			return null;
+		}
+	}
+}
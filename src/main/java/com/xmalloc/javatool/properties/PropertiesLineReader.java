@@ -0,0 +1,327 @@
+package com.xmalloc.javatool.properties;
+
+import java.util.Arrays;
+
+/**
+ * 读取.properties文件的逻辑行并分开key和value, 规则和 {@link java.util.Properties#load(java.io.Reader)} 相同.
+ *
+ * 没有续行的逻辑行就是输入中连续的一段, 直接按位置读取; 遇到续行时才把内容复制到缓冲区.
+ * 同时记录逻辑行在输入中的范围, 改写文件时用来替换整行.
+ */
+final class PropertiesLineReader implements CharSequence {
+
+	private final CharSequence text;
+	private final int limit;
+	private int off;
+	private char[] buf = new char[256];
+	private int len;
+	/** 没有续行时逻辑行在输入中的起始位置 */
+	private int start;
+	/** 是否有续行, 有续行时内容在buf中 */
+	private boolean joined;
+	/** 逻辑行中是否有反斜杠 */
+	private boolean backslash;
+	/** 逻辑行在输入中的范围, 含续行, 不含行尾的换行符 */
+	private int rawStart;
+	private int rawEnd;
+	private int keyLength;
+	private int valueStart;
+
+	/**
+	 * @param text 按ISO-8859-1解码的文件内容
+	 */
+	PropertiesLineReader(CharSequence text) {
+		this.text = text;
+		this.limit = text.length();
+	}
+
+	/**
+	 * 读取下一个逻辑行, 并找到key和value的位置
+	 *
+	 * @return 逻辑行的长度, 没有更多的行时返回-1
+	 */
+	int readLine() {
+		int length = read();
+		if (length >= 0) {
+			split();
+		}
+		return length;
+	}
+
+	private int read() {
+		len = 0;
+		joined = false;
+		backslash = false;
+		boolean skipWhiteSpace = true;
+		boolean appendedLineBegin = false;
+		boolean precedingBackslash = false;
+		while (true) {
+			if (off >= limit) {
+				if (len == 0) {
+					return -1;
+				}
+				rawEnd = limit;
+				return len = precedingBackslash ? len - 1 : len;
+			}
+			char c = text.charAt(off++);
+			if (skipWhiteSpace) {
+				if (c == ' ' || c == '\t' || c == '\f') {
+					continue;
+				}
+				if (!appendedLineBegin && (c == '\r' || c == '\n')) {
+					continue;
+				}
+				skipWhiteSpace = false;
+				appendedLineBegin = false;
+			}
+			if (len == 0 && (c == '#' || c == '!')) {
+				// 注释, 跳到行尾
+				while (off < limit) {
+					char b = text.charAt(off++);
+					if (b == '\r' || b == '\n') {
+						break;
+					}
+				}
+				skipWhiteSpace = true;
+				continue;
+			}
+			if (c != '\n' && c != '\r') {
+				if (joined) {
+					if (len == buf.length) {
+						buf = Arrays.copyOf(buf, len * 2);
+					}
+					buf[len] = c;
+				} else if (len == 0) {
+					start = off - 1;
+					rawStart = start;
+				}
+				len++;
+				if (c == '\\') {
+					backslash = true;
+					precedingBackslash = !precedingBackslash;
+				} else {
+					precedingBackslash = false;
+				}
+			} else {
+				if (len == 0) {
+					skipWhiteSpace = true;
+					continue;
+				}
+				rawEnd = off - 1;
+				if (off >= limit) {
+					return len = precedingBackslash ? len - 1 : len;
+				}
+				if (!precedingBackslash) {
+					return len;
+				}
+				// 行尾的反斜杠不属于这一行, 跳过下一行开头的空白
+				len--;
+				if (!joined) {
+					if (buf.length < len + 1) {
+						buf = new char[Math.max(len * 2, buf.length)];
+					}
+					for (int i = 0; i < len; i++) {
+						buf[i] = text.charAt(start + i);
+					}
+					joined = true;
+				}
+				skipWhiteSpace = true;
+				appendedLineBegin = true;
+				precedingBackslash = false;
+				if (c == '\r' && text.charAt(off) == '\n') {
+					off++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 和Properties.load一样, key在第一个没有转义的'=', ':'或空白处结束, value前的空白和一个分隔符被跳过
+	 */
+	private void split() {
+		int keyLen = 0;
+		int value = len;
+		boolean hasSep = false;
+		boolean precedingBackslash = false;
+		while (keyLen < len) {
+			char c = charAt(keyLen);
+			if ((c == '=' || c == ':') && !precedingBackslash) {
+				value = keyLen + 1;
+				hasSep = true;
+				break;
+			} else if ((c == ' ' || c == '\t' || c == '\f') && !precedingBackslash) {
+				value = keyLen + 1;
+				break;
+			}
+			precedingBackslash = c == '\\' ? !precedingBackslash : false;
+			keyLen++;
+		}
+		while (value < len) {
+			char c = charAt(value);
+			if (c != ' ' && c != '\t' && c != '\f') {
+				if (!hasSep && (c == '=' || c == ':')) {
+					hasSep = true;
+				} else {
+					break;
+				}
+			}
+			value++;
+		}
+		keyLength = keyLen;
+		valueStart = value;
+	}
+
+	/**
+	 * @return 解码后的key
+	 */
+	String key() {
+		return convert(this, 0, keyLength);
+	}
+
+	/**
+	 * @return 解码后的value
+	 */
+	String value() {
+		return convert(this, valueStart, len);
+	}
+
+	/**
+	 * @return value在逻辑行中的起始位置
+	 */
+	int getValueStart() {
+		return valueStart;
+	}
+
+	/**
+	 * @return 没有续行时逻辑行在输入中的起始位置
+	 */
+	int getStart() {
+		return start;
+	}
+
+	boolean isJoined() {
+		return joined;
+	}
+
+	boolean hasBackslash() {
+		return backslash;
+	}
+
+	/**
+	 * @return 逻辑行在输入中的起始位置
+	 */
+	int getRawStart() {
+		return rawStart;
+	}
+
+	/**
+	 * @return 逻辑行在输入中的结束位置, 即行尾换行符的位置
+	 */
+	int getRawEnd() {
+		return rawEnd;
+	}
+
+	@Override
+	public int length() {
+		return len;
+	}
+
+	@Override
+	public char charAt(int index) {
+		return joined ? buf[index] : text.charAt(start + index);
+	}
+
+	@Override
+	public CharSequence subSequence(int from, int to) {
+		return joined ? new String(buf, from, to - from) : text.subSequence(start + from, start + to);
+	}
+
+	/**
+	 * 检查 \\uxxxx 的格式, 这样不合法的文件在加载时就报错
+	 *
+	 * @return 是否有转义
+	 */
+	static boolean validate(CharSequence in, int off, int end) {
+		boolean escaped = false;
+		while (off < end) {
+			if (in.charAt(off++) != '\\') {
+				continue;
+			}
+			escaped = true;
+			if (in.charAt(off++) == 'u') {
+				if (off > end - 4) {
+					throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+				}
+				for (int i = 0; i < 4; i++) {
+					if (hex(in.charAt(off++)) < 0) {
+						throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+					}
+				}
+			}
+		}
+		return escaped;
+	}
+
+	/**
+	 * 解码转义, 和Properties.loadConvert相同
+	 */
+	static String convert(CharSequence in, int off, int end) {
+		int start = off;
+		while (off < end && in.charAt(off) != '\\') {
+			off++;
+		}
+		if (off == end) {
+			return in.subSequence(start, end).toString();
+		}
+		StringBuilder out = new StringBuilder(end - start);
+		out.append(in, start, off);
+		while (off < end) {
+			char c = in.charAt(off++);
+			if (c != '\\') {
+				out.append(c);
+				continue;
+			}
+			// 行尾单独的反斜杠已经被LineReader去掉
+			c = in.charAt(off++);
+			if (c == 'u') {
+				if (off > end - 4) {
+					throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+				}
+				int value = 0;
+				for (int i = 0; i < 4; i++) {
+					int digit = hex(in.charAt(off++));
+					if (digit < 0) {
+						throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+					}
+					value = value << 4 | digit;
+				}
+				out.append((char) value);
+			} else if (c == 't') {
+				out.append('\t');
+			} else if (c == 'r') {
+				out.append('\r');
+			} else if (c == 'n') {
+				out.append('\n');
+			} else if (c == 'f') {
+				out.append('\f');
+			} else {
+				out.append(c);
+			}
+		}
+		return out.toString();
+	}
+
+	private static int hex(char c) {
+		if (c >= '0' && c <= '9') {
+			return c - '0';
+		}
+		if (c >= 'a' && c <= 'f') {
+			return c - 'a' + 10;
+		}
+		if (c >= 'A' && c <= 'F') {
+			return c - 'A' + 10;
+		}
+		return -1;
+	}
+
+}
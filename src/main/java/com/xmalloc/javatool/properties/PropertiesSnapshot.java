@@ -0,0 +1,344 @@
+package com.xmalloc.javatool.properties;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 配置文件编译后的二进制快照, 保存在配置文件旁边, 文件名加上 {@link #SUFFIX}.
+ *
+ * 快照中key按字典序排列, 启动时映射后直接二分查找, 不需要解析文本. 打开时先比较配置文件的大小和修改时间,
+ * 不同时再比较内容的CRC32, 配置文件有变化时重新编译快照. 快照写入临时文件后重命名覆盖, 权限和配置文件相同,
+ * 不能写入时只在内存中使用.
+ *
+ * 快照格式, 按大端序:
+ * <pre>
+ * int   魔数 "JTPS"
+ * int   版本
+ * long  配置文件的大小
+ * long  配置文件的修改时间, 毫秒
+ * int   配置文件内容的CRC32
+ * int   key的个数n
+ * int   字符表的长度m
+ * int[4n] 按key排序的索引: key的起始位置, key的长度, value的起始位置, value的长度
+ * char[m] UTF-16字符表
+ * </pre>
+ */
+public final class PropertiesSnapshot extends AbstractMap<String, String> {
+
+	private static Logger LOG = LoggerFactory.getLogger(PropertiesSnapshot.class);
+
+	/** 快照文件名的后缀 */
+	public static final String SUFFIX = ".snapshot";
+
+	private static final int MAGIC = 0x4A545053;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 36;
+	private static final int ENTRY_SIZE = 16;
+
+	private final ByteBuffer index;
+	private final CharBuffer chars;
+	private final int size;
+
+	private PropertiesSnapshot(ByteBuffer buffer) {
+		int count = buffer.getInt(28);
+		ByteBuffer view = buffer.duplicate();
+		view.position(HEADER_SIZE).limit(HEADER_SIZE + count * ENTRY_SIZE);
+		this.index = view.slice();
+		view.limit(buffer.capacity()).position(HEADER_SIZE + count * ENTRY_SIZE);
+		this.chars = view.slice().asCharBuffer();
+		this.size = count;
+	}
+
+	/**
+	 * 打开配置文件的快照, 没有快照或者已经过期时重新编译
+	 *
+	 * @param source 配置文件
+	 * @return
+	 * @throws IOException 配置文件不存在或读取失败
+	 * @throws IllegalArgumentException 有不合法的 \\uxxxx 转义, 或者快照超过2G
+	 */
+	public static PropertiesSnapshot open(Path source) throws IOException {
+		Path path = source.toAbsolutePath().normalize();
+		Path file = snapshotPath(path);
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		long modified = attributes.lastModifiedTime().toMillis();
+		ByteBuffer mapped = map(file);
+		if (mapped != null && mapped.getLong(8) == attributes.size()) {
+			if (mapped.getLong(16) == modified) {
+				return new PropertiesSnapshot(mapped);
+			}
+			// 修改时间变了, 例如重新部署时复制的文件, 内容没有变化时只更新快照的修改时间
+			byte[] content = Files.readAllBytes(path);
+			if (mapped.getInt(24) == crc(content)) {
+				touch(path, file, mapped, modified);
+				return new PropertiesSnapshot(mapped);
+			}
+			return compile(path, file, attributes, content);
+		}
+		return compile(path, file, attributes, Files.readAllBytes(path));
+	}
+
+	/**
+	 * 快照文件的路径
+	 *
+	 * @param source 配置文件
+	 * @return
+	 */
+	public static Path snapshotPath(Path source) {
+		return source.resolveSibling(source.getFileName() + SUFFIX);
+	}
+
+	public String getProperty(String key) {
+		int i = find(key);
+		return i < 0 ? null : string(i, 8);
+	}
+
+	public String getProperty(String key, String defaultValue) {
+		String value = getProperty(key);
+		return value == null ? defaultValue : value;
+	}
+
+	@Override
+	public String get(Object key) {
+		return key instanceof String ? getProperty((String) key) : null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key instanceof String && find((String) key) >= 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * 复制成Properties
+	 *
+	 * @return
+	 */
+	public Properties toProperties() {
+		Properties props = new Properties();
+		for (int i = 0; i < size; i++) {
+			props.setProperty(string(i, 0), string(i, 8));
+		}
+		return props;
+	}
+
+	/**
+	 * 按key的字典序遍历
+	 */
+	@Override
+	public Set<Map.Entry<String, String>> entrySet() {
+		return new AbstractSet<Map.Entry<String, String>>() {
+			@Override
+			public Iterator<Map.Entry<String, String>> iterator() {
+				return new Iterator<Map.Entry<String, String>>() {
+					private int next;
+
+					@Override
+					public boolean hasNext() {
+						return next < size;
+					}
+
+					@Override
+					public Map.Entry<String, String> next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						int i = next++;
+						return new AbstractMap.SimpleImmutableEntry<String, String>(string(i, 0), string(i, 8));
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	/**
+	 * 二分查找, 直接和字符表比较, 不创建String
+	 */
+	private int find(String key) {
+		int low = 0;
+		int high = size - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = compare(mid, key);
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 和 {@link String#compareTo(String)} 相同的顺序
+	 */
+	private int compare(int i, String key) {
+		int offset = index.getInt(i * ENTRY_SIZE);
+		int length = index.getInt(i * ENTRY_SIZE + 4);
+		int n = Math.min(length, key.length());
+		for (int k = 0; k < n; k++) {
+			char c = chars.get(offset + k);
+			char d = key.charAt(k);
+			if (c != d) {
+				return c - d;
+			}
+		}
+		return length - key.length();
+	}
+
+	/**
+	 * @param field 0为key, 8为value
+	 */
+	private String string(int i, int field) {
+		int offset = index.getInt(i * ENTRY_SIZE + field);
+		int length = index.getInt(i * ENTRY_SIZE + field + 4);
+		char[] buf = new char[length];
+		CharBuffer view = chars.duplicate();
+		view.position(offset);
+		view.get(buf);
+		return new String(buf);
+	}
+
+	/**
+	 * 映射快照并检查格式
+	 *
+	 * @return 不存在或者格式不对时返回null
+	 */
+	private static ByteBuffer map(Path file) {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long length = channel.size();
+			if (length < HEADER_SIZE || length > Integer.MAX_VALUE) {
+				return null;
+			}
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+			return valid(buffer) ? buffer : null;
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			LOG.warn("读取配置文件快照错误。 filename: " + file, e);
+			return null;
+		}
+	}
+
+	/**
+	 * 检查魔数, 版本和索引的范围, 避免使用损坏或截断的快照
+	 */
+	private static boolean valid(ByteBuffer buffer) {
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			return false;
+		}
+		long count = buffer.getInt(28);
+		long length = buffer.getInt(32);
+		if (count < 0 || length < 0 || HEADER_SIZE + count * ENTRY_SIZE + length * 2 != buffer.capacity()) {
+			return false;
+		}
+		for (int i = 0; i < count * 2; i++) {
+			long offset = buffer.getInt(HEADER_SIZE + i * 8);
+			long size = buffer.getInt(HEADER_SIZE + i * 8 + 4);
+			if (offset < 0 || size < 0 || offset + size > length) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 复制快照并更新修改时间, 失败时下次启动再比较CRC
+	 */
+	private static void touch(Path source, Path file, ByteBuffer mapped, long modified) {
+		byte[] copy = new byte[mapped.capacity()];
+		mapped.duplicate().get(copy);
+		ByteBuffer.wrap(copy).putLong(16, modified);
+		try {
+			PropertiesWriter.replace(file, copy, source);
+		} catch (IOException e) {
+			LOG.warn("写入配置文件快照错误。 filename: " + file, e);
+		}
+	}
+
+	/**
+	 * 解析配置文件并写入快照
+	 */
+	private static PropertiesSnapshot compile(Path source, Path file, BasicFileAttributes attributes, byte[] content) {
+		MappedProperties properties = MappedProperties.parse(ByteBuffer.wrap(content));
+		ByteBuffer buffer = build(properties, attributes.size(), attributes.lastModifiedTime().toMillis(), crc(content));
+		try {
+			PropertiesWriter.replace(file, buffer.array(), source);
+		} catch (IOException e) {
+			LOG.warn("写入配置文件快照错误, 只在内存中使用。 filename: " + file, e);
+			return new PropertiesSnapshot(buffer);
+		}
+		ByteBuffer mapped = map(file);
+		return new PropertiesSnapshot(mapped != null ? mapped : buffer);
+	}
+
+	/**
+	 * 按key排序后生成快照的内容
+	 */
+	static ByteBuffer build(Map<String, String> properties, long size, long modified, int crc) {
+		String[] keys = properties.keySet().toArray(new String[properties.size()]);
+		Arrays.sort(keys);
+		String[] values = new String[keys.length];
+		long length = 0;
+		for (int i = 0; i < keys.length; i++) {
+			values[i] = properties.get(keys[i]);
+			length += keys[i].length() + values[i].length();
+		}
+		long total = HEADER_SIZE + (long) keys.length * ENTRY_SIZE + length * 2;
+		if (total > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("snapshot too large: " + total);
+		}
+		ByteBuffer buffer = ByteBuffer.allocate((int) total);
+		buffer.putInt(MAGIC).putInt(VERSION).putLong(size).putLong(modified).putInt(crc);
+		buffer.putInt(keys.length).putInt((int) length);
+		int offset = 0;
+		for (int i = 0; i < keys.length; i++) {
+			buffer.putInt(offset).putInt(keys[i].length());
+			offset += keys[i].length();
+			buffer.putInt(offset).putInt(values[i].length());
+			offset += values[i].length();
+		}
+		CharBuffer table = buffer.slice().asCharBuffer();
+		for (int i = 0; i < keys.length; i++) {
+			table.put(keys[i]).put(values[i]);
+		}
+		buffer.clear();
+		return buffer;
+	}
+
+	private static int crc(byte[] content) {
+		CRC32 crc = new CRC32();
+		crc.update(content, 0, content.length);
+		return (int) crc.getValue();
+	}
+}
@@ -1,14 +1,15 @@
 package com.xmalloc.javatool.properties;
 
-import java.io.BufferedInputStream;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Properties;
 
+import com.xmalloc.javatool.java.ClassUtil;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,49 +24,73 @@ public class PropertiesUtil {
 	private static Logger LOG = LoggerFactory.getLogger(PropertiesUtil.class);
 
 	/**
-	 * 根据key读取value
+	 * 根据key读取value, 文件解析后缓存, 修改后自动重新解析
 	 * 
 	 * @param filePath
 	 * @param key
 	 * @return
+	 * @see PropertiesCache
 	 */
 	public static String readValue(String filePath, String key) {
-		Properties props = readProperties(filePath);
-		return props.getProperty(key);
+		return PropertiesCache.getDefault().getValue(filePath, key);
 	}
 
 	/**
 	 * 读取properties的全部信息
 	 * 
 	 * @param filePath
+	 * @return 缓存快照的副本, 修改不影响缓存
 	 */
 	public static Properties readProperties(String filePath) {
 		Properties props = new Properties();
-		InputStream in;
+		props.putAll(PropertiesCache.getDefault().get(filePath));
+		return props;
+	}
+
+	/**
+	 * 内存映射并解析很大的配置文件, 例如有几十万个key的开关或多语言文件
+	 * 
+	 * @param filePath
+	 * @return 只读的map, 读取失败时为空
+	 * @see MappedProperties
+	 */
+	public static Map<String, String> readMappedProperties(String filePath) {
 		try {
-			in = new BufferedInputStream(new FileInputStream(filePath));
-			props.load(in);
-		} catch (FileNotFoundException e) {
+			return MappedProperties.load(Paths.get(filePath));
+		} catch (IOException e) {
 			LOG.error("读取配置文件错误。 filename: " + filePath, e);
+			return Collections.emptyMap();
+		}
+	}
+
+	/**
+	 * 通过配置文件旁边的二进制快照读取, 快照过期时重新编译, 适合很少修改的大文件
+	 * 
+	 * @param filePath
+	 * @return 只读的map, 读取失败时为空
+	 * @see PropertiesSnapshot
+	 */
+	public static Map<String, String> readSnapshotProperties(String filePath) {
+		try {
+			return PropertiesSnapshot.open(Paths.get(filePath));
 		} catch (IOException e) {
 			LOG.error("读取配置文件错误。 filename: " + filePath, e);
+			return Collections.emptyMap();
 		}
-		return props;
 	}
 
 	/**
-	 * 读取classpath下的配置文件
+	 * 读取classpath下的配置文件, 解析结果按ClassLoader缓存
 	 * 
 	 * @param filename
-	 * @return
+	 * @return 缓存的副本, 文件不存在时为空
+	 * @see ClassUtil#getProperties(ClassLoader, String)
 	 */
 	public static Properties loadClasspathProperties(String filename) {
 		Properties props = new Properties();
-		ClassLoader loader = PropertiesUtil.class.getClassLoader();
-		try {
-			props.load(loader.getResourceAsStream(filename));
-		} catch (IOException e) {
-			LOG.error("读取classpath配置文件错误。 filename: " + filename, e);
+		Map<String, String> cached = ClassUtil.getProperties(PropertiesUtil.class.getClassLoader(), filename);
+		if (cached != null) {
+			props.putAll(cached);
 		}
 		return props;
 	}
@@ -75,39 +100,50 @@ public class PropertiesUtil {
 	 * 
 	 * @param filePath
 	 * @param parameterName
-	 * @param parameterValue
+	 * @param parameterValue 不能为null, 删除key使用 {@link #writeProperties(String, Map)}
+	 * @see #writeProperties(String, Map)
 	 */
 	public static void writeProperties(String filePath, String parameterName, String parameterValue) {
-		Properties prop = new Properties();
+		if (parameterName == null || parameterValue == null) {
+			throw new NullPointerException(parameterName == null ? "parameterName" : "parameterValue");
+		}
+		writeProperties(filePath, Collections.singletonMap(parameterName, parameterValue));
+	}
+
+	/**
+	 * 批量修改properties, 保留注释和key的顺序, 新的key追加到末尾.
+	 * 写入同目录下的临时文件并fsync后原子地重命名覆盖原文件, 同一个文件的写入串行执行.
+	 * 写入成功后立即重新解析缓存中的文件, 通知 {@link PropertiesCache.ReloadListener}
+	 * 
+	 * @param filePath 已经存在的配置文件
+	 * @param changes 要修改的key和value, value为null时删除这个key
+	 * @return 写入成功返回true, 失败时原文件不变
+	 */
+	public static boolean writeProperties(String filePath, Map<String, String> changes) {
+		Path file = Paths.get(filePath);
+		if (!Files.isRegularFile(file)) {
+			LOG.error("写入配置文件错误, 文件不存在。 filename: " + filePath);
+			return false;
+		}
 		try {
-			InputStream fis = new FileInputStream(filePath);
-			prop.load(fis);
-			OutputStream fos = new FileOutputStream(filePath);
-			prop.setProperty(parameterName, parameterValue);
-			prop.store(fos, "Update '" + parameterName + "' value");
-		} catch (FileNotFoundException e) {
-			LOG.error("写入配置文件错误。 filename: " + filePath, e);
+			PropertiesWriter.write(file, changes);
 		} catch (IOException e) {
-			LOG.error("写入配置文件错误. filePath: {}, parameterName: {}, parameterValue: {}", new Object[] { filePath,
-					parameterName, parameterValue });
+			LOG.error("写入配置文件错误. filePath: {}, changes: {}", filePath, changes);
 			LOG.error(e.getMessage(), e);
+			return false;
 		}
+		PropertiesCache.getDefault().reload(file);
+		return true;
 	}
 
 	/**
 	 * 取得classpath
 	 * 
 	 * @return
+	 * @see ClassUtil#getClassPath()
 	 */
 	public static String getClassPath() {
-		String classPath = null;
-		try {
-			classPath = PropertiesUtil.class.getResource("/").getPath().replaceAll("%20", " ");
-		} catch (Exception e) {
-			LOG.info("Get /WEB-INF/class path failed, try to use [user.dir] path.");
-			classPath = System.getProperty("user.dir");
-		}
-		return classPath;
+		return ClassUtil.getClassPath();
 	}
 
 }
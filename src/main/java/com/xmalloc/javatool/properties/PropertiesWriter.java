@@ -0,0 +1,263 @@
+package com.xmalloc.javatool.properties;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 批量修改配置文件.
+ *
+ * 只替换被修改的key所在的逻辑行, 注释, 空行和其它key的顺序保持不变, 新的key追加到文件末尾.
+ * 新内容一次写入同目录下的临时文件, fsync后原子地重命名覆盖原文件, 所以读取者只会看到修改前或修改后的完整文件.
+ * 同一个文件的写入串行执行, 锁按路径的hash分段, 不随文件的个数增长.
+ */
+final class PropertiesWriter {
+
+	private static final Object[] LOCKS = new Object[64];
+
+	static {
+		for (int i = 0; i < LOCKS.length; i++) {
+			LOCKS[i] = new Object();
+		}
+	}
+
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+	private PropertiesWriter() {
+	}
+
+	/**
+	 * @param file 已经存在的配置文件
+	 * @param changes 要修改的key和value, value为null时删除这个key
+	 * @throws IOException
+	 */
+	static void write(Path file, Map<String, String> changes) throws IOException {
+		// 符号链接时替换链接指向的文件
+		Path key = file.toRealPath();
+		synchronized (LOCKS[(key.hashCode() & 0x7fffffff) % LOCKS.length]) {
+			byte[] content = Files.readAllBytes(key);
+			byte[] updated = update(new String(content, StandardCharsets.ISO_8859_1), changes)
+					.getBytes(StandardCharsets.ISO_8859_1);
+			replace(key, updated);
+		}
+	}
+
+	/**
+	 * 在文本中替换或追加修改的key
+	 */
+	static String update(String text, Map<String, String> changes) {
+		String lineSeparator = lineSeparator(text);
+		Map<String, String> pending = new LinkedHashMap<String, String>(changes);
+		StringBuilder out = new StringBuilder(text.length() + changes.size() * 32);
+		PropertiesLineReader reader = new PropertiesLineReader(text);
+		int copied = 0;
+		// 最后一个没有修改的逻辑行
+		int lastStart = -1;
+		int lastEnd = -1;
+		String lastKey = null;
+		while (reader.readLine() >= 0) {
+			String name = reader.key();
+			if (!changes.containsKey(name)) {
+				lastStart = reader.getRawStart();
+				lastEnd = reader.getRawEnd();
+				lastKey = name;
+				continue;
+			}
+			lastEnd = -1;
+			String value = changes.get(name);
+			out.append(text, copied, reader.getRawStart());
+			copied = reader.getRawEnd();
+			if (value != null) {
+				appendEntry(out, name, value);
+			} else {
+				// 删除时连同行尾的换行符
+				if (copied < text.length() && text.charAt(copied) == '\r') {
+					copied++;
+				}
+				if (copied < text.length() && text.charAt(copied) == '\n') {
+					copied++;
+				}
+			}
+			pending.remove(name);
+		}
+		int continuation = continuationAtEnd(text);
+		if (continuation >= 0 && lastEnd >= continuation && pending.values().stream().anyMatch(Objects::nonNull)) {
+			// 文件末尾的续行符会把追加的行接上, 按解析结果重写最后一行
+			reader = new PropertiesLineReader(text.substring(lastStart));
+			reader.readLine();
+			out.append(text, copied, lastStart);
+			appendEntry(out, lastKey, reader.value());
+			copied = text.length();
+		}
+		out.append(text, copied, text.length());
+		for (Map.Entry<String, String> entry : pending.entrySet()) {
+			if (entry.getValue() == null) {
+				continue;
+			}
+			int length = out.length();
+			if (length > 0 && out.charAt(length - 1) != '\n' && out.charAt(length - 1) != '\r') {
+				out.append(lineSeparator);
+			}
+			appendEntry(out, entry.getKey(), entry.getValue());
+			out.append(lineSeparator);
+		}
+		return out.toString();
+	}
+
+	/**
+	 * 写入临时文件, fsync后重命名覆盖, 保留原文件的权限
+	 *
+	 * @param file 绝对路径, 可以不存在
+	 * @param content
+	 * @throws IOException
+	 */
+	static void replace(Path file, byte[] content) throws IOException {
+		replace(file, content, file);
+	}
+
+	/**
+	 * 写入临时文件, fsync后重命名覆盖, 再fsync所在的目录使重命名落盘
+	 *
+	 * @param file 绝对路径, 可以不存在
+	 * @param content
+	 * @param permissions 从这个文件复制权限, 例如配置文件的快照使用配置文件的权限; 不存在时临时文件只有所有者可以读写
+	 * @throws IOException
+	 */
+	static void replace(Path file, byte[] content, Path permissions) throws IOException {
+		Path dir = file.getParent();
+		Path temp = Files.createTempFile(dir, "." + file.getFileName(), ".tmp");
+		try {
+			if (Files.exists(permissions)) {
+				try {
+					Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(permissions));
+				} catch (UnsupportedOperationException e) {
+					// 不是POSIX文件系统
+				}
+			}
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				ByteBuffer buffer = ByteBuffer.wrap(content);
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				channel.force(true);
+			}
+			try {
+				Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+			forceDirectory(dir);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * 有些平台(例如Windows)不能打开或fsync目录, 这时只能依赖文件系统自己的顺序
+	 */
+	private static void forceDirectory(Path dir) {
+		try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// 文件已经替换, 不作为写入失败
+		}
+	}
+
+	/**
+	 * 文件中第一个换行符, 没有时使用系统的换行符
+	 */
+	private static String lineSeparator(String text) {
+		int i = text.indexOf('\n');
+		if (i > 0 && text.charAt(i - 1) == '\r') {
+			return "\r\n";
+		}
+		if (i >= 0) {
+			return "\n";
+		}
+		return text.indexOf('\r') >= 0 ? "\r" : System.getProperty("line.separator");
+	}
+
+	/**
+	 * 文件是否以续行符结尾, 即奇数个反斜杠后面最多一个换行符
+	 *
+	 * @return 最后一个反斜杠之后的位置, 不是续行符时返回-1
+	 */
+	private static int continuationAtEnd(CharSequence text) {
+		int end = text.length();
+		if (end > 0 && text.charAt(end - 1) == '\n') {
+			end--;
+		}
+		if (end > 0 && text.charAt(end - 1) == '\r') {
+			end--;
+		}
+		int i = end;
+		while (i > 0 && text.charAt(i - 1) == '\\') {
+			i--;
+		}
+		return ((end - i) & 1) != 0 ? end : -1;
+	}
+
+	private static void appendEntry(StringBuilder out, String key, String value) {
+		escape(out, key, true);
+		out.append('=');
+		escape(out, value, false);
+	}
+
+	/**
+	 * 转义规则和Properties.store相同, 非ISO-8859-1可打印字符写成 \\uXXXX
+	 */
+	private static void escape(StringBuilder out, String s, boolean escapeSpace) {
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c > 61 && c < 127) {
+				if (c == '\\') {
+					out.append('\\');
+				}
+				out.append(c);
+				continue;
+			}
+			switch (c) {
+			case ' ':
+				if (i == 0 || escapeSpace) {
+					out.append('\\');
+				}
+				out.append(' ');
+				break;
+			case '\t':
+				out.append("\\t");
+				break;
+			case '\n':
+				out.append("\\n");
+				break;
+			case '\r':
+				out.append("\\r");
+				break;
+			case '\f':
+				out.append("\\f");
+				break;
+			case '=':
+			case ':':
+			case '#':
+			case '!':
+				out.append('\\').append(c);
+				break;
+			default:
+				if (c < 0x20 || c > 0x7e) {
+					out.append('\\').append('u').append(HEX[c >> 12]).append(HEX[(c >> 8) & 0xf])
+							.append(HEX[(c >> 4) & 0xf]).append(HEX[c & 0xf]);
+				} else {
+					out.append(c);
+				}
+			}
+		}
+	}
+}
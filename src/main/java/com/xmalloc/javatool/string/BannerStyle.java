@@ -0,0 +1,262 @@
+package com.xmalloc.javatool.string;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 横幅的样式: 行宽, 填充符和换行符. 不可变, 可以在多个线程中共享.
+ *
+ * 创建时预先生成一整行填充符和空格, 以及开头, 结尾的横幅, 输出时只从中截取需要的长度.
+ * 内容的宽度按终端中的列数计算, 中文等宽字符占两列, 见 {@link DisplayWidth}.
+ */
+public final class BannerStyle {
+
+	private final int width;
+	private final char fill;
+	private final String lineSeparator;
+	/** width个填充符 */
+	private final String fillLine;
+	private final String headLine;
+	private final String footLine;
+
+	/**
+	 * @param width 行宽
+	 * @param fill 两端的填充符
+	 * @param lineSeparator 换行符
+	 */
+	public BannerStyle(int width, char fill, String lineSeparator) {
+		this(width, fill, lineSeparator, null, null);
+	}
+
+	/**
+	 * @param width 行宽
+	 * @param fill 两端的填充符
+	 * @param lineSeparator 换行符
+	 * @param headLine 开头的横幅, null时按行宽和填充符生成
+	 * @param footLine 结尾的横幅, null时按行宽和填充符生成
+	 */
+	public BannerStyle(int width, char fill, String lineSeparator, String headLine, String footLine) {
+		if (lineSeparator == null) {
+			throw new NullPointerException("lineSeparator");
+		}
+		this.width = width;
+		this.fill = fill;
+		this.lineSeparator = lineSeparator;
+		int centerCount = width > 2 ? width - 2 : 0;
+		char[] chars = new char[Math.max(width, 0)];
+		Arrays.fill(chars, fill);
+		this.fillLine = new String(chars);
+		String line = fillLine.substring(0, centerCount);
+		Arrays.fill(chars, ' ');
+		String blank = new String(chars, 0, centerCount);
+
+		StringBuilder head = new StringBuilder(2 * (centerCount + 2 + lineSeparator.length()));
+		head.append(fill).append(line).append(fill).append(lineSeparator);
+		head.append(fill).append(blank).append(fill).append(lineSeparator);
+		this.headLine = headLine != null ? headLine : head.toString();
+		StringBuilder foot = new StringBuilder(head.length());
+		foot.append(lineSeparator).append(fill).append(blank).append(fill);
+		foot.append(lineSeparator).append(fill).append(line).append(fill);
+		this.footLine = footLine != null ? footLine : foot.toString();
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public char getFill() {
+		return fill;
+	}
+
+	public String getLineSeparator() {
+		return lineSeparator;
+	}
+
+	/**
+	 * @return 开头的两行: 一行填充符和一行两端是填充符的空白, 都以换行符结尾
+	 */
+	public String getHeadLine() {
+		return headLine;
+	}
+
+	/**
+	 * @return 结尾的两行, 以换行符开始
+	 */
+	public String getFootLine() {
+		return footLine;
+	}
+
+	/**
+	 * 返回组合的内容
+	 *
+	 * @param content
+	 * @return 换行符, 开头的横幅和填充后的内容
+	 */
+	public String startInfo(String content) {
+		StringBuilder sb = new StringBuilder(lineSeparator.length() + headLine.length() + width + content.length());
+		appendStart(sb, content);
+		return sb.toString();
+	}
+
+	public String endInfo(String content) {
+		StringBuilder sb = new StringBuilder(lineSeparator.length() + footLine.length() + width + content.length());
+		appendEnd(sb, content);
+		return sb.toString();
+	}
+
+	/**
+	 * 两端填充字符, 内容比行宽长时原样返回
+	 *
+	 * @param content
+	 * @return
+	 */
+	public String fillContent(String content) {
+		int num = padding(content);
+		if (num == 0) {
+			return content;
+		}
+		StringBuilder sb = new StringBuilder(content.length() + 2 * num);
+		appendFilled(sb, content, num);
+		return sb.toString();
+	}
+
+	/**
+	 * 两端填充字符
+	 *
+	 * @param content
+	 * @param wrap 为true时比行宽长的内容拆成多行, 每行两端至少留一个填充符, 行之间用换行符分隔;
+	 *        为false时和 {@link #fillContent(String)} 相同
+	 * @return
+	 */
+	public String fillContent(String content, boolean wrap) {
+		if (!wrap || DisplayWidth.of(content) <= width) {
+			return fillContent(content);
+		}
+		StringBuilder sb = new StringBuilder(content.length() * 2 + width * 2);
+		appendWrapped(sb, content);
+		return sb.toString();
+	}
+
+	/**
+	 * 写入开头的横幅
+	 *
+	 * @param out 例如日志的缓冲区
+	 * @param content
+	 * @throws IOException
+	 */
+	public void startInfo(Appendable out, String content) throws IOException {
+		out.append(lineSeparator).append(headLine);
+		appendFilled(out, content, padding(content));
+	}
+
+	/**
+	 * 写入结尾的横幅
+	 *
+	 * @param out 例如日志的缓冲区
+	 * @param content
+	 * @throws IOException
+	 */
+	public void endInfo(Appendable out, String content) throws IOException {
+		out.append(lineSeparator);
+		appendFilled(out, content, padding(content));
+		out.append(footLine);
+	}
+
+	/**
+	 * 写入两端填充后的内容
+	 *
+	 * @param out
+	 * @param content
+	 * @throws IOException
+	 */
+	public void fillContent(Appendable out, String content) throws IOException {
+		appendFilled(out, content, padding(content));
+	}
+
+	/**
+	 * 写入两端填充后的内容
+	 *
+	 * @param out
+	 * @param content
+	 * @param wrap 为true时比行宽长的内容拆成多行
+	 * @throws IOException
+	 * @see #fillContent(String, boolean)
+	 */
+	public void fillContent(Appendable out, String content, boolean wrap) throws IOException {
+		if (!wrap || DisplayWidth.of(content) <= width) {
+			appendFilled(out, content, padding(content));
+		} else {
+			appendWrapped(out, content);
+		}
+	}
+
+	private void appendStart(StringBuilder sb, String content) {
+		sb.append(lineSeparator).append(headLine);
+		appendFilled(sb, content, padding(content));
+	}
+
+	private void appendEnd(StringBuilder sb, String content) {
+		sb.append(lineSeparator);
+		appendFilled(sb, content, padding(content));
+		sb.append(footLine);
+	}
+
+	/**
+	 * 每一端的填充符个数
+	 */
+	private int padding(CharSequence content) {
+		int contentWidth = DisplayWidth.of(content);
+		return contentWidth > width ? 0 : (width - contentWidth) / 2;
+	}
+
+	/**
+	 * 按列数拆成多行, 每行最多width - 2列
+	 */
+	private void appendWrapped(Appendable out, String content) throws IOException {
+		int lineWidth = Math.max(width - 2, 1);
+		int length = content.length();
+		int from = 0;
+		while (from < length) {
+			if (from > 0) {
+				out.append(lineSeparator);
+			}
+			int to = DisplayWidth.fit(content, from, lineWidth);
+			int num = (width - DisplayWidth.of(content, from, to)) / 2;
+			out.append(fillLine, 0, Math.max(num, 0)).append(content, from, to).append(fillLine, 0, Math.max(num, 0));
+			from = to;
+		}
+	}
+
+	private void appendWrapped(StringBuilder sb, String content) {
+		try {
+			appendWrapped((Appendable) sb, content);
+		} catch (IOException e) {
+			// StringBuilder不会抛出IOException
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void appendFilled(StringBuilder sb, String content, int num) {
+		sb.append(fillLine, 0, num).append(content).append(fillLine, 0, num);
+	}
+
+	private void appendFilled(Appendable out, String content, int num) throws IOException {
+		out.append(fillLine, 0, num).append(content).append(fillLine, 0, num);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof BannerStyle)) {
+			return false;
+		}
+		BannerStyle other = (BannerStyle) obj;
+		return width == other.width && fill == other.fill && lineSeparator.equals(other.lineSeparator)
+				&& headLine.equals(other.headLine) && footLine.equals(other.footLine);
+	}
+
+	@Override
+	public int hashCode() {
+		return (((width * 31 + fill) * 31 + lineSeparator.hashCode()) * 31 + headLine.hashCode()) * 31
+				+ footLine.hashCode();
+	}
+}
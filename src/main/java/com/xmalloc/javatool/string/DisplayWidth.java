@@ -0,0 +1,146 @@
+package com.xmalloc.javatool.string;
+
+/**
+ * 计算文本在等宽终端中占的列数.
+ *
+ * 东亚宽字符和全角字符(Unicode East Asian Width 为 W 或 F, 包括中日韩文字, 全角标点和大部分emoji)占两列,
+ * 组合字符, 格式字符和控制字符占零列, 其它字符占一列. 宽字符的范围保存在一张按起点排序的表中, 用二分查找,
+ * 计算过程不创建任何对象.
+ */
+public final class DisplayWidth {
+
+	/** 宽字符的范围, 每两个数是一个闭区间 [start, end], 按起点排序 */
+	private static final int[] WIDE = {
+			0x1100, 0x115F, 0x231A, 0x231B, 0x2329, 0x232A, 0x23E9, 0x23EC, 0x23F0, 0x23F0, 0x23F3, 0x23F3,
+			0x25FD, 0x25FE, 0x2614, 0x2615, 0x2648, 0x2653, 0x267F, 0x267F, 0x2693, 0x2693, 0x26A1, 0x26A1,
+			0x26AA, 0x26AB, 0x26BD, 0x26BE, 0x26C4, 0x26C5, 0x26CE, 0x26CE, 0x26D4, 0x26D4, 0x26EA, 0x26EA,
+			0x26F2, 0x26F3, 0x26F5, 0x26F5, 0x26FA, 0x26FA, 0x26FD, 0x26FD, 0x2705, 0x2705, 0x270A, 0x270B,
+			0x2728, 0x2728, 0x274C, 0x274C, 0x274E, 0x274E, 0x2753, 0x2755, 0x2757, 0x2757, 0x2795, 0x2797,
+			0x27B0, 0x27B0, 0x27BF, 0x27BF, 0x2B1B, 0x2B1C, 0x2B50, 0x2B50, 0x2B55, 0x2B55, 0x2E80, 0x2E99,
+			0x2E9B, 0x2EF3, 0x2F00, 0x2FD5, 0x2FF0, 0x2FFB, 0x3000, 0x303E, 0x3041, 0x3096, 0x3099, 0x30FF,
+			0x3105, 0x312F, 0x3131, 0x318E, 0x3190, 0x31E3, 0x31F0, 0x321E, 0x3220, 0x3247, 0x3250, 0x4DBF,
+			0x4E00, 0xA48C, 0xA490, 0xA4C6, 0xA960, 0xA97C, 0xAC00, 0xD7A3, 0xF900, 0xFAFF, 0xFE10, 0xFE19,
+			0xFE30, 0xFE52, 0xFE54, 0xFE66, 0xFE68, 0xFE6B, 0xFF01, 0xFF60, 0xFFE0, 0xFFE6, 0x16FE0, 0x16FE4,
+			0x16FF0, 0x16FF1, 0x17000, 0x187F7, 0x18800, 0x18CD5, 0x18D00, 0x18D08, 0x1AFF0, 0x1AFF3,
+			0x1AFF5, 0x1AFFB, 0x1AFFD, 0x1AFFE, 0x1B000, 0x1B122, 0x1B150, 0x1B152, 0x1B164, 0x1B167,
+			0x1B170, 0x1B2FB, 0x1F004, 0x1F004, 0x1F0CF, 0x1F0CF, 0x1F18E, 0x1F18E, 0x1F191, 0x1F19A,
+			0x1F200, 0x1F202, 0x1F210, 0x1F23B, 0x1F240, 0x1F248, 0x1F250, 0x1F251, 0x1F260, 0x1F265,
+			0x1F300, 0x1F320, 0x1F32D, 0x1F335, 0x1F337, 0x1F37C, 0x1F37E, 0x1F393, 0x1F3A0, 0x1F3CA,
+			0x1F3CF, 0x1F3D3, 0x1F3E0, 0x1F3F0, 0x1F3F4, 0x1F3F4, 0x1F3F8, 0x1F43E, 0x1F440, 0x1F440,
+			0x1F442, 0x1F4FC, 0x1F4FF, 0x1F53D, 0x1F54B, 0x1F54E, 0x1F550, 0x1F567, 0x1F57A, 0x1F57A,
+			0x1F595, 0x1F596, 0x1F5A4, 0x1F5A4, 0x1F5FB, 0x1F64F, 0x1F680, 0x1F6C5, 0x1F6CC, 0x1F6CC,
+			0x1F6D0, 0x1F6D2, 0x1F6D5, 0x1F6D7, 0x1F6DC, 0x1F6DF, 0x1F6EB, 0x1F6EC, 0x1F6F4, 0x1F6FC,
+			0x1F7E0, 0x1F7EB, 0x1F7F0, 0x1F7F0, 0x1F90C, 0x1F93A, 0x1F93C, 0x1F945, 0x1F947, 0x1F9FF,
+			0x1FA70, 0x1FA7C, 0x1FA80, 0x1FA88, 0x1FA90, 0x1FABD, 0x1FABF, 0x1FAC5, 0x1FACE, 0x1FADB,
+			0x1FAE0, 0x1FAE8, 0x1FAF0, 0x1FAF8, 0x20000, 0x2FFFD, 0x30000, 0x3FFFD };
+
+	/** 小于这个值的可打印字符都占一列 */
+	private static final int NARROW_LIMIT = 0x300;
+
+	private DisplayWidth() {
+	}
+
+	/**
+	 * 一个字符占的列数
+	 *
+	 * @param codePoint
+	 * @return 0, 1或2
+	 */
+	public static int of(int codePoint) {
+		if (codePoint < NARROW_LIMIT) {
+			return codePoint < 0x20 || (codePoint >= 0x7f && codePoint < 0xa0) ? 0 : 1;
+		}
+		if (isWide(codePoint)) {
+			return 2;
+		}
+		switch (Character.getType(codePoint)) {
+		case Character.NON_SPACING_MARK:
+		case Character.ENCLOSING_MARK:
+		case Character.FORMAT:
+		case Character.CONTROL:
+			return 0;
+		default:
+			// 韩文字母的中声和终声和前面的初声组合成一个字
+			return codePoint >= 0x1160 && codePoint <= 0x11FF ? 0 : 1;
+		}
+	}
+
+	/**
+	 * 文本占的列数
+	 *
+	 * @param text
+	 * @return
+	 */
+	public static int of(CharSequence text) {
+		return of(text, 0, text.length());
+	}
+
+	/**
+	 * 文本 [from, to) 占的列数, 代理对按一个字符计算
+	 *
+	 * @param text
+	 * @param from
+	 * @param to
+	 * @return
+	 */
+	public static int of(CharSequence text, int from, int to) {
+		int width = 0;
+		int i = from;
+		while (i < to) {
+			char c = text.charAt(i++);
+			if (c >= 0x20 && c < 0x7f) {
+				width++;
+				continue;
+			}
+			int codePoint = c;
+			if (Character.isHighSurrogate(c) && i < to && Character.isLowSurrogate(text.charAt(i))) {
+				codePoint = Character.toCodePoint(c, text.charAt(i++));
+			}
+			width += of(codePoint);
+		}
+		return width;
+	}
+
+	/**
+	 * 从from开始, 不超过maxWidth列的最长一段的结束位置. 至少包含一个字符, 零宽的字符跟在前一个字符后面
+	 *
+	 * @param text
+	 * @param from
+	 * @param maxWidth
+	 * @return 结束位置(不含)
+	 */
+	public static int fit(CharSequence text, int from, int maxWidth) {
+		int to = text.length();
+		int width = 0;
+		int i = from;
+		while (i < to) {
+			int codePoint = Character.codePointAt(text, i);
+			int w = of(codePoint);
+			if (width + w > maxWidth && i > from) {
+				break;
+			}
+			width += w;
+			i += Character.charCount(codePoint);
+		}
+		return i;
+	}
+
+	private static boolean isWide(int codePoint) {
+		if (codePoint < WIDE[0] || codePoint > WIDE[WIDE.length - 1]) {
+			return false;
+		}
+		int low = 0;
+		int high = WIDE.length / 2 - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (codePoint < WIDE[mid * 2]) {
+				high = mid - 1;
+			} else if (codePoint > WIDE[mid * 2 + 1]) {
+				low = mid + 1;
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+}
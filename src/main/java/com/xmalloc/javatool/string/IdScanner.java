@@ -0,0 +1,391 @@
+package com.xmalloc.javatool.string;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.LongConsumer;
+
+import com.xmalloc.javatool.collection.LongList;
+
+/**
+ * 单次扫描解析分隔的ID列表, 例如 "1,2, 3;4".
+ *
+ * 逗号总是分隔符, 另外可以指定任意多个分隔符(可以是多个字符). 每个ID去掉首尾空白后按十进制解析,
+ * 和Long.parseLong一样允许正负号和其他文字的十进制数字(例如"١٢"), 空的片段被忽略, 无法解析的片段
+ * (包括溢出)不抛异常, 交给可选的 {@link BadTokenHandler}. 实例不可变, 可以在多个线程中共享.
+ *
+ * 分隔符互相重叠时(例如"b"和"ab"), 每个位置优先匹配最长的分隔符, 和以前依次replace成逗号再split
+ * 的结果可能不同.
+ */
+public final class IdScanner {
+
+	/** 超过这个字符数时 {@link #parseParallel(CharSequence, BadTokenHandler)} 才并行解析 */
+	public static final int PARALLEL_THRESHOLD = 256 * 1024;
+
+	/** 并行解析时每块的最小字符数 */
+	private static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+	private static final IdScanner DEFAULT = new IdScanner();
+
+	/** 单字符分隔符中的ASCII字符 */
+	private final boolean[] asciiDelimiters = new boolean[128];
+	/** 单字符分隔符中的非ASCII字符 */
+	private final char[] otherDelimiters;
+	/** 多字符分隔符, 长的在前 */
+	private final String[] longDelimiters;
+	private final int maxDelimiterLength;
+	/** 构造时传入的分隔符 */
+	private final String[] delimiters;
+
+	/**
+	 * 无法解析的ID
+	 */
+	public interface BadTokenHandler {
+		/**
+		 * @param start 去掉空白后的片段在输入中的起始位置
+		 * @param end 结束位置(不含)
+		 */
+		void badToken(long start, long end);
+	}
+
+	/**
+	 * @param delimiters 逗号以外的分隔符, null和空字符串被忽略
+	 */
+	public IdScanner(String... delimiters) {
+		asciiDelimiters[','] = true;
+		StringBuilder others = new StringBuilder();
+		String[] longs = new String[delimiters == null ? 0 : delimiters.length];
+		int longCount = 0;
+		int maxLength = 1;
+		if (delimiters != null) {
+			for (String delimiter : delimiters) {
+				if (delimiter == null || delimiter.length() == 0) {
+					continue;
+				}
+				if (delimiter.length() > 1) {
+					longs[longCount++] = delimiter;
+					maxLength = Math.max(maxLength, delimiter.length());
+				} else if (delimiter.charAt(0) < 128) {
+					asciiDelimiters[delimiter.charAt(0)] = true;
+				} else {
+					others.append(delimiter.charAt(0));
+				}
+			}
+		}
+		longs = Arrays.copyOf(longs, longCount);
+		Arrays.sort(longs, (a, b) -> b.length() - a.length());
+		this.otherDelimiters = others.toString().toCharArray();
+		this.longDelimiters = longs;
+		this.maxDelimiterLength = maxLength;
+		this.delimiters = delimiters == null ? new String[0] : delimiters.clone();
+	}
+
+	/**
+	 * 只用逗号分隔的共享实例
+	 *
+	 * @return
+	 */
+	public static IdScanner getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * 解析成数组
+	 *
+	 * @param ids 分隔的ID列表, 可以为null
+	 * @return 解析成功的ID, 保持原来的顺序
+	 */
+	public long[] parse(CharSequence ids) {
+		LongList result = new LongList();
+		parse(ids, result, null);
+		return result.toArray();
+	}
+
+	/**
+	 * 解析后逐个回调
+	 *
+	 * @param ids 分隔的ID列表, 可以为null
+	 * @param consumer 接收解析成功的ID
+	 */
+	public void parse(CharSequence ids, LongConsumer consumer) {
+		parse(ids, consumer, null);
+	}
+
+	/**
+	 * 解析后逐个回调, 并报告无法解析的片段
+	 *
+	 * @param ids 分隔的ID列表, 可以为null
+	 * @param consumer 接收解析成功的ID
+	 * @param handler 接收无法解析的片段, 可以为null
+	 */
+	public void parse(CharSequence ids, LongConsumer consumer, BadTokenHandler handler) {
+		if (ids != null) {
+			scan(ids, 0, ids.length(), true, 0, consumer, handler);
+		}
+	}
+
+	/**
+	 * 并行解析, 输入不超过 {@link #PARALLEL_THRESHOLD} 个字符时直接顺序解析.
+	 *
+	 * 输入在分隔符处切成若干块, 用公共的ForkJoinPool并行解析后按原来的顺序拼接. 分隔符中含有数字时无法安全地切分,
+	 * 也按顺序解析.
+	 *
+	 * @param ids 分隔的ID列表, 可以为null; 解析期间不能被修改
+	 * @param handler 接收无法解析的片段, 可以为null; 会被多个线程同时调用, 调用顺序不确定
+	 * @return 解析成功的ID, 保持原来的顺序
+	 */
+	public long[] parseParallel(CharSequence ids, BadTokenHandler handler) {
+		return parseParallel(ids, handler, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * 用指定的ForkJoinPool并行解析
+	 *
+	 * @see #parseParallel(CharSequence, BadTokenHandler)
+	 */
+	public long[] parseParallel(CharSequence ids, BadTokenHandler handler, ForkJoinPool pool) {
+		if (ids == null) {
+			return new long[0];
+		}
+		int length = ids.length();
+		if (length <= PARALLEL_THRESHOLD || pool.getParallelism() < 2 || delimitersContainDigit()) {
+			LongList result = new LongList();
+			parse(ids, result, handler);
+			return result.toArray();
+		}
+		int chunkSize = Math.max(MIN_CHUNK_SIZE, length / (pool.getParallelism() * 4));
+		LongList bounds = new LongList();
+		bounds.add(0);
+		int from = 0;
+		while (length - from > chunkSize) {
+			int split = findSplit(ids, from + chunkSize, length);
+			if (split < 0) {
+				break;
+			}
+			bounds.add(split);
+			from = split;
+		}
+		bounds.add(length);
+
+		final List<ChunkTask> tasks = new ArrayList<ChunkTask>(bounds.size() - 1);
+		for (int i = 1; i < bounds.size(); i++) {
+			tasks.add(new ChunkTask(this, ids, (int) bounds.get(i - 1), (int) bounds.get(i), handler));
+		}
+		pool.invoke(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				invokeAll(tasks);
+			}
+		});
+
+		int size = 0;
+		for (ChunkTask task : tasks) {
+			size += task.result.size();
+		}
+		long[] result = new long[size];
+		int offset = 0;
+		for (ChunkTask task : tasks) {
+			offset = task.result.copyTo(result, offset);
+		}
+		return result;
+	}
+
+	/**
+	 * 从from开始找一个可以切分的位置: 分隔符的开始, 并且前一个字符是数字.
+	 * 数字不属于任何分隔符, 所以顺序扫描到这里时一定也从这个位置开始匹配分隔符.
+	 *
+	 * @return 切分位置, 找不到时返回-1
+	 */
+	private int findSplit(CharSequence s, int from, int to) {
+		for (int i = Math.max(from, 1); i < to; i++) {
+			char previous = s.charAt(i - 1);
+			if (previous >= '0' && previous <= '9' && delimiterLength(s, i, to) > 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 分隔符中是否有数字
+	 */
+	private boolean delimitersContainDigit() {
+		for (char c = '0'; c <= '9'; c++) {
+			if (asciiDelimiters[c]) {
+				return true;
+			}
+		}
+		for (String delimiter : longDelimiters) {
+			for (int i = 0; i < delimiter.length(); i++) {
+				if (delimiter.charAt(i) >= '0' && delimiter.charAt(i) <= '9') {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 解析一块输入
+	 */
+	private static final class ChunkTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final IdScanner scanner;
+		private final CharSequence ids;
+		private final int from;
+		private final int to;
+		private final BadTokenHandler handler;
+		final LongList result = new LongList();
+
+		ChunkTask(IdScanner scanner, CharSequence ids, int from, int to, BadTokenHandler handler) {
+			this.scanner = scanner;
+			this.ids = ids;
+			this.from = from;
+			this.to = to;
+			this.handler = handler;
+		}
+
+		@Override
+		protected void compute() {
+			scanner.scan(ids, from, to, true, 0, result, handler);
+		}
+	}
+
+	/**
+	 * 扫描 [from, to) 中的ID.
+	 *
+	 * @param end to之后是否还有输入; 为false时最后一个没有遇到分隔符的片段不解析
+	 * @param base 报告位置时加上的偏移
+	 * @return 没有解析的最后一个片段的起始位置, end为true时等于to
+	 */
+	int scan(CharSequence s, int from, int to, boolean end, long base, LongConsumer consumer,
+			BadTokenHandler handler) {
+		int tokenStart = from;
+		int i = from;
+		while (i < to) {
+			if (!end && to - i < maxDelimiterLength) {
+				return tokenStart;
+			}
+			int length = delimiterLength(s, i, to);
+			if (length == 0) {
+				i++;
+				continue;
+			}
+			token(s, tokenStart, i, base, consumer, handler);
+			i += length;
+			tokenStart = i;
+		}
+		if (!end) {
+			return tokenStart;
+		}
+		token(s, tokenStart, to, base, consumer, handler);
+		return to;
+	}
+
+	/**
+	 * 最长的分隔符长度
+	 */
+	int maxDelimiterLength() {
+		return maxDelimiterLength;
+	}
+
+	/**
+	 * 用于扫描字节的实例: 每个字节当作一个ISO-8859-1字符, 分隔符换成它的UTF-8字节
+	 */
+	IdScanner forUtf8Bytes() {
+		String[] bytes = new String[delimiters.length];
+		for (int i = 0; i < delimiters.length; i++) {
+			if (delimiters[i] != null) {
+				bytes[i] = new String(delimiters[i].getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+			}
+		}
+		return new IdScanner(bytes);
+	}
+
+	/**
+	 * 位置i处匹配的分隔符长度, 不是分隔符时返回0
+	 */
+	int delimiterLength(CharSequence s, int i, int to) {
+		char c = s.charAt(i);
+		for (String delimiter : longDelimiters) {
+			int length = delimiter.length();
+			if (c == delimiter.charAt(0) && to - i >= length && matches(s, i, delimiter)) {
+				return length;
+			}
+		}
+		if (c < 128) {
+			return asciiDelimiters[c] ? 1 : 0;
+		}
+		for (char other : otherDelimiters) {
+			if (c == other) {
+				return 1;
+			}
+		}
+		return 0;
+	}
+
+	private static boolean matches(CharSequence s, int i, String delimiter) {
+		for (int j = 1; j < delimiter.length(); j++) {
+			if (s.charAt(i + j) != delimiter.charAt(j)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 解析一个片段, 和String.trim一样去掉首尾不大于空格的字符, 和Long.parseLong一样允许正负号
+	 */
+	private static void token(CharSequence s, int start, int end, long base, LongConsumer consumer,
+			BadTokenHandler handler) {
+		while (start < end && s.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && s.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		if (start == end) {
+			return;
+		}
+		int i = start;
+		boolean negative = false;
+		char first = s.charAt(i);
+		if (first == '-' || first == '+') {
+			negative = first == '-';
+			i++;
+		}
+		// 和Long.parseLong一样按负数累加, 这样Long.MIN_VALUE也不会溢出
+		long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		long multmin = limit / 10;
+		long result = 0;
+		boolean valid = i < end;
+		for (; i < end; i++) {
+			char c = s.charAt(i);
+			int digit = c - '0';
+			if (digit < 0 || digit > 9) {
+				digit = c < 128 ? -1 : Character.digit(c, 10);
+			}
+			if (digit < 0 || result < multmin) {
+				valid = false;
+				break;
+			}
+			result *= 10;
+			if (result < limit + digit) {
+				valid = false;
+				break;
+			}
+			result -= digit;
+		}
+		if (valid) {
+			consumer.accept(negative ? result : -result);
+		} else if (handler != null) {
+			handler.badToken(base + start, base + end);
+		}
+	}
+}
@@ -0,0 +1,381 @@
+package com.xmalloc.javatool.string;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import com.xmalloc.javatool.collection.LongList;
+
+/**
+ * 流式解析分隔的ID列表, 输入可以是Reader, 字节流, 通道, ByteBuffer或者内存映射的文件.
+ *
+ * 输入通过一个固定大小的缓冲区逐段读取, 无论输入多大占用的内存都不变. 解析规则和 {@link IdScanner}
+ * 相同; 字节输入按UTF-8处理, 只识别ASCII数字. 结果可以逐个取出, 按批取出, 或者作为 {@link LongStream}.
+ *
+ * 一个ID片段(含首尾空白)比缓冲区还长时, 整个片段作为无法解析的片段报告. 非线程安全.
+ */
+public final class IdStream implements PrimitiveIterator.OfLong, Closeable {
+
+	/** 默认的缓冲区字符数 */
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	/** 最小的缓冲区字符数, 保证任何合法的long(最多20个字符)都能完整放进缓冲区 */
+	public static final int MIN_BUFFER_SIZE = 64;
+
+	/** 映射文件时每次映射的字节数 */
+	private static final long MAP_WINDOW = 64L * 1024 * 1024;
+
+	private final IdScanner scanner;
+	private final Source source;
+	private final char[] chars;
+	private final CharBuffer text;
+	private final LongList pending = new LongList();
+	private IdScanner.BadTokenHandler handler;
+
+	/** 缓冲区中未处理的部分 [start, limit) */
+	private int start;
+	private int limit;
+	/** chars[0] 在输入中的位置 */
+	private long position;
+	private boolean eof;
+	private boolean finished;
+	private int pendingIndex;
+	/** 正在跳过一个超长的片段 */
+	private boolean skipping;
+	private long skipStart;
+
+	/**
+	 * 读取字符的来源
+	 */
+	private interface Source extends Closeable {
+		/**
+		 * @return 读到的字符数, 没有更多输入时返回-1
+		 */
+		int read(char[] buf, int off, int len) throws IOException;
+	}
+
+	private IdStream(IdScanner scanner, Source source, int bufferSize) {
+		if (bufferSize < MIN_BUFFER_SIZE || bufferSize < scanner.maxDelimiterLength() * 2) {
+			throw new IllegalArgumentException("bufferSize too small: " + bufferSize);
+		}
+		this.scanner = scanner;
+		this.source = source;
+		this.chars = new char[bufferSize];
+		this.text = CharBuffer.wrap(chars);
+	}
+
+	/**
+	 * 解析逗号分隔的字符流
+	 *
+	 * @param reader
+	 * @return
+	 */
+	public static IdStream of(Reader reader) {
+		return of(reader, IdScanner.getDefault(), DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * 解析字符流
+	 *
+	 * @param reader
+	 * @param scanner 指定分隔符
+	 * @param bufferSize 缓冲区字符数
+	 * @return
+	 */
+	public static IdStream of(final Reader reader, IdScanner scanner, int bufferSize) {
+		return new IdStream(scanner, new Source() {
+			@Override
+			public int read(char[] buf, int off, int len) throws IOException {
+				return reader.read(buf, off, len);
+			}
+
+			@Override
+			public void close() throws IOException {
+				reader.close();
+			}
+		}, bufferSize);
+	}
+
+	/**
+	 * 解析UTF-8字节流
+	 *
+	 * @param in
+	 * @param scanner 指定分隔符
+	 * @return
+	 */
+	public static IdStream of(InputStream in, IdScanner scanner) {
+		return of(Channels.newChannel(in), scanner, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * 解析UTF-8字节通道
+	 *
+	 * @param channel 阻塞模式的通道; 非阻塞通道没有数据时读到0个字节, 无法在这里等待
+	 * @param scanner 指定分隔符
+	 * @param bufferSize 缓冲区大小
+	 * @return
+	 * @throws IllegalArgumentException 通道是非阻塞模式
+	 */
+	public static IdStream of(final ReadableByteChannel channel, IdScanner scanner, int bufferSize) {
+		if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking()) {
+			throw new IllegalArgumentException("channel must be in blocking mode");
+		}
+		final ByteBuffer bytes = ByteBuffer.allocate(bufferSize);
+		bytes.flip();
+		return new IdStream(scanner.forUtf8Bytes(), new Source() {
+			@Override
+			public int read(char[] buf, int off, int len) throws IOException {
+				if (!bytes.hasRemaining()) {
+					bytes.clear();
+					int n = channel.read(bytes);
+					bytes.flip();
+					if (n < 0) {
+						return -1;
+					}
+					if (n == 0 && channel instanceof SelectableChannel
+							&& !((SelectableChannel) channel).isBlocking()) {
+						throw new IllegalStateException("channel switched to non-blocking mode");
+					}
+				}
+				return widen(bytes, buf, off, len);
+			}
+
+			@Override
+			public void close() throws IOException {
+				channel.close();
+			}
+		}, bufferSize);
+	}
+
+	/**
+	 * 解析ByteBuffer中从position到limit的UTF-8字节, 不改变buffer的position
+	 *
+	 * @param buffer 堆内, 直接或映射的buffer
+	 * @param scanner 指定分隔符
+	 * @return
+	 */
+	public static IdStream of(ByteBuffer buffer, IdScanner scanner) {
+		final ByteBuffer bytes = buffer.duplicate();
+		return new IdStream(scanner.forUtf8Bytes(), new Source() {
+			@Override
+			public int read(char[] buf, int off, int len) {
+				return bytes.hasRemaining() ? widen(bytes, buf, off, len) : -1;
+			}
+
+			@Override
+			public void close() {
+			}
+		}, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * 内存映射并解析UTF-8文件, 大文件按窗口逐段映射
+	 *
+	 * @param file
+	 * @param scanner 指定分隔符
+	 * @return
+	 * @throws IOException
+	 */
+	public static IdStream map(Path file, IdScanner scanner) throws IOException {
+		final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		final long size = channel.size();
+		return new IdStream(scanner.forUtf8Bytes(), new Source() {
+			private long mapped;
+			private MappedByteBuffer window;
+
+			@Override
+			public int read(char[] buf, int off, int len) throws IOException {
+				if (window == null || !window.hasRemaining()) {
+					if (mapped >= size) {
+						return -1;
+					}
+					long length = Math.min(MAP_WINDOW, size - mapped);
+					window = channel.map(FileChannel.MapMode.READ_ONLY, mapped, length);
+					mapped += length;
+				}
+				return widen(window, buf, off, len);
+			}
+
+			@Override
+			public void close() throws IOException {
+				window = null;
+				channel.close();
+			}
+		}, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * 报告无法解析的片段, 位置按输入的字符数(字节输入按字节数)计算
+	 *
+	 * @param handler
+	 * @return this
+	 */
+	public IdStream onBadToken(IdScanner.BadTokenHandler handler) {
+		this.handler = handler;
+		return this;
+	}
+
+	@Override
+	public boolean hasNext() {
+		try {
+			return fill();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public long nextLong() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return pending.get(pendingIndex++);
+	}
+
+	/**
+	 * 按批取出ID
+	 *
+	 * @param batch 接收ID的数组
+	 * @return 取出的个数, 0表示没有更多的ID
+	 * @throws IOException
+	 */
+	public int nextBatch(long[] batch) throws IOException {
+		int n = 0;
+		while (n < batch.length && fill()) {
+			int count = Math.min(batch.length - n, pending.size() - pendingIndex);
+			for (int i = 0; i < count; i++) {
+				batch[n++] = pending.get(pendingIndex++);
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * 作为顺序流, 关闭流时关闭输入
+	 *
+	 * @return
+	 */
+	public LongStream stream() {
+		return StreamSupport
+				.longStream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+						false)
+				.onClose(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							close();
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					}
+				});
+	}
+
+	@Override
+	public void close() throws IOException {
+		finished = true;
+		source.close();
+	}
+
+	/**
+	 * 保证pending中有未取出的ID
+	 *
+	 * @return 没有更多的ID时返回false
+	 */
+	private boolean fill() throws IOException {
+		while (pendingIndex == pending.size()) {
+			pending.clear();
+			pendingIndex = 0;
+			if (finished) {
+				return false;
+			}
+			if (start > 0) {
+				System.arraycopy(chars, start, chars, 0, limit - start);
+				position += start;
+				limit -= start;
+				start = 0;
+			}
+			if (!eof) {
+				int n = source.read(chars, limit, chars.length - limit);
+				if (n < 0) {
+					eof = true;
+				} else {
+					limit += n;
+				}
+			}
+			if (skipping && !skip()) {
+				continue;
+			}
+			start = scanner.scan(text, start, limit, eof, position, pending, handler);
+			if (eof) {
+				finished = true;
+			} else if (start == 0 && limit == chars.length) {
+				skipping = true;
+				skipStart = position;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 跳到超长片段之后的分隔符
+	 *
+	 * @return 找到分隔符时返回true
+	 */
+	private boolean skip() {
+		int maxLength = scanner.maxDelimiterLength();
+		int i = start;
+		for (; i < limit; i++) {
+			if (!eof && limit - i < maxLength) {
+				break;
+			}
+			int length = scanner.delimiterLength(text, i, limit);
+			if (length > 0) {
+				badToken(skipStart, position + i);
+				skipping = false;
+				start = i + length;
+				return true;
+			}
+		}
+		start = i;
+		if (eof) {
+			badToken(skipStart, position + limit);
+			finished = true;
+		}
+		return false;
+	}
+
+	private void badToken(long from, long to) {
+		if (handler != null) {
+			handler.badToken(from, to);
+		}
+	}
+
+	/**
+	 * 字节按ISO-8859-1转换成字符, 分隔符已经转换成UTF-8字节, 数字和空白都是ASCII
+	 */
+	private static int widen(ByteBuffer bytes, char[] buf, int off, int len) {
+		int n = Math.min(len, bytes.remaining());
+		for (int i = 0; i < n; i++) {
+			buf[off + i] = (char) (bytes.get() & 0xff);
+		}
+		return n;
+	}
+}
@@ -1,5 +1,7 @@
 package com.xmalloc.javatool.string;
 
+import java.io.IOException;
+
 public class InfoUtil {
 	/** line width */
 	public static int LW = 80;
@@ -12,20 +14,39 @@ public class InfoUtil {
 	/** 结尾打印的信息 */
 	public static String footLine;
 
+	/** 和LW, LC, LS, headLine, footLine一致的样式, 字段被修改后在下一次使用时重建 */
+	private static volatile BannerStyle style;
+
 	static {
 		init();
 	}
 
+	/**
+	 * 按LW, LC, LS重新生成headLine和footLine
+	 */
 	public static void init() {
-		String line = "";
-		String blank = "";
-		int centerCount = LW > 2 ? LW - 2 : 0;
-		for (int i = 0; i < centerCount; i++) {
-			line += LC;
-			blank += ' ';
+		BannerStyle current = new BannerStyle(LW, LC, LS);
+		headLine = current.getHeadLine();
+		footLine = current.getFootLine();
+		style = current;
+	}
+
+	/**
+	 * 当前LW, LC, LS, headLine, footLine对应的样式, 需要在多个线程中使用固定的样式时可以保存下来.
+	 * 只修改LW等字段而没有调用 {@link #init()} 时, 和以前一样继续使用原来的headLine和footLine
+	 *
+	 * @return
+	 */
+	public static BannerStyle getStyle() {
+		BannerStyle current = style;
+		String head = String.valueOf(headLine);
+		String foot = String.valueOf(footLine);
+		if (current.getWidth() != LW || current.getFill() != LC || !current.getLineSeparator().equals(LS)
+				|| !current.getHeadLine().equals(head) || !current.getFootLine().equals(foot)) {
+			current = new BannerStyle(LW, LC, LS, head, foot);
+			style = current;
 		}
-		headLine = LC + line + LC + LS + LC + blank + LC + LS;
-		footLine = LS + LC + blank + LC + LS + LC + line + LC;
+		return current;
 	}
 
 	/**
@@ -34,32 +55,54 @@ public class InfoUtil {
 	 * @return
 	 */
 	public static String startInfo(String content) {
-		return LS + headLine + fillContent(content);
+		return getStyle().startInfo(content);
 	}
+
 	public static String endInfo(String content) {
-		return LS + fillContent(content) + footLine;
+		return getStyle().endInfo(content);
+	}
+
+	/**
+	 * 写入开头的横幅和内容
+	 *
+	 * @param out 例如日志的缓冲区
+	 * @param content
+	 * @throws IOException
+	 */
+	public static void startInfo(Appendable out, String content) throws IOException {
+		getStyle().startInfo(out, content);
+	}
+
+	/**
+	 * 写入内容和结尾的横幅
+	 *
+	 * @param out 例如日志的缓冲区
+	 * @param content
+	 * @throws IOException
+	 */
+	public static void endInfo(Appendable out, String content) throws IOException {
+		getStyle().endInfo(out, content);
 	}
 
 	/**
 	 * 两端填充字符
-	 * 
+	 *
 	 * @param content
 	 * @return
 	 */
 	public static String fillContent(String content) {
-		if (content.length() > LW) {
-			return content;
-		}
-		String result = "";
-		int num = (LW - content.length()) / 2;
-		for (int i = 0; i < num; i++) {
-			result += LC;
-		}
-		result += content;
-		for (int i = 0; i < num; i++) {
-			result += LC;
-		}
-		return result;
+		return getStyle().fillContent(content);
+	}
+
+	/**
+	 * 两端填充字符, 内容比行宽长时可以拆成多行
+	 *
+	 * @param content
+	 * @param wrap 是否拆成多行
+	 * @return
+	 */
+	public static String fillContent(String content, boolean wrap) {
+		return getStyle().fillContent(content, wrap);
 	}
 
 }
@@ -1,13 +1,13 @@
 package com.xmalloc.javatool.string;
 
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.function.LongConsumer;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.xmalloc.javatool.collection.LongHashSet;
+import com.xmalloc.javatool.collection.LongList;
 
 public class StringTool {
-    private static final Logger LOG = LoggerFactory.getLogger(StringTool.class);
 
     // Empty checks
     // -----------------------------------------------------------------------
@@ -69,16 +69,52 @@ public class StringTool {
      * @since 0.0.2
      */
     public static boolean isBlank(String str) {
-        int strLen;
-        if (str == null || (strLen = str.length()) == 0) {
-            return true;
-        }
-        for (int i = 0; i < strLen; i++) {
-            if ((Character.isWhitespace(str.charAt(i)) == false)) {
-                return false;
-            }
+        return str == null || Whitespace.isBlank(str);
+    }
+
+    /**
+     * 判断CharSequence是否为null, 空或全是空白, 空白和 {@link Character#isWhitespace(char)} 相同
+     *
+     * @param str 例如StringBuilder, CharBuffer
+     * @return
+     */
+    public static boolean isBlank(CharSequence str) {
+        return str == null || Whitespace.isBlank(str);
+    }
+
+    /**
+     * 判断UTF-8字节是否为null, 空或全是空白, 不需要先解码成字符串
+     *
+     * @param bytes UTF-8字节
+     * @return 不合法的UTF-8序列不算空白
+     */
+    public static boolean isBlankUtf8(byte[] bytes) {
+        return bytes == null || Whitespace.isBlankUtf8(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 判断UTF-8字节的一段是否全是空白
+     *
+     * @param bytes UTF-8字节
+     * @param offset 起始位置
+     * @param length 字节数
+     * @return
+     */
+    public static boolean isBlankUtf8(byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || length > bytes.length - offset) {
+            throw new IndexOutOfBoundsException();
         }
-        return true;
+        return Whitespace.isBlankUtf8(bytes, offset, offset + length);
+    }
+
+    /**
+     * 判断ByteBuffer从position到limit的UTF-8字节是否为null, 空或全是空白, 不改变position
+     *
+     * @param buffer 堆内或直接缓冲区
+     * @return
+     */
+    public static boolean isBlankUtf8(ByteBuffer buffer) {
+        return buffer == null || Whitespace.isBlankUtf8(buffer);
     }
 
     /**
@@ -120,55 +156,117 @@ public class StringTool {
      * @return
      */
     public static List<Long> idsToList(String[] delimiters, String ids) {
-        List<Long> result = new ArrayList<Long>();
-        if (isEmpty(ids)) {
-            return result;
-        }
+        return idsToLongList(delimiters, ids).asList();
+    }
 
-        if (delimiters != null) {
-            for (String delimiter : delimiters) {
-                if (!",".equals(delimiter))
-                    ids = ids.replace(delimiter, ",");
-            }
-        }
+    /**
+     * 逗号分隔的ids转换成不装箱的列表, 无法解析的id被忽略
+     * @param ids
+     * @return
+     */
+    public static LongList idsToLongList(CharSequence ids) {
+        return idsToLongList(null, ids);
+    }
 
-        String[] array = ids.split(",");
-        for (String id : array) {
-            if (!isEmpty(id))
-                try {
-                    result.add(Long.parseLong(id.trim()));
-                } catch (Exception e) {
-                    // just do nothing
-                }
-        }
+    /**
+     * ids转换成不装箱的列表, 无法解析的id被忽略
+     * @param delimiters 逗号以外的分隔符
+     * @param ids
+     * @return
+     */
+    public static LongList idsToLongList(String[] delimiters, CharSequence ids) {
+        LongList result = new LongList();
+        scanner(delimiters).parse(ids, result);
+        return result;
+    }
+
+    /**
+     * 逗号分隔的ids转换成去重的集合, 无法解析的id被忽略
+     * @param ids
+     * @return
+     */
+    public static LongHashSet idsToLongSet(CharSequence ids) {
+        return idsToLongSet(null, ids);
+    }
 
+    /**
+     * ids转换成去重的集合, 无法解析的id被忽略
+     * @param delimiters 逗号以外的分隔符
+     * @param ids
+     * @return
+     */
+    public static LongHashSet idsToLongSet(String[] delimiters, CharSequence ids) {
+        LongHashSet result = new LongHashSet();
+        scanner(delimiters).parse(ids, result);
         return result;
     }
 
     /**
-     * 逗号分隔的ids转换成数组
-     * @param idStr
+     * 逗号分隔的ids转换成long数组, 无法解析的id被忽略
+     * @param ids
      * @return
      */
-    public static Long[] idsToArray(String idStr) {
-        Long[] targetIds = null;
-        try {
-            if (isNotEmpty(idStr)) {
-                String[] ids = idStr.split(",");
-                targetIds = new Long[ids.length];
-                for (int i = 0; i < ids.length; i++) {
-                    if (isEmpty(ids[i])) {
-                        continue;
-                    }
-                    try {
-                        targetIds[i] = Long.valueOf(ids[i]);
-                    } catch (Exception e) {
-                        // just do nothing
-                    }
-                }
+    public static long[] idsToLongArray(CharSequence ids) {
+        return IdScanner.getDefault().parse(ids);
+    }
+
+    /**
+     * ids转换成long数组, 无法解析的id被忽略
+     * @param delimiters 逗号以外的分隔符
+     * @param ids
+     * @return
+     */
+    public static long[] idsToLongArray(String[] delimiters, CharSequence ids) {
+        return scanner(delimiters).parse(ids);
+    }
+
+    /**
+     * ids转换成long数组, 很长的输入切块后并行解析, 无法解析的id被忽略
+     * @param delimiters 逗号以外的分隔符
+     * @param ids
+     * @return
+     */
+    public static long[] idsToLongArrayParallel(String[] delimiters, CharSequence ids) {
+        return scanner(delimiters).parseParallel(ids, null);
+    }
+
+    /**
+     * 逐个回调ids中的id, 无法解析的id交给handler
+     * @param delimiters 逗号以外的分隔符
+     * @param ids
+     * @param consumer 接收解析成功的id
+     * @param handler 接收无法解析的片段, 可以为null
+     */
+    public static void forEachId(String[] delimiters, CharSequence ids, LongConsumer consumer,
+            IdScanner.BadTokenHandler handler) {
+        scanner(delimiters).parse(ids, consumer, handler);
+    }
+
+    private static IdScanner scanner(String[] delimiters) {
+        if (delimiters == null) {
+            return IdScanner.getDefault();
+        }
+        for (String delimiter : delimiters) {
+            if (!",".equals(delimiter)) {
+                return new IdScanner(delimiters);
             }
-        } catch (Exception e) {
-            LOG.error(e.getMessage(), e);
+        }
+        return IdScanner.getDefault();
+    }
+
+    /**
+     * 逗号分隔的ids转换成数组, 无法解析的id被忽略, 数组中没有null
+     * @param idStr
+     * @return ids为空时返回null
+     */
+    public static Long[] idsToArray(String idStr) {
+        if (isEmpty(idStr)) {
+            return null;
+        }
+        long[] ids = idsToLongArray(idStr);
+        Long[] targetIds = new Long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            targetIds[i] = ids[i];
         }
         return targetIds;
     }
@@ -217,32 +315,26 @@ public class StringTool {
     }
 
     /**
-     * 字符串转换unicode
+     * 字符串转换unicode, 每个字符都转成四位十六进制的\\uXXXX
      */
     public static String string2Unicode(String string) {
-        StringBuffer unicode = new StringBuffer();
-        for (int i = 0; i < string.length(); i++) {
-            // 取出每一个字符
-            char c = string.charAt(i);
-            // 转换为unicode
-            unicode.append("\\u" + Integer.toHexString(c));
-        }
-        return unicode.toString();
+        return UnicodeEscape.escape(string);
     }
 
     /**
-     * unicode 转字符串
+     * 字符串转换unicode
+     * @param string
+     * @param nonAsciiOnly 为true时只转义非ASCII字符和反斜杠
+     * @return
      */
-    public static String unicode2String(String unicode) {
-        StringBuffer string = new StringBuffer();
-        String[] hex = unicode.split("\\\\u");
-        for (int i = 1; i < hex.length; i++) {
-            // 转换出每一个代码点
-            int data = Integer.parseInt(hex[i], 16);
-            // 追加成string
-            string.append((char) data);
-        }
+    public static String string2Unicode(String string, boolean nonAsciiOnly) {
+        return UnicodeEscape.escape(string, nonAsciiOnly);
+    }
 
-        return string.toString();
+    /**
+     * unicode 转字符串, 解码\\uXXXX和不足四位的短转义例如\\u61, 其它文本原样保留
+     */
+    public static String unicode2String(String unicode) {
+        return UnicodeEscape.unescape(unicode);
     }
 }
@@ -0,0 +1,470 @@
+package com.xmalloc.javatool.string;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
+import java.util.Arrays;
+
+/**
+ * \\uXXXX 形式的unicode转义和解码.
+ *
+ * 每个转义固定四位小写十六进制数字. 代理对的两半各自转义, 例如 U+1F600 写成 \\ud83d\\ude00, 和Java, JSON的写法一致.
+ * 只转义非ASCII字符时反斜杠本身也转义成 \\u005c, 这样解码后可以得到原来的字符串.
+ *
+ * 解码时识别 \\u 加十六进制数字(大小写都可以), 其它文本原样保留. 默认兼容旧的写法, 不足四位的短转义例如 \\u61
+ * 也解码, 最多取四位数字; 严格模式只识别四位数字的转义, 不完整的转义原样保留. 批量方法和 {@link UnicodeUnescapeReader}
+ * 都按严格模式解码.
+ *
+ * CharBuffer和ByteBuffer的批量方法用法和 {@link java.nio.charset.CharsetEncoder#encode(CharBuffer, ByteBuffer, boolean)}
+ * 相同: 输入处理完返回 {@link CoderResult#UNDERFLOW}, 输出空间不足返回 {@link CoderResult#OVERFLOW},
+ * 输入的position移到已经处理的位置, 调用者腾出空间或补充输入后再次调用.
+ */
+public final class UnicodeEscape {
+
+	static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/** 十六进制数字的值, 其它ASCII字符为-1 */
+	private static final byte[] HEX_VALUE = new byte[128];
+
+	static {
+		Arrays.fill(HEX_VALUE, (byte) -1);
+		for (int i = 0; i < 10; i++) {
+			HEX_VALUE['0' + i] = (byte) i;
+		}
+		for (int i = 0; i < 6; i++) {
+			HEX_VALUE['a' + i] = (byte) (10 + i);
+			HEX_VALUE['A' + i] = (byte) (10 + i);
+		}
+	}
+
+	/** 一个转义的长度 */
+	static final int ESCAPE_LENGTH = 6;
+
+	/**
+	 * 转义所有字符
+	 *
+	 * @param text
+	 * @return
+	 */
+	public static String escape(CharSequence text) {
+		return escape(text, false);
+	}
+
+	/**
+	 * 转义字符串, 先算出结果的长度, 再一次填满字符数组
+	 *
+	 * @param text
+	 * @param nonAsciiOnly 为true时只转义非ASCII字符和反斜杠
+	 * @return
+	 */
+	public static String escape(CharSequence text, boolean nonAsciiOnly) {
+		int length = text.length();
+		int escaped = length;
+		if (nonAsciiOnly) {
+			escaped = 0;
+			for (int i = 0; i < length; i++) {
+				if (needsEscape(text.charAt(i), true)) {
+					escaped++;
+				}
+			}
+			if (escaped == 0) {
+				return text.toString();
+			}
+		}
+		char[] buf = new char[length + escaped * (ESCAPE_LENGTH - 1)];
+		int pos = 0;
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			if (needsEscape(c, nonAsciiOnly)) {
+				write(buf, pos, c);
+				pos += ESCAPE_LENGTH;
+			} else {
+				buf[pos++] = c;
+			}
+		}
+		return new String(buf);
+	}
+
+	/**
+	 * 转义后写入Appendable, 不需要转义的连续字符一次写入
+	 *
+	 * @param text
+	 * @param nonAsciiOnly 为true时只转义非ASCII字符和反斜杠
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void escape(CharSequence text, boolean nonAsciiOnly, Appendable out) throws IOException {
+		int length = text.length();
+		int plain = 0;
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			if (needsEscape(c, nonAsciiOnly)) {
+				if (plain < i) {
+					out.append(text, plain, i);
+				}
+				out.append('\\').append('u').append(HEX[c >>> 12]).append(HEX[(c >>> 8) & 0xf])
+						.append(HEX[(c >>> 4) & 0xf]).append(HEX[c & 0xf]);
+				plain = i + 1;
+			}
+		}
+		if (plain < length) {
+			out.append(text, plain, length);
+		}
+	}
+
+	/**
+	 * 解码, 兼容不足四位的短转义
+	 *
+	 * @param text
+	 * @return
+	 */
+	public static String unescape(CharSequence text) {
+		return unescape(text, false);
+	}
+
+	/**
+	 * 解码, 结果写入一个按输入长度分配的字符数组
+	 *
+	 * @param text
+	 * @param strict 为true时只解码四位数字的转义, 为false时 \\u 后面不足四位的十六进制数字也解码
+	 * @return
+	 */
+	public static String unescape(CharSequence text, boolean strict) {
+		int length = text.length();
+		int i = indexOfEscape(text, 0, length, strict);
+		if (i < 0) {
+			return text.toString();
+		}
+		char[] buf = new char[length];
+		int pos = 0;
+		for (int j = 0; j < i; j++) {
+			buf[pos++] = text.charAt(j);
+		}
+		while (i < length) {
+			char c = text.charAt(i);
+			int unit = c == '\\' ? decodeAt(text, i, length, strict) : -1;
+			if (unit >= 0) {
+				buf[pos++] = (char) unit;
+				i += unit >>> 16;
+			} else {
+				buf[pos++] = c;
+				i++;
+			}
+		}
+		return new String(buf, 0, pos);
+	}
+
+	/**
+	 * 解码后写入Appendable, 兼容不足四位的短转义
+	 *
+	 * @param text
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void unescape(CharSequence text, Appendable out) throws IOException {
+		unescape(text, false, out);
+	}
+
+	/**
+	 * 解码后写入Appendable, 转义之间的文本一次写入
+	 *
+	 * @param text
+	 * @param strict 为true时只解码四位数字的转义
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void unescape(CharSequence text, boolean strict, Appendable out) throws IOException {
+		int length = text.length();
+		int plain = 0;
+		int i = indexOfEscape(text, 0, length, strict);
+		while (i >= 0) {
+			int unit = decodeAt(text, i, length, strict);
+			if (plain < i) {
+				out.append(text, plain, i);
+			}
+			out.append((char) unit);
+			plain = i + (unit >>> 16);
+			i = indexOfEscape(text, plain, length, strict);
+		}
+		if (plain < length) {
+			out.append(text, plain, length);
+		}
+	}
+
+	/**
+	 * 批量转义到字符缓冲区
+	 *
+	 * @param in 原文
+	 * @param out 接收转义后的文本
+	 * @param nonAsciiOnly 为true时只转义非ASCII字符和反斜杠
+	 * @return UNDERFLOW或OVERFLOW
+	 */
+	public static CoderResult escape(CharBuffer in, CharBuffer out, boolean nonAsciiOnly) {
+		int n = in.remaining();
+		int i = 0;
+		try {
+			for (; i < n; i++) {
+				char c = in.charAt(i);
+				if (needsEscape(c, nonAsciiOnly)) {
+					if (out.remaining() < ESCAPE_LENGTH) {
+						return CoderResult.OVERFLOW;
+					}
+					out.put('\\').put('u').put(HEX[c >>> 12]).put(HEX[(c >>> 8) & 0xf]).put(HEX[(c >>> 4) & 0xf])
+							.put(HEX[c & 0xf]);
+				} else {
+					if (!out.hasRemaining()) {
+						return CoderResult.OVERFLOW;
+					}
+					out.put(c);
+				}
+			}
+			return CoderResult.UNDERFLOW;
+		} finally {
+			in.position(in.position() + i);
+		}
+	}
+
+	/**
+	 * 批量转义到字节缓冲区, 只转义非ASCII字符时结果全是ASCII, 所以也是合法的UTF-8
+	 *
+	 * @param in 原文
+	 * @param out 接收转义后文本的ASCII字节, 可以是直接缓冲区
+	 * @param nonAsciiOnly 为true时只转义非ASCII字符和反斜杠
+	 * @return UNDERFLOW或OVERFLOW
+	 */
+	public static CoderResult escape(CharBuffer in, ByteBuffer out, boolean nonAsciiOnly) {
+		int n = in.remaining();
+		int i = 0;
+		try {
+			for (; i < n; i++) {
+				char c = in.charAt(i);
+				if (needsEscape(c, nonAsciiOnly)) {
+					if (out.remaining() < ESCAPE_LENGTH) {
+						return CoderResult.OVERFLOW;
+					}
+					out.put((byte) '\\').put((byte) 'u').put((byte) HEX[c >>> 12]).put((byte) HEX[(c >>> 8) & 0xf])
+							.put((byte) HEX[(c >>> 4) & 0xf]).put((byte) HEX[c & 0xf]);
+				} else {
+					if (!out.hasRemaining()) {
+						return CoderResult.OVERFLOW;
+					}
+					out.put((byte) c);
+				}
+			}
+			return CoderResult.UNDERFLOW;
+		} finally {
+			in.position(in.position() + i);
+		}
+	}
+
+	/**
+	 * 批量解码到字符缓冲区
+	 *
+	 * @param in 转义后的文本
+	 * @param out 接收解码后的文本
+	 * @param endOfInput 之后是否没有更多的输入; 为false时末尾不完整的转义留在输入中
+	 * @return UNDERFLOW或OVERFLOW
+	 */
+	public static CoderResult unescape(CharBuffer in, CharBuffer out, boolean endOfInput) {
+		int n = in.remaining();
+		int i = 0;
+		try {
+			while (i < n) {
+				if (!endOfInput && isPartialEscape(in, i, n)) {
+					return CoderResult.UNDERFLOW;
+				}
+				if (!out.hasRemaining()) {
+					return CoderResult.OVERFLOW;
+				}
+				int unit = unitAt(in, i, n);
+				out.put((char) unit);
+				i += unit >>> 16;
+			}
+			return CoderResult.UNDERFLOW;
+		} finally {
+			in.position(in.position() + i);
+		}
+	}
+
+	/**
+	 * 批量解码成UTF-8字节. 代理对(无论是否转义)合并成一个四字节的字符, 单独的代理写成'?',
+	 * 和String.getBytes一样.
+	 *
+	 * @param in 转义后的文本
+	 * @param out 接收UTF-8字节, 可以是直接缓冲区
+	 * @param endOfInput 之后是否没有更多的输入; 为false时末尾不完整的转义或代理对留在输入中
+	 * @return UNDERFLOW或OVERFLOW
+	 */
+	public static CoderResult unescape(CharBuffer in, ByteBuffer out, boolean endOfInput) {
+		int n = in.remaining();
+		int i = 0;
+		try {
+			while (i < n) {
+				if (!endOfInput && isPartialEscape(in, i, n)) {
+					return CoderResult.UNDERFLOW;
+				}
+				int unit = unitAt(in, i, n);
+				char c = (char) unit;
+				int consumed = unit >>> 16;
+				if (c < 0x80) {
+					if (!out.hasRemaining()) {
+						return CoderResult.OVERFLOW;
+					}
+					out.put((byte) c);
+				} else if (c < 0x800) {
+					if (out.remaining() < 2) {
+						return CoderResult.OVERFLOW;
+					}
+					out.put((byte) (0xc0 | c >> 6)).put((byte) (0x80 | c & 0x3f));
+				} else if (Character.isHighSurrogate(c)) {
+					int j = i + consumed;
+					if (!endOfInput && (j == n || isPartialEscape(in, j, n))) {
+						return CoderResult.UNDERFLOW;
+					}
+					int low = j < n ? unitAt(in, j, n) : 0;
+					if (Character.isLowSurrogate((char) low)) {
+						if (out.remaining() < 4) {
+							return CoderResult.OVERFLOW;
+						}
+						int cp = Character.toCodePoint(c, (char) low);
+						out.put((byte) (0xf0 | cp >> 18)).put((byte) (0x80 | cp >> 12 & 0x3f))
+								.put((byte) (0x80 | cp >> 6 & 0x3f)).put((byte) (0x80 | cp & 0x3f));
+						consumed += low >>> 16;
+					} else {
+						if (!out.hasRemaining()) {
+							return CoderResult.OVERFLOW;
+						}
+						out.put((byte) '?');
+					}
+				} else if (Character.isLowSurrogate(c)) {
+					if (!out.hasRemaining()) {
+						return CoderResult.OVERFLOW;
+					}
+					out.put((byte) '?');
+				} else {
+					if (out.remaining() < 3) {
+						return CoderResult.OVERFLOW;
+					}
+					out.put((byte) (0xe0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3f)).put((byte) (0x80 | c & 0x3f));
+				}
+				i += consumed;
+			}
+			return CoderResult.UNDERFLOW;
+		} finally {
+			in.position(in.position() + i);
+		}
+	}
+
+	/**
+	 * 位置i处的一个字符: 低16位是字符, 高位是占用的输入长度
+	 */
+	private static int unitAt(CharSequence text, int i, int to) {
+		char c = text.charAt(i);
+		if (c == '\\') {
+			int value = escapeAt(text, i, to);
+			if (value >= 0) {
+				return value | ESCAPE_LENGTH << 16;
+			}
+		}
+		return c | 1 << 16;
+	}
+
+	/**
+	 * 位置i到to是否是一个被截断的转义, 补充输入后可能成为完整的转义
+	 */
+	private static boolean isPartialEscape(CharSequence text, int i, int to) {
+		if (to - i >= ESCAPE_LENGTH || text.charAt(i) != '\\') {
+			return false;
+		}
+		if (i + 1 < to && text.charAt(i + 1) != 'u') {
+			return false;
+		}
+		for (int j = i + 2; j < to; j++) {
+			char c = text.charAt(j);
+			if (c >= 128 || HEX_VALUE[c] < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 从from开始第一个完整转义的位置
+	 *
+	 * @return 没有时返回-1
+	 */
+	static int indexOfEscape(CharSequence text, int from, int to, boolean strict) {
+		for (int i = from; i < to; i++) {
+			if (text.charAt(i) == '\\' && decodeAt(text, i, to, strict) >= 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 位置i处的转义: 低16位是字符, 高位是转义的长度
+	 *
+	 * @param strict 为false时 \\u 后面有一到四位十六进制数字就是转义
+	 * @return 不是转义时返回-1
+	 */
+	private static int decodeAt(CharSequence text, int i, int to, boolean strict) {
+		if (strict) {
+			int value = escapeAt(text, i, to);
+			return value < 0 ? -1 : value | ESCAPE_LENGTH << 16;
+		}
+		if (to - i < 3 || text.charAt(i) != '\\' || text.charAt(i + 1) != 'u') {
+			return -1;
+		}
+		int end = Math.min(to, i + ESCAPE_LENGTH);
+		int value = 0;
+		int j = i + 2;
+		for (; j < end; j++) {
+			char c = text.charAt(j);
+			int digit = c < 128 ? HEX_VALUE[c] : -1;
+			if (digit < 0) {
+				break;
+			}
+			value = value << 4 | digit;
+		}
+		return j == i + 2 ? -1 : value | (j - i) << 16;
+	}
+
+	/**
+	 * 位置i处转义的字符值
+	 *
+	 * @return 不是完整的转义时返回-1
+	 */
+	static int escapeAt(CharSequence text, int i, int to) {
+		if (to - i < ESCAPE_LENGTH || text.charAt(i) != '\\' || text.charAt(i + 1) != 'u') {
+			return -1;
+		}
+		int value = 0;
+		for (int j = i + 2; j < i + ESCAPE_LENGTH; j++) {
+			char c = text.charAt(j);
+			int digit = c < 128 ? HEX_VALUE[c] : -1;
+			if (digit < 0) {
+				return -1;
+			}
+			value = value << 4 | digit;
+		}
+		return value;
+	}
+
+	static boolean needsEscape(char c, boolean nonAsciiOnly) {
+		return !nonAsciiOnly || c > 0x7f || c == '\\';
+	}
+
+	/**
+	 * 在pos处写入c的六个字符的转义
+	 */
+	static void write(char[] buf, int pos, char c) {
+		buf[pos] = '\\';
+		buf[pos + 1] = 'u';
+		buf[pos + 2] = HEX[c >>> 12];
+		buf[pos + 3] = HEX[(c >>> 8) & 0xf];
+		buf[pos + 4] = HEX[(c >>> 4) & 0xf];
+		buf[pos + 5] = HEX[c & 0xf];
+	}
+}
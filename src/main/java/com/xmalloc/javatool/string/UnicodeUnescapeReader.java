@@ -0,0 +1,144 @@
+package com.xmalloc.javatool.string;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * 边读边解码 \\uXXXX 转义的Reader, 规则和严格模式的 {@link UnicodeEscape#unescape(CharSequence, boolean)} 相同.
+ *
+ * 输入通过一个固定大小的缓冲区逐段读取, 跨越两次读取的转义也能正确解码. 不支持mark/reset.
+ */
+public class UnicodeUnescapeReader extends FilterReader {
+
+	/** 默认的缓冲区字符数 */
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private final char[] chars;
+	private final CharBuffer text;
+	/** 缓冲区中未处理的部分 [start, limit) */
+	private int start;
+	private int limit;
+	private boolean eof;
+	private char[] skipBuffer;
+
+	public UnicodeUnescapeReader(Reader in) {
+		this(in, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param in 转义后的文本
+	 * @param bufferSize 缓冲区字符数, 不能小于一个转义的长度
+	 */
+	public UnicodeUnescapeReader(Reader in, int bufferSize) {
+		super(in);
+		if (bufferSize < UnicodeEscape.ESCAPE_LENGTH) {
+			throw new IllegalArgumentException("bufferSize too small: " + bufferSize);
+		}
+		this.chars = new char[bufferSize];
+		this.text = CharBuffer.wrap(chars);
+	}
+
+	@Override
+	public int read() throws IOException {
+		char[] one = new char[1];
+		return read(one, 0, 1) < 0 ? -1 : one[0];
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		if (off < 0 || len < 0 || len > cbuf.length - off) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+		synchronized (lock) {
+			int n = 0;
+			while (n < len) {
+				if (limit - start < UnicodeEscape.ESCAPE_LENGTH && !eof) {
+					// 已经读到字符时不再等待新的输入
+					if (n > 0 && !in.ready()) {
+						break;
+					}
+					fill();
+					continue;
+				}
+				if (start == limit) {
+					break;
+				}
+				char c = chars[start];
+				int value = c == '\\' ? UnicodeEscape.escapeAt(text, start, limit) : -1;
+				if (value >= 0) {
+					cbuf[off + n++] = (char) value;
+					start += UnicodeEscape.ESCAPE_LENGTH;
+				} else {
+					cbuf[off + n++] = c;
+					start++;
+				}
+			}
+			return n == 0 ? -1 : n;
+		}
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		if (n < 0) {
+			throw new IllegalArgumentException("skip value is negative");
+		}
+		synchronized (lock) {
+			if (skipBuffer == null) {
+				skipBuffer = new char[512];
+			}
+			long remaining = n;
+			while (remaining > 0) {
+				int count = read(skipBuffer, 0, (int) Math.min(remaining, skipBuffer.length));
+				if (count < 0) {
+					break;
+				}
+				remaining -= count;
+			}
+			return n - remaining;
+		}
+	}
+
+	@Override
+	public boolean ready() throws IOException {
+		synchronized (lock) {
+			return limit - start >= UnicodeEscape.ESCAPE_LENGTH || (eof ? start < limit : in.ready());
+		}
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	@Override
+	public void mark(int readAheadLimit) throws IOException {
+		throw new IOException("mark() not supported");
+	}
+
+	@Override
+	public void reset() throws IOException {
+		throw new IOException("reset() not supported");
+	}
+
+	/**
+	 * 把未处理的部分移到缓冲区开头, 再读一次输入
+	 */
+	private void fill() throws IOException {
+		if (start > 0) {
+			System.arraycopy(chars, start, chars, 0, limit - start);
+			limit -= start;
+			start = 0;
+		}
+		int count = in.read(chars, limit, chars.length - limit);
+		if (count < 0) {
+			eof = true;
+		} else {
+			limit += count;
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package com.xmalloc.javatool.string;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 判断文本是否全是空白, 空白的定义和 {@link Character#isWhitespace(int)} 相同.
+ *
+ * ASCII空白用一个位掩码判断, 每次检查8个字符, 整块都是ASCII空白时一次跳过; 遇到非ASCII字符时
+ * 才调用Character.isWhitespace. 字节按UTF-8解码, 不完整或不合法的UTF-8序列不算空白.
+ */
+final class Whitespace {
+
+	/** 每次检查的字符数 */
+	private static final int BLOCK = 8;
+
+	/** ASCII空白: \t \n \u000B \f \r, \u001C-\u001F 和空格 */
+	private static final long ASCII_MASK = 1L << '\t' | 1L << '\n' | 1L << 0x0b | 1L << '\f' | 1L << '\r' | 1L << 0x1c
+			| 1L << 0x1d | 1L << 0x1e | 1L << 0x1f | 1L << ' ';
+
+	/** 各长度序列能表示的最小码点, 更小的是过长编码 */
+	private static final int[] MIN_CODE_POINT = { 0, 0, 0x80, 0x800, 0x10000 };
+
+	private Whitespace() {
+	}
+
+	static boolean isBlank(CharSequence s) {
+		int length = s.length();
+		int i = 0;
+		for (int end = length - BLOCK; i <= end; i += BLOCK) {
+			int c0 = s.charAt(i), c1 = s.charAt(i + 1), c2 = s.charAt(i + 2), c3 = s.charAt(i + 3);
+			int c4 = s.charAt(i + 4), c5 = s.charAt(i + 5), c6 = s.charAt(i + 6), c7 = s.charAt(i + 7);
+			// 8个字符都不大于空格时按位掩码判断整块, 否则逐个判断
+			boolean small = ((c0 - 33) & (c1 - 33) & (c2 - 33) & (c3 - 33) & (c4 - 33) & (c5 - 33) & (c6 - 33)
+					& (c7 - 33)) < 0;
+			if (small && (ASCII_MASK >>> c0 & ASCII_MASK >>> c1 & ASCII_MASK >>> c2 & ASCII_MASK >>> c3
+					& ASCII_MASK >>> c4 & ASCII_MASK >>> c5 & ASCII_MASK >>> c6 & ASCII_MASK >>> c7 & 1) != 0) {
+				continue;
+			}
+			for (int j = i; j < i + BLOCK; j++) {
+				if (!isWhitespace(s.charAt(j))) {
+					return false;
+				}
+			}
+		}
+		for (; i < length; i++) {
+			if (!isWhitespace(s.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static boolean isBlankUtf8(byte[] bytes, int from, int to) {
+		int i = from;
+		while (i < to) {
+			if (to - i >= BLOCK) {
+				int b0 = bytes[i], b1 = bytes[i + 1], b2 = bytes[i + 2], b3 = bytes[i + 3];
+				int b4 = bytes[i + 4], b5 = bytes[i + 5], b6 = bytes[i + 6], b7 = bytes[i + 7];
+				// 非ASCII字节是负数, 也满足小于33, 但会被下面的0..32检查排除
+				boolean small = ((b0 - 33) & (b1 - 33) & (b2 - 33) & (b3 - 33) & (b4 - 33) & (b5 - 33) & (b6 - 33)
+						& (b7 - 33)) < 0 && (b0 | b1 | b2 | b3 | b4 | b5 | b6 | b7) >= 0;
+				if (small && (ASCII_MASK >>> b0 & ASCII_MASK >>> b1 & ASCII_MASK >>> b2 & ASCII_MASK >>> b3
+						& ASCII_MASK >>> b4 & ASCII_MASK >>> b5 & ASCII_MASK >>> b6 & ASCII_MASK >>> b7 & 1) != 0) {
+					i += BLOCK;
+					continue;
+				}
+			}
+			int b = bytes[i];
+			if (b >= 0) {
+				if (!isAsciiWhitespace(b)) {
+					return false;
+				}
+				i++;
+				continue;
+			}
+			int length = sequenceLength(b);
+			if (length == 0 || to - i < length) {
+				return false;
+			}
+			int cp = b & (0xff >> (length + 1));
+			for (int j = i + 1; j < i + length; j++) {
+				if ((bytes[j] & 0xc0) != 0x80) {
+					return false;
+				}
+				cp = cp << 6 | bytes[j] & 0x3f;
+			}
+			if (!isWhitespace(cp, length)) {
+				return false;
+			}
+			i += length;
+		}
+		return true;
+	}
+
+	/**
+	 * 判断从position到limit的字节, 不改变buffer的position
+	 */
+	static boolean isBlankUtf8(ByteBuffer buffer) {
+		if (buffer.hasArray()) {
+			int offset = buffer.arrayOffset();
+			return isBlankUtf8(buffer.array(), offset + buffer.position(), offset + buffer.limit());
+		}
+		int to = buffer.limit();
+		int i = buffer.position();
+		while (i < to) {
+			int b = buffer.get(i);
+			if (b >= 0) {
+				if (!isAsciiWhitespace(b)) {
+					return false;
+				}
+				i++;
+				continue;
+			}
+			int length = sequenceLength(b);
+			if (length == 0 || to - i < length) {
+				return false;
+			}
+			int cp = b & (0xff >> (length + 1));
+			for (int j = i + 1; j < i + length; j++) {
+				int next = buffer.get(j);
+				if ((next & 0xc0) != 0x80) {
+					return false;
+				}
+				cp = cp << 6 | next & 0x3f;
+			}
+			if (!isWhitespace(cp, length)) {
+				return false;
+			}
+			i += length;
+		}
+		return true;
+	}
+
+	static boolean isWhitespace(char c) {
+		return c < 128 ? isAsciiWhitespace(c) : Character.isWhitespace(c);
+	}
+
+	private static boolean isAsciiWhitespace(int c) {
+		return c <= ' ' && (ASCII_MASK >>> c & 1) != 0;
+	}
+
+	/**
+	 * 判断解码出的码点, 过长编码, 代理区和超出U+10FFFF的码点和解码器一样算不合法
+	 *
+	 * @param length 序列的字节数
+	 */
+	private static boolean isWhitespace(int cp, int length) {
+		if (cp < MIN_CODE_POINT[length] || cp > Character.MAX_CODE_POINT
+				|| (cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE)) {
+			return false;
+		}
+		return Character.isWhitespace(cp);
+	}
+
+	/**
+	 * UTF-8首字节对应的序列长度, 不是首字节时返回0
+	 */
+	private static int sequenceLength(int b) {
+		if ((b & 0xe0) == 0xc0) {
+			return 2;
+		}
+		if ((b & 0xf0) == 0xe0) {
+			return 3;
+		}
+		if ((b & 0xf8) == 0xf0) {
+			return 4;
+		}
+		return 0;
+	}
+}
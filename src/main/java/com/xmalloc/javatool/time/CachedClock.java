@@ -0,0 +1,178 @@
+package com.xmalloc.javatool.time;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * 按秒缓存的时钟, 输出格式 yyyy-MM-dd HH:mm:ss.
+ *
+ * 同一秒内的调用直接返回缓存的字符串; 进入新的一秒时只重写时分秒, 日期部分沿用当天缓存的前缀.
+ * 缓存通过一个volatile引用发布, 多线程调用不加锁, 并发刷新时谁最后写入都是正确的结果.
+ *
+ * 指定时区的实例一直使用创建时的时区. {@link #getDefault()} 的实例和以前的new Date()格式化一样跟随
+ * JVM默认时区, 每进入新的一秒时重新读取一次, 所以TimeZone.setDefault最晚在下一秒生效.
+ */
+public final class CachedClock {
+
+	private static final CachedClock DEFAULT = new CachedClock();
+
+	/** 格式化后 yyyy-MM-dd HH:mm:ss 的长度 */
+	private static final int TIME_LENGTH = 19;
+	/** 格式化后 yyyy-MM-dd 的长度 */
+	private static final int DATE_LENGTH = 10;
+
+	/** 本地时间的格里高利历起点 1582-10-15 */
+	private static final long MIN_FAST_MILLIS = -12219292800000L;
+	/** 本地时间 10000-01-01, 之后年份超过四位 */
+	private static final long MAX_FAST_MILLIS = 253402300800000L;
+
+	/** 固定的时区, null表示跟随JVM默认时区 */
+	private final TimeZone zone;
+	private volatile Tick tick;
+
+	/**
+	 * 某一秒的渲染结果, 创建后不再修改
+	 */
+	private static final class Tick {
+		final long second;
+		final long day;
+		final String date;
+		final String time;
+		/** 这一秒使用的时区 */
+		final TimeZone zone;
+
+		Tick(long second, long day, String date, String time, TimeZone zone) {
+			this.second = second;
+			this.day = day;
+			this.date = date;
+			this.time = time;
+			this.zone = zone;
+		}
+	}
+
+	public CachedClock(TimeZone zone) {
+		this.zone = (TimeZone) zone.clone();
+		this.tick = new Tick(Long.MIN_VALUE, Long.MIN_VALUE, null, null, this.zone);
+	}
+
+	private CachedClock() {
+		this.zone = null;
+		this.tick = new Tick(Long.MIN_VALUE, Long.MIN_VALUE, null, null, TimeZone.getDefault());
+	}
+
+	/**
+	 * 跟随JVM默认时区的共享实例
+	 *
+	 * @return
+	 */
+	public static CachedClock getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * 当前时间
+	 *
+	 * @return yyyy-MM-dd HH:mm:ss
+	 */
+	public String currentTime() {
+		return current().time;
+	}
+
+	/**
+	 * 当前日期
+	 *
+	 * @return yyyy-MM-dd
+	 */
+	public String currentDate() {
+		return current().date;
+	}
+
+	/**
+	 * 格式化任意时间, 时区和当前时间的缓存相同; 和缓存在同一秒时直接返回缓存, 否则计算但不替换缓存
+	 *
+	 * @param millis 毫秒时间戳
+	 * @return yyyy-MM-dd HH:mm:ss
+	 */
+	public String format(long millis) {
+		Tick t = current();
+		long second = Math.floorDiv(millis, CalendarMath.MILLIS_PER_SECOND);
+		if (t.second == second) {
+			return t.time;
+		}
+		long local = millis + t.zone.getOffset(millis);
+		if (!isFast(local)) {
+			return slowFormat(millis, t.zone);
+		}
+		long day = Math.floorDiv(local, CalendarMath.MILLIS_PER_DAY);
+		String date = t.day == day ? t.date : renderDate(day);
+		return renderTime(date, local);
+	}
+
+	private Tick current() {
+		long millis = System.currentTimeMillis();
+		Tick t = tick;
+		long second = Math.floorDiv(millis, CalendarMath.MILLIS_PER_SECOND);
+		if (t.second == second) {
+			return t;
+		}
+		// TimeZone.getDefault每次返回副本, 只在进入新的一秒时读取
+		TimeZone z = zone != null ? zone : TimeZone.getDefault();
+		long local = millis + z.getOffset(millis);
+		Tick next;
+		if (!isFast(local)) {
+			String time = slowFormat(millis, z);
+			next = new Tick(second, Long.MIN_VALUE, time.substring(0, time.length() - 9), time, z);
+		} else {
+			// 日期字符串只由本地日期决定, 时区变了也可以沿用
+			long day = Math.floorDiv(local, CalendarMath.MILLIS_PER_DAY);
+			String date = t.day == day ? t.date : renderDate(day);
+			next = new Tick(second, day, date, renderTime(date, local), z);
+		}
+		// 时钟回拨或并发刷新时不用较旧的结果覆盖较新的缓存
+		if (second > tick.second) {
+			tick = next;
+		}
+		return next;
+	}
+
+	private static String renderDate(long day) {
+		long civil = CalendarMath.civilFromDays(day);
+		char[] buf = new char[DATE_LENGTH];
+		CalendarMath.write4(buf, 0, CalendarMath.year(civil));
+		buf[4] = '-';
+		CalendarMath.write2(buf, 5, CalendarMath.month(civil));
+		buf[7] = '-';
+		CalendarMath.write2(buf, 8, CalendarMath.day(civil));
+		return new String(buf);
+	}
+
+	/**
+	 * 沿用日期前缀, 只写入时分秒
+	 */
+	private static String renderTime(String date, long local) {
+		int seconds = (int) (Math.floorMod(local, CalendarMath.MILLIS_PER_DAY) / CalendarMath.MILLIS_PER_SECOND);
+		char[] buf = new char[TIME_LENGTH];
+		date.getChars(0, DATE_LENGTH, buf, 0);
+		buf[10] = ' ';
+		CalendarMath.write2(buf, 11, seconds / 3600);
+		buf[13] = ':';
+		CalendarMath.write2(buf, 14, seconds / 60 % 60);
+		buf[16] = ':';
+		CalendarMath.write2(buf, 17, seconds % 60);
+		return new String(buf);
+	}
+
+	private static boolean isFast(long local) {
+		return local >= MIN_FAST_MILLIS && local < MAX_FAST_MILLIS;
+	}
+
+	/**
+	 * 儒略历和超过四位的年份交给SimpleDateFormat
+	 */
+	private static String slowFormat(long millis, TimeZone zone) {
+		SimpleDateFormat format = new SimpleDateFormat(TimeTool.FORMAT_LONG);
+		format.setTimeZone(zone);
+		return format.format(new Date(millis));
+	}
+}
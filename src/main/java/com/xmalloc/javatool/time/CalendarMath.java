@@ -0,0 +1,84 @@
+package com.xmalloc.javatool.time;
+
+/**
+ * 公历日期与纪元天数之间的整数换算, 不创建Calendar对象.
+ *
+ * 只适用于格里高利历(1582-10-15之后), 更早的日期需要调用方自己回退到Calendar.
+ */
+final class CalendarMath {
+
+	static final long MILLIS_PER_SECOND = 1000L;
+	static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+	static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+	private CalendarMath() {
+	}
+
+	/**
+	 * 计算公历日期距1970-01-01的天数. 月份超出1-12时按宽松模式进位, 与Calendar的lenient行为一致.
+	 *
+	 * @param year 年
+	 * @param month 月, 从1开始
+	 * @param day 日, 从1开始
+	 * @return 纪元天数
+	 */
+	static long daysFromCivil(long year, long month, long day) {
+		long m0 = month - 1;
+		year += Math.floorDiv(m0, 12);
+		month = Math.floorMod(m0, 12) + 1;
+		// 以3月为一年的开始, 闰日落在年末
+		year -= month <= 2 ? 1 : 0;
+		long era = Math.floorDiv(year, 400);
+		long yoe = year - era * 400;
+		long doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5;
+		long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+		return era * 146097 + doe - 719468 + (day - 1);
+	}
+
+	/**
+	 * 纪元天数转公历日期.
+	 *
+	 * @param days 距1970-01-01的天数
+	 * @return 打包的日期, 用{@link #year(long)}, {@link #month(long)}, {@link #day(long)}取出各字段
+	 */
+	static long civilFromDays(long days) {
+		long z = days + 719468;
+		long era = Math.floorDiv(z, 146097);
+		long doe = z - era * 146097;
+		long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+		long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+		long mp = (5 * doy + 2) / 153;
+		long day = doy - (153 * mp + 2) / 5 + 1;
+		long month = mp < 10 ? mp + 3 : mp - 9;
+		long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+		return (year << 9) | (month << 5) | day;
+	}
+
+	static int year(long civil) {
+		return (int) (civil >> 9);
+	}
+
+	static int month(long civil) {
+		return (int) (civil >> 5) & 0xf;
+	}
+
+	static int day(long civil) {
+		return (int) civil & 0x1f;
+	}
+
+	/**
+	 * 写入两位数字
+	 */
+	static void write2(char[] buf, int off, int value) {
+		buf[off] = (char) ('0' + value / 10);
+		buf[off + 1] = (char) ('0' + value % 10);
+	}
+
+	/**
+	 * 写入四位数字
+	 */
+	static void write4(char[] buf, int off, int value) {
+		write2(buf, off, value / 100);
+		write2(buf, off + 2, value % 100);
+	}
+}
@@ -0,0 +1,256 @@
+package com.xmalloc.javatool.time;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按格式字符串和时区缓存编译好的日期格式. 时区按ID和规则区分, 同一个ID的自定义时区规则不同时各自缓存.
+ *
+ * 缓存有容量上限, 超出时用时钟算法(second chance)淘汰近期没有用到的格式. 每个格式内部是一个很小的
+ * SimpleDateFormat池, 线程借用后归还, 所以大量的池化线程或虚拟线程不会各自持有一个SimpleDateFormat.
+ */
+public final class DateFormatCache {
+
+	/** 默认缓存的格式数 */
+	public static final int DEFAULT_MAX_SIZE = 64;
+
+	private static final DateFormatCache DEFAULT = new DateFormatCache(DEFAULT_MAX_SIZE);
+
+	/** 每个格式池中最多保留的SimpleDateFormat数 */
+	private static final int POOL_SIZE = Math.min(8, Runtime.getRuntime().availableProcessors());
+
+	private final int maxSize;
+	private final ConcurrentHashMap<Key, Formatter> formatters = new ConcurrentHashMap<Key, Formatter>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public DateFormatCache(int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+		}
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * 全局共享的缓存
+	 *
+	 * @return
+	 */
+	public static DateFormatCache getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * 取得默认时区的格式
+	 *
+	 * @param pattern SimpleDateFormat格式字符串
+	 * @return 线程安全的格式
+	 * @throws IllegalArgumentException 格式字符串不合法
+	 */
+	public Formatter get(String pattern) {
+		return get(pattern, null);
+	}
+
+	/**
+	 * 取得指定时区的格式
+	 *
+	 * @param pattern SimpleDateFormat格式字符串
+	 * @param zone 时区, null表示创建格式时的默认时区
+	 * @return 线程安全的格式
+	 * @throws IllegalArgumentException 格式字符串不合法
+	 */
+	public Formatter get(String pattern, TimeZone zone) {
+		Formatter formatter = formatters.get(new Key(pattern, zone));
+		if (formatter != null) {
+			hits.increment();
+			formatter.touch();
+			return formatter;
+		}
+		misses.increment();
+		// 调用方之后修改时区不能影响缓存的格式
+		TimeZone copy = zone == null ? null : (TimeZone) zone.clone();
+		Formatter created = new Formatter(pattern, copy);
+		formatter = formatters.putIfAbsent(new Key(pattern, copy), created);
+		if (formatter != null) {
+			formatter.touch();
+			return formatter;
+		}
+		if (formatters.size() > maxSize) {
+			evict();
+		}
+		return created;
+	}
+
+	/**
+	 * 格式化日期
+	 *
+	 * @param date 日期
+	 * @param pattern 格式字符串
+	 * @return
+	 */
+	public String format(Date date, String pattern) {
+		return get(pattern).format(date);
+	}
+
+	/**
+	 * 解析日期
+	 *
+	 * @param date 日期字符串
+	 * @param pattern 格式字符串
+	 * @return
+	 * @throws ParseException
+	 */
+	public Date parse(String date, String pattern) throws ParseException {
+		return get(pattern).parse(date);
+	}
+
+	public long hitCount() {
+		return hits.sum();
+	}
+
+	public long missCount() {
+		return misses.sum();
+	}
+
+	public long evictionCount() {
+		return evictions.sum();
+	}
+
+	public int size() {
+		return formatters.size();
+	}
+
+	/**
+	 * 时钟算法淘汰: 清除沿途格式的访问标记, 淘汰第一个没有标记的格式
+	 */
+	private void evict() {
+		while (formatters.size() > maxSize) {
+			Map.Entry<Key, Formatter> victim = null;
+			for (Iterator<Map.Entry<Key, Formatter>> it = formatters.entrySet().iterator(); it.hasNext();) {
+				Map.Entry<Key, Formatter> entry = it.next();
+				if (victim == null) {
+					victim = entry;
+				}
+				if (!entry.getValue().referenced) {
+					victim = entry;
+					break;
+				}
+				entry.getValue().referenced = false;
+			}
+			if (victim == null) {
+				return;
+			}
+			if (formatters.remove(victim.getKey(), victim.getValue())) {
+				evictions.increment();
+			}
+		}
+	}
+
+	private static final class Key {
+		final String pattern;
+		final TimeZone zone;
+
+		Key(String pattern, TimeZone zone) {
+			if (pattern == null) {
+				throw new NullPointerException("pattern");
+			}
+			this.pattern = pattern;
+			this.zone = zone;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			if (!pattern.equals(other.pattern)) {
+				return false;
+			}
+			if (zone == null || other.zone == null) {
+				return zone == other.zone;
+			}
+			return zone.getID().equals(other.zone.getID()) && zone.hasSameRules(other.zone);
+		}
+
+		@Override
+		public int hashCode() {
+			return pattern.hashCode() * 31 + (zone == null ? 0 : zone.getID().hashCode());
+		}
+	}
+
+	/**
+	 * 线程安全的日期格式, 内部借用池中的SimpleDateFormat, 池空时复制原型
+	 */
+	public static final class Formatter {
+		private final SimpleDateFormat prototype;
+		private final TimeZone zone;
+		private final AtomicReferenceArray<SimpleDateFormat> pool = new AtomicReferenceArray<SimpleDateFormat>(
+				POOL_SIZE);
+		volatile boolean referenced = true;
+
+		Formatter(String pattern, TimeZone zone) {
+			prototype = new SimpleDateFormat(pattern);
+			if (zone != null) {
+				prototype.setTimeZone(zone);
+			}
+			this.zone = prototype.getTimeZone();
+		}
+
+		public String format(Date date) {
+			SimpleDateFormat format = borrow();
+			try {
+				return format.format(date);
+			} finally {
+				release(format);
+			}
+		}
+
+		public Date parse(String date) throws ParseException {
+			SimpleDateFormat format = borrow();
+			try {
+				return format.parse(date);
+			} finally {
+				// 解析带时区的字符串会修改格式的时区, 归还前恢复
+				format.setTimeZone(zone);
+				release(format);
+			}
+		}
+
+		public String toPattern() {
+			return prototype.toPattern();
+		}
+
+		void touch() {
+			if (!referenced) {
+				referenced = true;
+			}
+		}
+
+		private SimpleDateFormat borrow() {
+			for (int i = 0; i < POOL_SIZE; i++) {
+				SimpleDateFormat format = pool.get(i);
+				if (format != null && pool.compareAndSet(i, format, null)) {
+					return format;
+				}
+			}
+			return (SimpleDateFormat) prototype.clone();
+		}
+
+		private void release(SimpleDateFormat format) {
+			for (int i = 0; i < POOL_SIZE; i++) {
+				if (pool.get(i) == null && pool.compareAndSet(i, null, format)) {
+					return;
+				}
+			}
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package com.xmalloc.javatool.time;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.DateFormat;
 import java.text.DateFormatSymbols;
 import java.text.ParseException;
@@ -8,6 +10,7 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.Locale;
+import java.util.SimpleTimeZone;
 import java.util.TimeZone;
 
 /**
@@ -36,6 +39,15 @@ public class DateTool {
 	 */
 	public static final TimeZone MIDDAY = TimeZone.getTimeZone("GMT-12:00");
 
+	/** Length of the "yyyy-MM-ddTHH:mm:ssZ" representation. */
+	public static final int ISO_LENGTH = 20;
+
+	/** 1582-10-15T00:00:00Z, before which Calendar switches to the Julian calendar. */
+	private static final long MIN_FAST_MILLIS = -12219292800000L;
+
+	/** 10000-01-01T00:00:00Z, from which the year needs more than four digits. */
+	private static final long MAX_FAST_MILLIS = 253402300800000L;
+
 	/**
 	 * Returns a ISO 8601 representation of the given date. This method is
 	 * thread safe and non-blocking.
@@ -46,9 +58,23 @@ public class DateTool {
 	 * @return ISO 8601 date string, including timezone details
 	 */
 	public static String formatDate(Date date) {
-		Calendar calendar = GregorianCalendar.getInstance(UTC, Locale.US);
-		calendar.setTime(date);
-		return doFormatDate(calendar);
+		return formatDate(date.getTime());
+	}
+
+	/**
+	 * Returns a ISO 8601 representation of the given epoch millis. This method
+	 * is thread safe and non-blocking.
+	 *
+	 * @param millis milliseconds since 1970-01-01T00:00:00Z
+	 * @return ISO 8601 date string, including timezone details
+	 */
+	public static String formatDate(long millis) {
+		if (!isFast(millis)) {
+			return slowFormat(millis);
+		}
+		char[] buf = new char[ISO_LENGTH];
+		formatDate(millis, buf, 0);
+		return new String(buf);
 	}
 
 	/**
@@ -63,7 +89,124 @@ public class DateTool {
 	public static String formatDate(Calendar date) {
 		// Explicitly switch it into UTC before formatting 
 		date.setTimeZone(UTC);
-		return doFormatDate(date);
+		return formatDate(date.getTimeInMillis());
+	}
+
+	/**
+	 * Writes the ISO 8601 representation of the given epoch millis into a
+	 * caller supplied buffer, so it can be reused between calls. The buffer
+	 * needs {@link #ISO_LENGTH} free chars for years 1582 to 9999.
+	 *
+	 * @param millis milliseconds since 1970-01-01T00:00:00Z
+	 * @param buf target buffer
+	 * @param offset index of the first char to write
+	 * @return index after the last char written
+	 */
+	public static int formatDate(long millis, char[] buf, int offset) {
+		if (!isFast(millis)) {
+			String formatted = slowFormat(millis);
+			formatted.getChars(0, formatted.length(), buf, offset);
+			return offset + formatted.length();
+		}
+		long civil = CalendarMath.civilFromDays(Math.floorDiv(millis, CalendarMath.MILLIS_PER_DAY));
+		int seconds = secondOfDay(millis);
+		CalendarMath.write4(buf, offset, CalendarMath.year(civil));
+		buf[offset + 4] = '-';
+		CalendarMath.write2(buf, offset + 5, CalendarMath.month(civil));
+		buf[offset + 7] = '-';
+		CalendarMath.write2(buf, offset + 8, CalendarMath.day(civil));
+		buf[offset + 10] = 'T';
+		CalendarMath.write2(buf, offset + 11, seconds / 3600);
+		buf[offset + 13] = ':';
+		CalendarMath.write2(buf, offset + 14, seconds / 60 % 60);
+		buf[offset + 16] = ':';
+		CalendarMath.write2(buf, offset + 17, seconds % 60);
+		buf[offset + 19] = 'Z';
+		return offset + ISO_LENGTH;
+	}
+
+	/**
+	 * Appends the ISO 8601 representation of the given epoch millis.
+	 *
+	 * @param millis milliseconds since 1970-01-01T00:00:00Z
+	 * @param sb target builder
+	 * @return the given builder
+	 */
+	public static StringBuilder formatDate(long millis, StringBuilder sb) {
+		if (!isFast(millis)) {
+			return sb.append(slowFormat(millis));
+		}
+		long civil = CalendarMath.civilFromDays(Math.floorDiv(millis, CalendarMath.MILLIS_PER_DAY));
+		int seconds = secondOfDay(millis);
+		int year = CalendarMath.year(civil);
+		append2(sb, year / 100);
+		append2(sb, year % 100);
+		append2(sb.append('-'), CalendarMath.month(civil));
+		append2(sb.append('-'), CalendarMath.day(civil));
+		append2(sb.append('T'), seconds / 3600);
+		append2(sb.append(':'), seconds / 60 % 60);
+		append2(sb.append(':'), seconds % 60);
+		return sb.append('Z');
+	}
+
+	/**
+	 * Appends the ISO 8601 representation of the given epoch millis, for
+	 * example straight into a {@link java.io.Writer}.
+	 *
+	 * @param millis milliseconds since 1970-01-01T00:00:00Z
+	 * @param out target appendable
+	 * @throws IOException if the appendable fails
+	 */
+	public static void formatDate(long millis, Appendable out) throws IOException {
+		if (out instanceof StringBuilder) {
+			formatDate(millis, (StringBuilder) out);
+			return;
+		}
+		if (!isFast(millis)) {
+			out.append(slowFormat(millis));
+			return;
+		}
+		long civil = CalendarMath.civilFromDays(Math.floorDiv(millis, CalendarMath.MILLIS_PER_DAY));
+		int seconds = secondOfDay(millis);
+		int year = CalendarMath.year(civil);
+		append2(out, year / 100);
+		append2(out, year % 100);
+		append2(out.append('-'), CalendarMath.month(civil));
+		append2(out.append('-'), CalendarMath.day(civil));
+		append2(out.append('T'), seconds / 3600);
+		append2(out.append(':'), seconds / 60 % 60);
+		append2(out.append(':'), seconds % 60);
+		out.append('Z');
+	}
+
+	/**
+	 * Writes the ISO 8601 representation of the given epoch millis as ASCII
+	 * bytes at the buffer's position, for wire output.
+	 *
+	 * @param millis milliseconds since 1970-01-01T00:00:00Z
+	 * @param buf target buffer, heap or direct
+	 * @return the given buffer
+	 * @throws java.nio.BufferOverflowException if the buffer is too small
+	 */
+	public static ByteBuffer formatDate(long millis, ByteBuffer buf) {
+		if (!isFast(millis)) {
+			String formatted = slowFormat(millis);
+			for (int i = 0; i < formatted.length(); i++) {
+				buf.put((byte) formatted.charAt(i));
+			}
+			return buf;
+		}
+		long civil = CalendarMath.civilFromDays(Math.floorDiv(millis, CalendarMath.MILLIS_PER_DAY));
+		int seconds = secondOfDay(millis);
+		int year = CalendarMath.year(civil);
+		put2(buf, year / 100);
+		put2(buf, year % 100);
+		put2(buf.put((byte) '-'), CalendarMath.month(civil));
+		put2(buf.put((byte) '-'), CalendarMath.day(civil));
+		put2(buf.put((byte) 'T'), seconds / 3600);
+		put2(buf.put((byte) ':'), seconds / 60 % 60);
+		put2(buf.put((byte) ':'), seconds % 60);
+		return buf.put((byte) 'Z');
 	}
 
 	/**
@@ -76,68 +219,140 @@ public class DateTool {
 	 * @return ISO 8601 date string, without timezone details
 	 */
 	public static String formatDateUnknownTimezone(Date date) {
-		// Create the Calendar object in the system timezone
-		Calendar calendar = GregorianCalendar.getInstance(TimeZone.getDefault(), Locale.US);
-		calendar.setTime(date);
-		// Have it formatted
-		String formatted = formatDate(calendar);
-		// Strip the timezone details before returning
+		// The date is formatted in UTC, strip the timezone details
+		String formatted = formatDate(date.getTime());
 		return formatted.substring(0, formatted.length() - 1);
 	}
 
+	private static boolean isFast(long millis) {
+		return millis >= MIN_FAST_MILLIS && millis < MAX_FAST_MILLIS;
+	}
+
+	private static int secondOfDay(long millis) {
+		return (int) (Math.floorMod(millis, CalendarMath.MILLIS_PER_DAY) / CalendarMath.MILLIS_PER_SECOND);
+	}
+
+	private static void append2(StringBuilder sb, int value) {
+		sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+	}
+
+	private static void append2(Appendable out, int value) throws IOException {
+		out.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+	}
+
+	private static void put2(ByteBuffer buf, int value) {
+		buf.put((byte) ('0' + value / 10)).put((byte) ('0' + value % 10));
+	}
+
+	/**
+	 * Formats Julian and five digit years through the calendar.
+	 */
+	private static String slowFormat(long millis) {
+		Calendar calendar = GregorianCalendar.getInstance(UTC, Locale.US);
+		calendar.setTimeInMillis(millis);
+		return doFormatDate(calendar);
+	}
+
 	private static String doFormatDate(Calendar calendar) {
 		return String.format(Locale.ROOT, "%04d-%02d-%02dT%02d:%02d:%02dZ", calendar.get(Calendar.YEAR),
 				calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH),
 				calendar.get(Calendar.HOUR_OF_DAY), calendar.get(Calendar.MINUTE), calendar.get(Calendar.SECOND));
 	}
 
+	/**
+	 * The default time zone when this class is loaded, used for date strings
+	 * without timezone details.
+	 */
+	private static final TimeZone LOCAL = TimeZone.getDefault();
+
+	/** The first day of the Gregorian calendar, 1582-10-15, in epoch days. */
+	private static final long GREGORIAN_CUTOVER_DAY = -141427;
+
 	/**
 	 * Some parsers will have the date as a ISO-8601 string already, and will
 	 * set that into the Metadata object. So we can return Date objects for
 	 * these, this is the list (in preference order) of the various ISO-8601
-	 * variants that we try when processing a date based property.
-	 */
-	private static final DateFormat[] iso8601InputFormats = new DateFormat[] {
-			// yyyy-mm-ddThh...
-			createDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", UTC), // UTC/Zulu
-			createDateFormat("yyyy-MM-dd'T'HH:mm:ssZ", null), // With timezone
-			createDateFormat("yyyy-MM-dd'T'HH:mm:ss", null), // Without timezone
-			// yyyy-mm-dd hh...
-			createDateFormat("yyyy-MM-dd' 'HH:mm:ss'Z'", UTC), // UTC/Zulu
-			createDateFormat("yyyy-MM-dd' 'HH:mm:ssZ", null), // With timezone
-			createDateFormat("yyyy-MM-dd' 'HH:mm:ss", null), // Without timezone
-			// Date without time, set to Midday UTC
-			createDateFormat("yyyy-MM-dd", MIDDAY), // Normal date format
-			createDateFormat("yyyy:MM:dd", MIDDAY), // Image (IPTC/EXIF) format
+	 * variants that we try when a date string is not handled by the scanner.
+	 * Each thread has its own copies of the thread-unsafe formats.
+	 */
+	private static final ThreadLocal<DateFormat[]> iso8601InputFormats = new ThreadLocal<DateFormat[]>() {
+		@Override
+		protected DateFormat[] initialValue() {
+			return new DateFormat[] {
+					// yyyy-mm-ddThh...
+					createDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", UTC), // UTC/Zulu
+					createDateFormat("yyyy-MM-dd'T'HH:mm:ssZ", LOCAL), // With timezone
+					createDateFormat("yyyy-MM-dd'T'HH:mm:ss", LOCAL), // Without timezone
+					// yyyy-mm-dd hh...
+					createDateFormat("yyyy-MM-dd' 'HH:mm:ss'Z'", UTC), // UTC/Zulu
+					createDateFormat("yyyy-MM-dd' 'HH:mm:ssZ", LOCAL), // With timezone
+					createDateFormat("yyyy-MM-dd' 'HH:mm:ss", LOCAL), // Without timezone
+					// Date without time, set to Midday UTC
+					createDateFormat("yyyy-MM-dd", MIDDAY), // Normal date format
+					createDateFormat("yyyy:MM:dd", MIDDAY), // Image (IPTC/EXIF) format
+			};
+		}
 	};
 
 	private static DateFormat createDateFormat(String format, TimeZone timezone) {
 		SimpleDateFormat sdf = new SimpleDateFormat(format, new DateFormatSymbols(Locale.US));
-		if (timezone != null) {
-			sdf.setTimeZone(timezone);
-		}
+		sdf.setTimeZone(timezone);
 		return sdf;
 	}
 
 	/**
-	 * Parses the given date string. This method is synchronized to prevent
-	 * concurrent access to the thread-unsafe date formats.
+	 * Parses the given date string. This method is thread safe and
+	 * non-blocking: the common ISO-8601 strings are scanned once by hand
+	 * instead of being tried against a list of shared date formats.
+	 * <p>
+	 * Some parsers will have the date as a ISO-8601 string already, and will
+	 * set that into the Metadata object. So we can return Date objects for
+	 * these, this is the list (in preference order) of the various ISO-8601
+	 * variants that we accept when processing a date based property:
+	 *
+	 * <pre>
+	 * yyyy-MM-dd'T'HH:mm:ss'Z'    UTC/Zulu
+	 * yyyy-MM-dd'T'HH:mm:ssZ      With timezone (+hhmm, or +hh:mm at the end)
+	 * yyyy-MM-dd'T'HH:mm:ss       Without timezone
+	 * yyyy-MM-dd' 'HH:mm:ss...    Same three variants with a space separator
+	 * yyyy-MM-dd                  Date without time, set to Midday UTC
+	 * yyyy:MM:dd                  Image (IPTC/EXIF) format, Midday UTC
+	 * </pre>
+	 *
+	 * Strings the scanner does not consume completely, such as zone names
+	 * ("PST"), signed fields or trailing text, go through the lenient
+	 * {@link SimpleDateFormat}s, so exactly the same inputs are accepted as
+	 * before.
 	 *
 	 * @see <a href="https://issues.apache.org/jira/browse/TIKA-495">TIKA-495
 	 *      </a>
 	 * @param date date string
 	 * @return parsed date, or <code>null</code> if the date can't be parsed
 	 */
-	private static synchronized Date parseDate(String date) {
+	public static Date parseDate(String date) {
+		if (date == null) {
+			return null;
+		}
+		long millis = scanDate(date);
+		if (millis != Long.MIN_VALUE) {
+			return new Date(millis);
+		}
+		return legacyParseDate(date);
+	}
+
+	/**
+	 * Tries the date formats one after another.
+	 */
+	private static Date legacyParseDate(String date) {
 		// Java doesn't like timezones in the form ss+hh:mm
 		// It only likes the hhmm form, without the colon
 		int n = date.length();
-		if (date.charAt(n - 3) == ':' && (date.charAt(n - 6) == '+' || date.charAt(n - 6) == '-')) {
+		if (n >= 6 && date.charAt(n - 3) == ':' && (date.charAt(n - 6) == '+' || date.charAt(n - 6) == '-')) {
 			date = date.substring(0, n - 3) + date.substring(n - 2);
 		}
 
 		// Try several different ISO-8601 variants
-		for (DateFormat format : iso8601InputFormats) {
+		for (DateFormat format : iso8601InputFormats.get()) {
 			try {
 				return format.parse(date);
 			} catch (ParseException ignore) {
@@ -145,4 +360,193 @@ public class DateTool {
 		}
 		return null;
 	}
+
+	/**
+	 * Scans a date string that consists of nothing but one of the ISO-8601
+	 * variants.
+	 *
+	 * @return epoch millis, or {@link Long#MIN_VALUE} if the string has to go
+	 *         through the date formats
+	 */
+	private static long scanDate(String date) {
+		int n = date.length();
+		long r = parseNumber(date, 0);
+		if (r < 0 || (int) r >= n) {
+			return Long.MIN_VALUE;
+		}
+		int year = (int) (r >>> 32);
+		int pos = (int) r;
+		char sep = date.charAt(pos);
+		if (sep != '-' && sep != ':') {
+			return Long.MIN_VALUE;
+		}
+		r = parseNumber(date, pos + 1);
+		if (r < 0 || (int) r >= n || date.charAt((int) r) != sep) {
+			return Long.MIN_VALUE;
+		}
+		int month = (int) (r >>> 32);
+		r = parseNumber(date, (int) r + 1);
+		if (r < 0) {
+			return Long.MIN_VALUE;
+		}
+		int day = (int) (r >>> 32);
+		pos = (int) r;
+
+		if (pos == n) {
+			return toMillis(year, month, day, 0, 0, 0, MIDDAY);
+		}
+		if (sep == '-' && (date.charAt(pos) == 'T' || date.charAt(pos) == ' ')) {
+			return parseTime(date, pos + 1, year, month, day);
+		}
+		return Long.MIN_VALUE;
+	}
+
+	/**
+	 * Parses the "HH:mm:ss[Z|+hhmm|+hh:mm]" part of a date time string, up to
+	 * the end of the string.
+	 *
+	 * @return epoch millis, or {@link Long#MIN_VALUE} if the rest of the
+	 *         string is not such a time
+	 */
+	private static long parseTime(String date, int pos, int year, int month, int day) {
+		int n = date.length();
+		long r = parseNumber(date, pos);
+		if (r < 0 || (int) r >= n || date.charAt((int) r) != ':') {
+			return Long.MIN_VALUE;
+		}
+		int hour = (int) (r >>> 32);
+		r = parseNumber(date, (int) r + 1);
+		if (r < 0 || (int) r >= n || date.charAt((int) r) != ':') {
+			return Long.MIN_VALUE;
+		}
+		int minute = (int) (r >>> 32);
+		r = parseNumber(date, (int) r + 1);
+		if (r < 0) {
+			return Long.MIN_VALUE;
+		}
+		int second = (int) (r >>> 32);
+		pos = (int) r;
+
+		if (pos == n) {
+			return toMillis(year, month, day, hour, minute, second, LOCAL);
+		}
+		char c = date.charAt(pos);
+		if (c == 'Z') {
+			return pos + 1 == n ? toMillis(year, month, day, hour, minute, second, UTC) : Long.MIN_VALUE;
+		}
+		while (isBlank(c) && ++pos < n) {
+			c = date.charAt(pos);
+		}
+		if (c != '+' && c != '-') {
+			return Long.MIN_VALUE;
+		}
+		int offset = parseOffset(date, pos + 1);
+		if (offset < 0) {
+			return Long.MIN_VALUE;
+		}
+		long local = localMillis(year, month, day, hour, minute, second);
+		if (local != Long.MIN_VALUE) {
+			return c == '+' ? local - offset : local + offset;
+		}
+		// Julian dates are rare enough to go through the calendar
+		TimeZone zone = new SimpleTimeZone(c == '+' ? offset : -offset, "Custom");
+		return toMillis(year, month, day, hour, minute, second, zone);
+	}
+
+	/**
+	 * Parses the "hhmm" or "hh:mm" digits of a numeric timezone at the end of
+	 * the string.
+	 *
+	 * @return offset in millis, or -1 if the rest of the string is not a
+	 *         valid offset
+	 */
+	private static int parseOffset(String date, int pos) {
+		int n = date.length();
+		boolean colon = n == pos + 5 && date.charAt(pos + 2) == ':';
+		if (n != pos + 4 && !colon) {
+			return -1;
+		}
+		int m = colon ? pos + 3 : pos + 2;
+		if (!isDigit(date.charAt(pos)) || !isDigit(date.charAt(pos + 1)) || !isDigit(date.charAt(m))
+				|| !isDigit(date.charAt(m + 1))) {
+			return -1;
+		}
+		int hours = (date.charAt(pos) - '0') * 10 + date.charAt(pos + 1) - '0';
+		int minutes = (date.charAt(m) - '0') * 10 + date.charAt(m + 1) - '0';
+		if (hours > 23 || minutes > 59) {
+			return -1;
+		}
+		return (hours * 60 + minutes) * 60000;
+	}
+
+	/**
+	 * Reads up to nine decimal digits starting at the given position, after
+	 * skipping the spaces and tabs the date formats skipped before each field.
+	 *
+	 * @return the value in the high 32 bits and the index after the last
+	 *         digit in the low 32 bits, or -1 if there is no digit
+	 */
+	private static long parseNumber(String s, int pos) {
+		while (pos < s.length() && isBlank(s.charAt(pos))) {
+			pos++;
+		}
+		int n = Math.min(s.length(), pos + 9);
+		int value = 0;
+		int i = pos;
+		while (i < n && isDigit(s.charAt(i))) {
+			value = value * 10 + s.charAt(i) - '0';
+			i++;
+		}
+		if (i == pos || (i < s.length() && isDigit(s.charAt(i)))) {
+			return -1;
+		}
+		return ((long) value << 32) | i;
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * SimpleDateFormat只跳过字段前的空格和制表符,不跳过其他空白字符
+	 */
+	private static boolean isBlank(char c) {
+		return c == ' ' || c == '\t';
+	}
+
+	/**
+	 * Converts the wall clock fields to epoch millis without the timezone.
+	 *
+	 * @return local millis, or {@link Long#MIN_VALUE} for Julian dates and
+	 *         out of range fields
+	 */
+	private static long localMillis(int year, int month, int day, int hour, int minute, int second) {
+		if (year > 9999 || month < 1 || month > 12 || day < 1 || day > 31 || hour > 23 || minute > 59
+				|| second > 59) {
+			// Lenient roll over may cross the Julian cutover, leave it to the calendar
+			return Long.MIN_VALUE;
+		}
+		long days = CalendarMath.daysFromCivil(year, month, day);
+		if (days < GREGORIAN_CUTOVER_DAY) {
+			return Long.MIN_VALUE;
+		}
+		return days * CalendarMath.MILLIS_PER_DAY + ((hour * 60L + minute) * 60 + second) * 1000;
+	}
+
+	private static long toMillis(int year, int month, int day, int hour, int minute, int second, TimeZone zone) {
+		long local = localMillis(year, month, day, hour, minute, second);
+		if (local != Long.MIN_VALUE) {
+			int offset = zone.getOffset(local - zone.getRawOffset());
+			long millis = local - offset;
+			if (zone.getOffset(millis - CalendarMath.MILLIS_PER_DAY) == offset
+					&& zone.getOffset(millis + CalendarMath.MILLIS_PER_DAY) == offset) {
+				return millis;
+			}
+			// Gaps and overlaps near an offset transition are resolved by the calendar
+		}
+		Calendar calendar = new GregorianCalendar(zone, Locale.US);
+		calendar.clear();
+		calendar.set(year, month - 1, day, hour, minute, second);
+		return calendar.getTimeInMillis();
+	}
 }
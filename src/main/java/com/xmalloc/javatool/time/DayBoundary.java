@@ -0,0 +1,276 @@
+package com.xmalloc.javatool.time;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 计算某个时区中一天开始(00:00:00.000)的毫秒时间戳.
+ *
+ * 天数用整数运算, 每天的起点由java.time算出后放进一张按纪元天数索引的小表, 命中时不创建任何对象.
+ * 夏令时切换发生在午夜的时区, 一天从切换后的第一个有效时刻开始. 回拨跨过午夜时(例如1987-2010年的
+ * America/St_Johns), 新的一天开始后会有一段时间又回到前一天, 这段时间单独记在当天的起点里.
+ */
+public final class DayBoundary {
+
+	/** 缓存的天数, 必须是2的幂 */
+	private static final int TABLE_SIZE = 64;
+
+	private static final ConcurrentHashMap<ZoneId, DayBoundary> ZONES = new ConcurrentHashMap<ZoneId, DayBoundary>();
+
+	private static final DayBoundary DEFAULT = of(ZoneId.systemDefault());
+
+	private final ZoneId zone;
+	/** 用来估计本地日期的偏移, 估错的部分由相邻两天的起点校正 */
+	private final long offsetGuess;
+	private final AtomicReferenceArray<Day> table = new AtomicReferenceArray<Day>(TABLE_SIZE);
+	private volatile Today today;
+
+	/**
+	 * 一天的起点, 创建后不再修改
+	 */
+	private static final class Day {
+		final long epochDay;
+		final long start;
+		/** 当天开始后又回拨到前一天的时间段[overlapFrom, overlapTo), 没有时为空 */
+		final long overlapFrom;
+		final long overlapTo;
+
+		Day(long epochDay, long start, long overlapFrom, long overlapTo) {
+			this.epochDay = epochDay;
+			this.start = start;
+			this.overlapFrom = overlapFrom;
+			this.overlapTo = overlapTo;
+		}
+
+		boolean inOverlap(long millis) {
+			return millis >= overlapFrom && millis < overlapTo;
+		}
+	}
+
+	/**
+	 * 今天的范围, 过了午夜由第一个调用的线程替换
+	 */
+	static final class Today {
+		final long start;
+		final long end;
+		/** yyyyMMdd */
+		final char[] digits;
+		/** 今天开始后回拨到昨天的时间段 */
+		private final Day first;
+		/** 明天开始后回拨到今天的时间段 */
+		private final Day next;
+
+		Today(Day first, Day next, char[] digits) {
+			this.start = first.start;
+			this.end = next.start;
+			this.digits = digits;
+			this.first = first;
+			this.next = next;
+		}
+
+		boolean contains(long millis) {
+			if (millis >= start && millis < end) {
+				return !first.inOverlap(millis);
+			}
+			return next.inOverlap(millis);
+		}
+
+		/**
+		 * 时间是否在今天之前的日期
+		 */
+		boolean before(long millis) {
+			return millis < start || first.inOverlap(millis);
+		}
+
+		/**
+		 * 去掉'-'后是否和今天的yyyyMMdd相同
+		 */
+		boolean matches(CharSequence text, int from, int to) {
+			int j = 0;
+			for (int i = from; i < to; i++) {
+				char c = text.charAt(i);
+				if (c == '-') {
+					continue;
+				}
+				if (j == digits.length || c != digits[j++]) {
+					return false;
+				}
+			}
+			return j == digits.length;
+		}
+	}
+
+	private DayBoundary(ZoneId zone) {
+		this.zone = zone;
+		this.offsetGuess = zone.getRules().getOffset(Instant.now()).getTotalSeconds() * CalendarMath.MILLIS_PER_SECOND;
+	}
+
+	/**
+	 * 类加载时JVM默认时区的实例
+	 *
+	 * @return
+	 */
+	public static DayBoundary systemDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * 指定时区的共享实例
+	 *
+	 * @param zone 时区
+	 * @return
+	 */
+	public static DayBoundary of(ZoneId zone) {
+		DayBoundary boundary = ZONES.get(zone);
+		if (boundary == null) {
+			DayBoundary created = new DayBoundary(zone);
+			boundary = ZONES.putIfAbsent(zone, created);
+			if (boundary == null) {
+				boundary = created;
+			}
+		}
+		return boundary;
+	}
+
+	public ZoneId getZone() {
+		return zone;
+	}
+
+	/**
+	 * 时间所在的本地日期
+	 *
+	 * @param millis 毫秒时间戳
+	 * @return 距1970-01-01的天数
+	 */
+	public long epochDay(long millis) {
+		long day = Math.floorDiv(millis + offsetGuess, CalendarMath.MILLIS_PER_DAY);
+		while (millis < startOfEpochDay(day)) {
+			day--;
+		}
+		while (millis >= startOfEpochDay(day + 1)) {
+			day++;
+		}
+		return day(day).inOverlap(millis) ? day - 1 : day;
+	}
+
+	/**
+	 * 时间所在当天的起点
+	 *
+	 * @param millis 毫秒时间戳
+	 * @return 当天00:00:00.000的毫秒时间戳
+	 */
+	public long startOfDay(long millis) {
+		return startOfEpochDay(epochDay(millis));
+	}
+
+	/**
+	 * 时间所在当天之后第N天的起点
+	 *
+	 * @param millis 毫秒时间戳
+	 * @param days 天数, 负数表示之前
+	 * @return 那天00:00:00.000的毫秒时间戳
+	 */
+	public long startOfDay(long millis, int days) {
+		return startOfEpochDay(epochDay(millis) + days);
+	}
+
+	/**
+	 * 本地日期的起点
+	 *
+	 * @param epochDay 距1970-01-01的天数
+	 * @return 那天00:00:00.000的毫秒时间戳
+	 */
+	public long startOfEpochDay(long epochDay) {
+		return day(epochDay).start;
+	}
+
+	private Day day(long epochDay) {
+		int index = (int) epochDay & (TABLE_SIZE - 1);
+		Day day = table.get(index);
+		if (day == null || day.epochDay != epochDay) {
+			LocalDate date = LocalDate.ofEpochDay(epochDay);
+			ZonedDateTime start = date.atStartOfDay(zone);
+			long overlapFrom = 0;
+			long overlapTo = 0;
+			ZoneOffsetTransition next = zone.getRules().nextTransition(start.toInstant());
+			if (next != null && next.isOverlap()) {
+				// 回拨后再次到达当天0点的时刻, 早于回拨时刻说明回拨发生在以后
+				long again = date.atStartOfDay().toEpochSecond(next.getOffsetAfter()) * CalendarMath.MILLIS_PER_SECOND;
+				long at = next.toEpochSecond() * CalendarMath.MILLIS_PER_SECOND;
+				if (at < again) {
+					overlapFrom = at;
+					overlapTo = again;
+				}
+			}
+			day = new Day(epochDay, start.toInstant().toEpochMilli(), overlapFrom, overlapTo);
+			table.set(index, day);
+		}
+		return day;
+	}
+
+	/**
+	 * 今天0点的毫秒时间戳
+	 *
+	 * @return
+	 */
+	public long todayStart() {
+		return today().start;
+	}
+
+	/**
+	 * 明天0点的毫秒时间戳
+	 *
+	 * @return
+	 */
+	public long todayEnd() {
+		return today().end;
+	}
+
+	/**
+	 * 时间是否在今天
+	 *
+	 * @param millis 毫秒时间戳
+	 * @return
+	 */
+	public boolean isToday(long millis) {
+		return today().contains(millis);
+	}
+
+	/**
+	 * 时间是否在今天之前的日期
+	 *
+	 * @param millis 毫秒时间戳
+	 * @return
+	 */
+	public boolean isBeforeToday(long millis) {
+		return today().before(millis);
+	}
+
+	Today today() {
+		long now = System.currentTimeMillis();
+		Today t = today;
+		if (t == null || !t.contains(now)) {
+			t = today(now);
+			today = t;
+		}
+		return t;
+	}
+
+	/**
+	 * 按指定的当前时间计算今天, 不替换缓存的今天
+	 */
+	Today today(long now) {
+		long day = epochDay(now);
+		long civil = CalendarMath.civilFromDays(day);
+		char[] digits = new char[8];
+		CalendarMath.write4(digits, 0, CalendarMath.year(civil));
+		CalendarMath.write2(digits, 4, CalendarMath.month(civil));
+		CalendarMath.write2(digits, 6, CalendarMath.day(civil));
+		return new Today(day(day), day(day + 1), digits);
+	}
+}
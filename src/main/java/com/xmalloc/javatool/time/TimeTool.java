@@ -12,12 +12,20 @@ public class TimeTool {
 	
 	public static final String FORMAT_LONG = "yyyy-MM-dd HH:mm:ss";
 	public static final String FORMAT_SHORT = "yyyy-MM-dd";
+	/**
+	 * @deprecated 每个线程都会持有一个SimpleDateFormat, 改用 {@link DateFormatCache}
+	 */
+	@Deprecated
 	public static final ThreadLocal<DateFormat> dfLong = new ThreadLocal<DateFormat>() {
 		@Override
 		protected DateFormat initialValue() {
 			return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 		}
 	};
+	/**
+	 * @deprecated 每个线程都会持有一个SimpleDateFormat, 改用 {@link DateFormatCache}
+	 */
+	@Deprecated
 	public static final ThreadLocal<DateFormat> dfShort = new ThreadLocal<DateFormat>() {
 		@Override
 		protected DateFormat initialValue() {
@@ -33,11 +41,7 @@ public class TimeTool {
 	 */
 	public static Calendar getCalendarAfterByDay(int days) {
 		Calendar now = Calendar.getInstance();
-		now.setTime(new Date());
-		now.set(Calendar.DATE, now.get(Calendar.DATE) + days);
-		now.set(Calendar.HOUR, 0);
-		now.set(Calendar.MINUTE, 0);
-		now.set(Calendar.SECOND, 0);
+		now.setTimeInMillis(getMillisAfterByDay(days));
 		return now;
 	}
 
@@ -48,7 +52,17 @@ public class TimeTool {
 	 * @return 时间
 	 */
 	public static Date getDateAfterByDay(int days) {
-		return getCalendarAfterByDay(days).getTime();
+		return new Date(getMillisAfterByDay(days));
+	}
+
+	/**
+	 * 得到N天后0点的毫秒时间戳
+	 * 
+	 * @param days 天数, 负数表示N天前
+	 * @return 毫秒时间戳
+	 */
+	public static long getMillisAfterByDay(int days) {
+		return DayBoundary.systemDefault().startOfDay(System.currentTimeMillis(), days);
 	}
 
 	/**
@@ -58,13 +72,7 @@ public class TimeTool {
 	 * @return 时间
 	 */
 	public static Calendar getCalendarBeforeByDay(int days) {
-		Calendar now = Calendar.getInstance();
-		now.setTime(new Date());
-		now.set(Calendar.DATE, now.get(Calendar.DATE) - days);
-		now.set(Calendar.HOUR, 0);
-		now.set(Calendar.MINUTE, 0);
-		now.set(Calendar.SECOND, 0);
-		return now;
+		return getCalendarAfterByDay(-days);
 	}
 
 	/**
@@ -74,7 +82,7 @@ public class TimeTool {
 	 * @return 时间
 	 */
 	public static Date getDateBeforeByDay(int days) {
-		return getCalendarBeforeByDay(days).getTime();
+		return new Date(getMillisAfterByDay(-days));
 	}
 
 	/**
@@ -106,7 +114,7 @@ public class TimeTool {
 	public static String formatDate(Date date) {
 		if (date == null)
 			return "";
-		return dfLong.get().format(date);
+		return DateFormatCache.getDefault().format(date, FORMAT_LONG);
 	}
 
 	/**
@@ -120,7 +128,7 @@ public class TimeTool {
 		if (date == null)
 			return "";
 		try {
-			return new SimpleDateFormat(format).format(date);
+			return DateFormatCache.getDefault().format(date, format);
 		} catch (Exception e) {
 			return "";
 		}
@@ -134,7 +142,7 @@ public class TimeTool {
 	 */
 	public static Date parseDate(String date) {
 		try {
-			return dfLong.get().parse(date);
+			return DateFormatCache.getDefault().parse(date, FORMAT_LONG);
 		} catch (ParseException e) {
 			return null;
 		}
@@ -149,7 +157,7 @@ public class TimeTool {
 	 */
 	public static Date parseDate(String date, String format) {
 		try {
-			return new SimpleDateFormat(format).parse(date);
+			return DateFormatCache.getDefault().parse(date, format);
 		} catch (ParseException e) {
 			e.printStackTrace();
 			return null;
@@ -220,7 +228,7 @@ public class TimeTool {
 	 * @return
 	 */
 	public static String getCurrTime(){
-		return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
+		return CachedClock.getDefault().currentTime();
 	}
 
 	/**
@@ -230,7 +238,7 @@ public class TimeTool {
 	 * @return yyyy-MM-dd
 	 */
 	public static String getCurrDate(int difference){
-		if(difference == 0) return new SimpleDateFormat("yyyy-MM-dd").format(new Date());
+		if(difference == 0) return CachedClock.getDefault().currentDate();
 		Calendar calendar = Calendar.getInstance();
 		calendar.add(Calendar.DAY_OF_YEAR, difference);
 		return new SimpleDateFormat("yyyy-MM-dd").format(calendar.getTime());
@@ -324,7 +332,7 @@ public class TimeTool {
 	 * @return 格式化后的时间
 	 */
 	public static String getFormatDateByUnixTimeStamp(long timestamp) {
-		return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(getDateByUnixTimeStamp(timestamp)); 
+		return CachedClock.getDefault().format(timestamp * 1000);
 	}
 	
 	/**
@@ -379,13 +387,7 @@ public class TimeTool {
 	 * @return 时间戳
 	 */
 	public static long getTimeStampBeforeByDay(int days) {
-		Calendar now = Calendar.getInstance();
-		now.setTime(new Date());
-		now.set(Calendar.DATE, now.get(Calendar.DATE) - days);
-		now.set(Calendar.HOUR, 0);
-		now.set(Calendar.MINUTE, 0);
-		now.set(Calendar.SECOND, 0);
-		return now.getTime().getTime()/1000;
+		return getMillisAfterByDay(-days)/1000;
 	}
 	
 	/**
@@ -417,13 +419,7 @@ public class TimeTool {
 	 * @return 时间戳
 	 */
 	public static long getTimeStampAfterByDay(int days) {
-		Calendar now = Calendar.getInstance();
-		now.setTime(new Date());
-		now.set(Calendar.DATE, now.get(Calendar.DATE) + days);
-		now.set(Calendar.HOUR, 0);
-		now.set(Calendar.MINUTE, 0);
-		now.set(Calendar.SECOND, 0);
-		return now.getTime().getTime()/1000;
+		return getMillisAfterByDay(days)/1000;
 	}
 	
 	/**
@@ -433,10 +429,8 @@ public class TimeTool {
 	 * @return 时间字符串
 	 */
 	public static String getTimeBefore(int day){
-		String time="";
 		long dayTime =1*24*3600*1000l;
-		time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date().getTime()-day*dayTime);
-		return time;
+		return CachedClock.getDefault().format(System.currentTimeMillis()-day*dayTime);
 	}
 	
 	/**
@@ -446,10 +440,8 @@ public class TimeTool {
 	 * @return 时间字符串
 	 */
 	public static String getTimeAfter(int day){
-		String time="";
 		long dayTime =1*24*3600*1000l;
-		time= new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date().getTime()+day*dayTime);
-		return time;
+		return CachedClock.getDefault().format(System.currentTimeMillis()+day*dayTime);
 	}
 	
 
@@ -461,19 +453,7 @@ public class TimeTool {
 	 */
 	public static boolean afterNow(Date inDate){
 		if(inDate == null) return false;
-		Calendar calendar = Calendar.getInstance();
-		Calendar inCalendar = Calendar.getInstance();
-		inCalendar.setTime(inDate);
-		int nowYear = calendar.get(Calendar.YEAR);
-		int nowMonth = calendar.get(Calendar.MONTH);
-		int nowDay = calendar.get(Calendar.DAY_OF_MONTH);
-		int inYear = inCalendar.get(Calendar.YEAR);
-		int inMonth = inCalendar.get(Calendar.MONTH);
-		int inDay = inCalendar.get(Calendar.DAY_OF_MONTH);
-		if(nowYear > inYear) return true;
-		if(nowYear == inYear && nowMonth > inMonth) return true;
-		if(nowYear == inYear && nowMonth == inMonth && nowDay > inDay) return true;
-		return false;
+		return DayBoundary.systemDefault().isBeforeToday(inDate.getTime());
 	}
 	
 	/**
@@ -484,17 +464,7 @@ public class TimeTool {
 	 */
 	public static boolean inNow(Date inDate){
 		if(inDate == null) return false;
-		Calendar calendar = Calendar.getInstance();
-		Calendar inCalendar = Calendar.getInstance();
-		inCalendar.setTime(inDate);
-		int nowYear = calendar.get(Calendar.YEAR);
-		int nowMonth = calendar.get(Calendar.MONTH);
-		int nowDay = calendar.get(Calendar.DAY_OF_MONTH);
-		int inYear = inCalendar.get(Calendar.YEAR);
-		int inMonth = inCalendar.get(Calendar.MONTH);
-		int inDay = inCalendar.get(Calendar.DAY_OF_MONTH);
-		if(nowYear == inYear && nowMonth == inMonth && nowDay == inDay) return true;
-		return false;
+		return DayBoundary.systemDefault().isToday(inDate.getTime());
 	}
 	
 	private static int weeks = 0;
@@ -539,10 +509,8 @@ public class TimeTool {
 	 * @return true 是 false 不在当天
 	 */
     public static boolean isCurrDay(String time){
-    	String currDay = new SimpleDateFormat("yyyy-MM-dd").format(new Date()).replaceAll("-","");
-    	String tempTime  =time.substring(0,10).replaceAll("-", "");
-    	if(currDay.equals(tempTime))return true;
-    	else return false;
+    	if(time == null || time.length() < 10) return false;
+    	return DayBoundary.systemDefault().today().matches(time, 0, 10);
     }
     
 	/**
@@ -552,9 +520,7 @@ public class TimeTool {
 	 * @return true 是 false 不在当天
 	 */
     public static boolean isCurrDay(long time){
-    	Date date = new Date(time*1000);
-    	String loginTime = new SimpleDateFormat("yyyy-MM-dd").format(date);
-    	return isCurrDay(loginTime);
+    	return DayBoundary.systemDefault().isToday(time*1000);
     }
     
     
@@ -0,0 +1,93 @@
+package com.xmalloc.javatool.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import com.xmalloc.javatool.string.IdScanner;
+
+/**
+ * 比较IdCodec和逗号分隔文本的大小及解码耗时.
+ *
+ * 不是单元测试, 手动运行: mvn test-compile 后以test classpath运行这个类, 参数是ID个数, 轮数和ID之间的平均间隔,
+ * 默认 1000000 20 100. 输入是从10^12附近开始递增的随机ID; 文本用IdScanner解析, 二进制用varint和按位打包两种格式.
+ */
+public class IdCodecBenchmark {
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		int gap = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+		Random random = new Random(1);
+		long[] ids = new long[count];
+		long id = 1000000000000L;
+		for (int i = 0; i < count; i++) {
+			id += 1 + random.nextInt(gap * 2);
+			ids[i] = id;
+		}
+		StringBuilder sb = new StringBuilder(count * 14);
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append(ids[i]);
+		}
+		String text = sb.toString();
+		byte[] varint = IdCodec.encode(ids, false);
+		byte[] packed = IdCodec.encode(ids, true);
+		String base64 = IdCodec.encodeBase64(ids);
+		IdScanner scanner = IdScanner.getDefault();
+
+		System.out.printf("%d ids, mean gap %d, %d rounds%n", count, gap, rounds);
+		System.out.printf("%-20s %10d bytes%n", "text", text.getBytes(StandardCharsets.UTF_8).length);
+		System.out.printf("%-20s %10d bytes%n", "varint", varint.length);
+		System.out.printf("%-20s %10d bytes%n", "packed", packed.length);
+		System.out.printf("%-20s %10d bytes%n", "packed base64", base64.length());
+
+		long[] parse = new long[rounds];
+		long[] decodeVarint = new long[rounds];
+		long[] decodePacked = new long[rounds];
+		long[] decodeBase64 = new long[rounds];
+		for (int r = 0; r < rounds; r++) {
+			long start = System.nanoTime();
+			long[] result = scanner.parse(text);
+			parse[r] = System.nanoTime() - start;
+			check(result, ids);
+
+			start = System.nanoTime();
+			result = IdCodec.decode(varint);
+			decodeVarint[r] = System.nanoTime() - start;
+			check(result, ids);
+
+			start = System.nanoTime();
+			result = IdCodec.decode(packed);
+			decodePacked[r] = System.nanoTime() - start;
+			check(result, ids);
+
+			start = System.nanoTime();
+			result = IdCodec.decodeBase64(base64);
+			decodeBase64[r] = System.nanoTime() - start;
+			check(result, ids);
+		}
+		report("IdScanner.parse", parse);
+		report("decode varint", decodeVarint);
+		report("decode packed", decodePacked);
+		report("decodeBase64", decodeBase64);
+	}
+
+	private static void check(long[] result, long[] expected) {
+		if (!Arrays.equals(result, expected)) {
+			throw new AssertionError("results differ");
+		}
+	}
+
+	private static void report(String name, long[] nanos) {
+		long best = Long.MAX_VALUE;
+		long total = 0;
+		for (long n : nanos) {
+			best = Math.min(best, n);
+			total += n;
+		}
+		System.out.printf("%-20s best %8.2f ms, mean %8.2f ms%n", name, best / 1e6, total / 1e6 / nanos.length);
+	}
+}
@@ -0,0 +1,139 @@
+package com.xmalloc.javatool.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class IdCodecTest {
+
+	private static void assertRoundTrip(long[] ids) {
+		long[] sorted = ids.clone();
+		Arrays.sort(sorted);
+		long[] copy = ids.clone();
+		for (boolean packed : new boolean[] { false, true }) {
+			byte[] bytes = IdCodec.encode(ids, packed);
+			Assert.assertEquals(ids, copy, "input modified");
+			Assert.assertEquals(bytes[0], packed ? IdCodec.FORMAT_PACKED : IdCodec.FORMAT_VARINT);
+			Assert.assertTrue(bytes.length <= IdCodec.maxEncodedLength(ids.length));
+			Assert.assertEquals(IdCodec.decode(bytes), sorted, Arrays.toString(ids));
+
+			// 直接缓冲区, 前后有其他数据
+			ByteBuffer buffer = ByteBuffer.allocateDirect(IdCodec.maxEncodedLength(ids.length) + 8);
+			buffer.putInt(0xcafebabe);
+			int written = IdCodec.encode(ids, packed, buffer);
+			Assert.assertEquals(written, bytes.length);
+			buffer.putInt(0x12345678);
+			buffer.flip();
+			Assert.assertEquals(buffer.getInt(), 0xcafebabe);
+			Assert.assertEquals(IdCodec.decode(buffer), sorted);
+			Assert.assertEquals(buffer.getInt(), 0x12345678);
+		}
+		String text = IdCodec.encodeBase64(ids);
+		Assert.assertTrue(text.matches("[A-Za-z0-9_-]*"), text);
+		Assert.assertEquals(IdCodec.decodeBase64(text), sorted);
+	}
+
+	@Test
+	public void edgeCases() {
+		assertRoundTrip(new long[0]);
+		assertRoundTrip(new long[] { 0 });
+		assertRoundTrip(new long[] { -1 });
+		assertRoundTrip(new long[] { Long.MIN_VALUE });
+		assertRoundTrip(new long[] { Long.MAX_VALUE });
+		// 差值超出long的范围
+		assertRoundTrip(new long[] { Long.MAX_VALUE, Long.MIN_VALUE });
+		assertRoundTrip(new long[] { Long.MIN_VALUE, 0, Long.MAX_VALUE });
+		assertRoundTrip(new long[] { Long.MAX_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE, -1, 1 });
+		assertRoundTrip(new long[] { 5, 3, 3, 9, 1, 3 });
+		assertRoundTrip(new long[] { 7, 7, 7, 7 });
+	}
+
+	@Test
+	public void blockBoundaries() {
+		Random random = new Random(11);
+		for (int count : new int[] { 1, 2, 127, 128, 129, 130, 256, 257, 258, 1000 }) {
+			long[] dense = new long[count];
+			long[] sparse = new long[count];
+			long[] same = new long[count];
+			for (int i = 0; i < count; i++) {
+				dense[i] = 1000000 + i * 3 + random.nextInt(3);
+				sparse[i] = random.nextLong();
+				same[i] = 42;
+			}
+			// 最后一块有一个很大的差值
+			long[] wide = dense.clone();
+			wide[count - 1] = Long.MAX_VALUE;
+			assertRoundTrip(dense);
+			assertRoundTrip(sparse);
+			assertRoundTrip(same);
+			assertRoundTrip(wide);
+		}
+	}
+
+	@Test
+	public void randomSets() {
+		Random random = new Random(12);
+		for (int i = 0; i < 2000; i++) {
+			long[] ids = new long[random.nextInt(600)];
+			int kind = random.nextInt(4);
+			long base = random.nextLong();
+			for (int j = 0; j < ids.length; j++) {
+				switch (kind) {
+				case 0:
+					ids[j] = random.nextLong();
+					break;
+				case 1:
+					ids[j] = base + random.nextInt(1 << 20);
+					break;
+				case 2:
+					ids[j] = random.nextInt(50) - 25;
+					break;
+				default:
+					ids[j] = random.nextBoolean() ? Long.MIN_VALUE + random.nextInt(4) : Long.MAX_VALUE - random.nextInt(4);
+				}
+			}
+			assertRoundTrip(ids);
+		}
+	}
+
+	@Test
+	public void packedIsSmallerForDenseIds() {
+		long[] ids = new long[100000];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = 10000000L + i * 5;
+		}
+		byte[] varint = IdCodec.encode(ids, false);
+		byte[] packed = IdCodec.encode(ids, true);
+		Assert.assertTrue(packed.length < varint.length, packed.length + " " + varint.length);
+		Assert.assertEquals(IdCodec.decodeBase64(IdCodec.encodeBase64(ids)), ids);
+		Assert.assertEquals(IdCodec.encodeBase64(ids).length(), (packed.length * 4 + 2) / 3);
+	}
+
+	@Test
+	public void rejectsMalformedInput() {
+		long[] ids = { 1, 5, 1000, 1 << 20, Long.MAX_VALUE };
+		for (boolean packed : new boolean[] { false, true }) {
+			byte[] bytes = IdCodec.encode(ids, packed);
+			for (int length = 0; length < bytes.length; length++) {
+				assertRejected(Arrays.copyOf(bytes, length));
+			}
+		}
+		assertRejected(new byte[] { 3, 0 });
+		assertRejected(new byte[] { IdCodec.FORMAT_VARINT, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 1 });
+		// 个数远大于剩余的数据
+		assertRejected(new byte[] { IdCodec.FORMAT_VARINT, -1, -1, -1, -1, 7, 0 });
+		// 块的位数超过64
+		assertRejected(new byte[] { IdCodec.FORMAT_PACKED, 2, 0, 65, 0, 0, 0, 0, 0, 0, 0, 0, 0 });
+	}
+
+	private static void assertRejected(byte[] bytes) {
+		try {
+			IdCodec.decode(bytes);
+			Assert.fail(Arrays.toString(bytes));
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package com.xmalloc.javatool.collection;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LongHashSetTest {
+
+	@Test
+	public void removeIfMatchesHashSet() {
+		Random random = new Random(42);
+		for (int round = 0; round < 500; round++) {
+			LongHashSet set = new LongHashSet(random.nextInt(32));
+			Set<Long> expected = new HashSet<Long>();
+			fill(random, set, expected, random.nextInt(200));
+			final int divisor = 2 + random.nextInt(3);
+			set.asSet().removeIf(v -> v % divisor == 0);
+			expected.removeIf(v -> v % divisor == 0);
+			assertSame(set, expected);
+		}
+	}
+
+	@Test
+	public void retainAllAndRemoveAllMatchHashSet() {
+		Random random = new Random(7);
+		for (int round = 0; round < 500; round++) {
+			LongHashSet set = new LongHashSet();
+			Set<Long> expected = new HashSet<Long>();
+			fill(random, set, expected, random.nextInt(200));
+			Set<Long> other = new HashSet<Long>();
+			for (int i = 0; i < 100; i++) {
+				other.add(value(random));
+			}
+			if (round % 2 == 0) {
+				set.asSet().retainAll(other);
+				expected.retainAll(other);
+			} else {
+				set.asSet().removeAll(other);
+				expected.removeAll(other);
+			}
+			assertSame(set, expected);
+		}
+	}
+
+	@Test
+	public void iteratorRemoveVisitsEveryElementOnce() {
+		Random random = new Random(1);
+		for (int round = 0; round < 500; round++) {
+			LongHashSet set = new LongHashSet(4);
+			Set<Long> expected = new HashSet<Long>();
+			fill(random, set, expected, random.nextInt(100));
+			Set<Long> original = new HashSet<Long>(expected);
+			Set<Long> seen = new HashSet<Long>();
+			for (Iterator<Long> it = set.asSet().iterator(); it.hasNext();) {
+				Long value = it.next();
+				Assert.assertTrue(seen.add(value), "visited twice: " + value);
+				if (random.nextBoolean()) {
+					it.remove();
+					expected.remove(value);
+				}
+			}
+			Assert.assertEquals(seen, original);
+			assertSame(set, expected);
+		}
+	}
+
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void iteratorRemoveTwice() {
+		LongHashSet set = new LongHashSet();
+		set.add(1);
+		Iterator<Long> it = set.asSet().iterator();
+		it.next();
+		it.remove();
+		it.remove();
+	}
+
+	@Test(expectedExceptions = NullPointerException.class)
+	public void viewRejectsNull() {
+		new LongHashSet().asSet().add(null);
+	}
+
+	private static void fill(Random random, LongHashSet set, Set<Long> expected, int n) {
+		for (int i = 0; i < n; i++) {
+			long value = value(random);
+			Assert.assertEquals(set.add(value), expected.add(value));
+		}
+	}
+
+	/**
+	 * 取值范围很小, 探测链长而且经常绕回数组开头
+	 */
+	private static long value(Random random) {
+		return random.nextInt(300) - 20;
+	}
+
+	private static void assertSame(LongHashSet set, Set<Long> expected) {
+		Assert.assertEquals(set.size(), expected.size());
+		for (Long value : expected) {
+			Assert.assertTrue(set.contains(value), "missing " + value);
+		}
+		Set<Long> actual = new HashSet<Long>(set.asSet());
+		Assert.assertEquals(actual, expected);
+	}
+}
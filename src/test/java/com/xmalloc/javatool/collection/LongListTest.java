@@ -0,0 +1,41 @@
+package com.xmalloc.javatool.collection;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LongListTest {
+
+	@Test
+	public void viewWritesThrough() {
+		LongList list = new LongList();
+		List<Long> view = list.asList();
+		view.add(1L);
+		view.add(0, 2L);
+		view.set(1, 3L);
+		Assert.assertEquals(list.toArray(), new long[] { 2, 3 });
+		Assert.assertEquals(view, Arrays.asList(2L, 3L));
+	}
+
+	@Test(expectedExceptions = NullPointerException.class)
+	public void viewSetRejectsNull() {
+		LongList list = LongList.wrap(new long[] { 1 });
+		try {
+			list.asList().set(0, null);
+		} finally {
+			Assert.assertEquals(list.get(0), 1L);
+		}
+	}
+
+	@Test(expectedExceptions = NullPointerException.class)
+	public void viewAddRejectsNull() {
+		LongList list = new LongList();
+		try {
+			list.asList().add(null);
+		} finally {
+			Assert.assertEquals(list.size(), 0);
+		}
+	}
+}
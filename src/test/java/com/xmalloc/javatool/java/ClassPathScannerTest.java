@@ -0,0 +1,150 @@
+package com.xmalloc.javatool.java;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+public class ClassPathScannerTest {
+
+	@Test
+	public void indexDirIsPrivateAndReused() throws IOException {
+		if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+			throw new SkipException("not a POSIX file system");
+		}
+		Path dir = Files.createTempDirectory("scanner");
+		Path jar = dir.resolve("a.jar");
+		Path indexDir = dir.resolve("cache").resolve("index");
+		try {
+			try (OutputStream os = Files.newOutputStream(jar); ZipOutputStream out = new ZipOutputStream(os)) {
+				out.putNextEntry(new ZipEntry("com/x/A.class"));
+				out.putNextEntry(new ZipEntry("com/x/a.xml"));
+			}
+			ClassPathScanner scanner = new ClassPathScanner(Collections.singletonList(jar), indexDir);
+			Assert.assertEquals(scanner.findClasses("com.x"), Collections.singletonList("com.x.A"));
+			Assert.assertEquals(PosixFilePermissions.toString(Files.getPosixFilePermissions(indexDir)), "rwx------");
+
+			ClassPathScanner fresh = new ClassPathScanner(Arrays.asList(jar), indexDir);
+			Assert.assertEquals(fresh.findResources("com/**/*.xml"), Collections.singletonList("com/x/a.xml"));
+		} finally {
+			if (Files.isDirectory(indexDir)) {
+				try (DirectoryStream<Path> files = Files.newDirectoryStream(indexDir)) {
+					for (Path file : files) {
+						Files.delete(file);
+					}
+				}
+				Files.delete(indexDir);
+				Files.delete(indexDir.getParent());
+			}
+			Files.deleteIfExists(jar);
+			Files.delete(dir);
+		}
+	}
+
+	@Test
+	public void scansDirectories() throws IOException {
+		Path root = Files.createTempDirectory("scanner");
+		Path jar = root.resolveSibling(root.getFileName() + ".jar");
+		try {
+			for (String name : new String[] { "com/x/A.class", "com/x/package-info.class", "com/x/sub/B.class",
+					"com/xy/C.class", "com/a.xml", "com/x/a.xml", "com/x/sub/deep/b.xml", "org/D.class",
+					"META-INF/spring/s.xml", "top.xml", "a+b (1).txt" }) {
+				Path file = root.resolve(name);
+				Files.createDirectories(file.getParent());
+				Files.createFile(file);
+			}
+			Files.createDirectories(root.resolve("com/x/empty.xml"));
+			try (OutputStream os = Files.newOutputStream(jar); ZipOutputStream out = new ZipOutputStream(os)) {
+				out.putNextEntry(new ZipEntry("com/x/A.class"));
+				out.putNextEntry(new ZipEntry("com/x/J.class"));
+			}
+			ClassPathScanner scanner = new ClassPathScanner(Collections.singletonList(root), null);
+			Assert.assertEquals(scanner.findClasses("com.x"), Arrays.asList("com.x.A", "com.x.sub.B"));
+			Assert.assertEquals(scanner.findClasses(""), Arrays.asList("com.x.A", "com.x.sub.B", "com.xy.C", "org.D"));
+			Assert.assertEquals(scanner.findClasses("com.z"), Collections.emptyList());
+			Assert.assertEquals(scanner.findResources("com/**/*.xml"),
+					Arrays.asList("com/a.xml", "com/x/a.xml", "com/x/sub/deep/b.xml"));
+			Assert.assertEquals(scanner.findResources("com/x?/*.class"), Arrays.asList("com/xy/C.class"));
+			Assert.assertEquals(scanner.findResources("com/x*/*.class"),
+					Arrays.asList("com/x/A.class", "com/x/package-info.class", "com/xy/C.class"));
+			Assert.assertEquals(scanner.findResources("*.xml"), Arrays.asList("top.xml"));
+			Assert.assertEquals(scanner.findResources("**/*.xml"), Arrays.asList("META-INF/spring/s.xml", "com/a.xml",
+					"com/x/a.xml", "com/x/sub/deep/b.xml", "top.xml"));
+			Assert.assertEquals(scanner.findResources("META-INF/spring/s.xml"), Arrays.asList("META-INF/spring/s.xml"));
+			Assert.assertEquals(scanner.findResources("a+b (1).txt"), Arrays.asList("a+b (1).txt"));
+			Assert.assertEquals(scanner.findResources("nothing/**"), Collections.emptyList());
+
+			// 目录和jar的结果合并去重
+			ClassPathScanner both = new ClassPathScanner(Arrays.asList(root, jar), null);
+			Assert.assertEquals(both.findClasses("com.x"), Arrays.asList("com.x.A", "com.x.J", "com.x.sub.B"));
+		} finally {
+			Files.deleteIfExists(jar);
+			try (Stream<Path> paths = Files.walk(root)) {
+				List<Path> all = paths.sorted(Collections.reverseOrder()).collect(Collectors.toList());
+				for (Path path : all) {
+					Files.delete(path);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void prunesDirectoriesOutsidePrefix() {
+		Assert.assertTrue(ClassPathScanner.mayContain("", "com/x/"));
+		Assert.assertTrue(ClassPathScanner.mayContain("com", "com/x/"));
+		Assert.assertTrue(ClassPathScanner.mayContain("com/x", "com/x/"));
+		Assert.assertTrue(ClassPathScanner.mayContain("com/x/sub", "com/x/"));
+		Assert.assertFalse(ClassPathScanner.mayContain("com/xy", "com/x/"));
+		Assert.assertFalse(ClassPathScanner.mayContain("org", "com/x/"));
+		// glob "com/x*" 的前缀不以 '/' 结尾
+		Assert.assertTrue(ClassPathScanner.mayContain("com/xy", "com/x"));
+		Assert.assertFalse(ClassPathScanner.mayContain("com/y", "com/x"));
+		Assert.assertTrue(ClassPathScanner.mayContain("anything", ""));
+	}
+
+	@Test
+	public void globSemantics() {
+		Assert.assertEquals(ClassPathScanner.literalPrefix("com/**/*.xml"), "com/");
+		Assert.assertEquals(ClassPathScanner.literalPrefix("a?b"), "a");
+		Assert.assertEquals(ClassPathScanner.literalPrefix("**"), "");
+		Assert.assertEquals(ClassPathScanner.literalPrefix("META-INF/x.xml"), "META-INF/x.xml");
+
+		assertGlob("com/**/*.xml", new String[] { "com/a.xml", "com/a/b.xml", "com/a/b/c.xml" },
+				new String[] { "com.xml", "com/a.xmlx", "org/com/a.xml" });
+		// "**/" 也匹配0层目录
+		assertGlob("**/*.xml", new String[] { "a.xml", "x/a.xml", "x/y/a.xml" }, new String[] { "a.txt" });
+		assertGlob("a/**/b", new String[] { "a/b", "a/x/b", "a/x/y/b" }, new String[] { "a/xb", "ab" });
+		assertGlob("a/**", new String[] { "a/", "a/b", "a/b/c" }, new String[] { "a", "b/a" });
+		assertGlob("*.xml", new String[] { "a.xml", ".xml" }, new String[] { "a/b.xml" });
+		assertGlob("a?c", new String[] { "abc", "a.c" }, new String[] { "ac", "abbc", "a/c" });
+		// 正则中有特殊含义的字符按字面匹配
+		assertGlob("a.b", new String[] { "a.b" }, new String[] { "axb" });
+		assertGlob("x+(y)[z]{1}$^|\\Q\\E*.txt", new String[] { "x+(y)[z]{1}$^|\\Q\\E.txt",
+				"x+(y)[z]{1}$^|\\Q\\Eabc.txt" }, new String[] { "xx(y)z1.txt", "x+(y)[z]{1}$^|QE.txt" });
+	}
+
+	private static void assertGlob(String glob, String[] matching, String[] other) {
+		Pattern pattern = ClassPathScanner.globPattern(glob);
+		for (String name : matching) {
+			Assert.assertTrue(pattern.matcher(name).matches(), glob + " " + name);
+		}
+		for (String name : other) {
+			Assert.assertFalse(pattern.matcher(name).matches(), glob + " " + name);
+		}
+	}
+}
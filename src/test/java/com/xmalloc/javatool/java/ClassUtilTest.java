@@ -0,0 +1,110 @@
+package com.xmalloc.javatool.java;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class ClassUtilTest {
+
+	private Path dir;
+
+	@BeforeClass
+	public void createDir() throws IOException {
+		dir = Files.createTempDirectory("classutil");
+		Files.write(dir.resolve("test.properties"), "a=1\n".getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	@AfterClass
+	public void deleteDir() throws IOException {
+		Files.delete(dir.resolve("test.properties"));
+		Files.delete(dir);
+	}
+
+	@Test
+	public void cachesPerClassLoader() throws IOException {
+		try (URLClassLoader first = loader(); URLClassLoader second = loader()) {
+			Map<String, String> properties = ClassUtil.getProperties(first, "/test.properties");
+			Assert.assertEquals(properties.get("a"), "1");
+			Assert.assertSame(ClassUtil.getProperties(first, "test.properties"), properties);
+			Assert.assertNotSame(ClassUtil.getProperties(second, "test.properties"), properties);
+			Assert.assertNull(ClassUtil.getProperties(first, "missing.properties"));
+
+			ClassUtil.clearCache(first);
+			Map<String, String> reloaded = ClassUtil.getProperties(first, "test.properties");
+			Assert.assertNotSame(reloaded, properties);
+			Assert.assertEquals(reloaded, properties);
+		}
+	}
+
+	@Test
+	public void concurrentLookups() throws Exception {
+		try (final URLClassLoader loader = loader()) {
+			ExecutorService executor = Executors.newFixedThreadPool(8);
+			try {
+				List<Future<Map<String, String>>> results = new ArrayList<Future<Map<String, String>>>();
+				for (int i = 0; i < 64; i++) {
+					results.add(executor.submit(() -> ClassUtil.getProperties(loader, "test.properties")));
+				}
+				Map<String, String> first = results.get(0).get();
+				for (Future<Map<String, String>> result : results) {
+					Assert.assertSame(result.get(), first);
+				}
+			} finally {
+				executor.shutdown();
+			}
+		}
+	}
+
+	@Test
+	public void dropsCacheOfCollectedClassLoader() throws Exception {
+		Map<?, ?> resources = resources();
+		WeakReference<ClassLoader> ref = loadAndForget();
+		for (int i = 0; i < 50 && ref.get() != null; i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		if (ref.get() != null) {
+			throw new SkipException("class loader was not collected");
+		}
+		int size = resources.size();
+		try (URLClassLoader other = loader()) {
+			ClassUtil.getProperties(other, "test.properties");
+			Assert.assertTrue(resources.size() <= size, "stale entry was not removed");
+			ClassUtil.clearCache(other);
+		}
+	}
+
+	private WeakReference<ClassLoader> loadAndForget() throws IOException {
+		URLClassLoader loader = loader();
+		Assert.assertNotNull(ClassUtil.getProperties(loader, "test.properties"));
+		loader.close();
+		return new WeakReference<ClassLoader>(loader);
+	}
+
+	private URLClassLoader loader() throws IOException {
+		return new URLClassLoader(new URL[] { dir.toUri().toURL() }, null);
+	}
+
+	private static Map<?, ?> resources() throws ReflectiveOperationException {
+		Field field = ClassUtil.class.getDeclaredField("RESOURCES");
+		field.setAccessible(true);
+		return (Map<?, ?>) field.get(null);
+	}
+}
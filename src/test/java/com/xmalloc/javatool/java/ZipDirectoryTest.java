@@ -0,0 +1,143 @@
+package com.xmalloc.javatool.java;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ZipDirectoryTest {
+
+	private Path dir;
+
+	@BeforeMethod
+	public void createDir() throws IOException {
+		dir = Files.createTempDirectory("zipdir");
+	}
+
+	@AfterMethod
+	public void deleteDir() throws IOException {
+		for (Path file : Files.newDirectoryStream(dir)) {
+			Files.delete(file);
+		}
+		Files.delete(dir);
+	}
+
+	@Test
+	public void readsNames() throws IOException {
+		Path jar = write("a.jar", new byte[0], zip("com/", "com/A.class", "META-INF/x.xml", "中.txt"));
+		Assert.assertEquals(names(jar), Arrays.asList("com/A.class", "META-INF/x.xml", "中.txt"));
+	}
+
+	@Test
+	public void readsJarWithPrependedBytes() throws IOException {
+		byte[] script = "#!/bin/sh\nexec java -jar \"$0\" \"$@\"\n".getBytes(StandardCharsets.US_ASCII);
+		Path jar = write("a.jar", script, zip("com/A.class", "com/B.class"));
+		Assert.assertEquals(names(jar), Arrays.asList("com/A.class", "com/B.class"));
+	}
+
+	@Test(expectedExceptions = ZipException.class)
+	public void rejectsNegativeZip64Offset() throws IOException {
+		names(write("a.jar", new byte[0], negativeZip64Offset()));
+	}
+
+	@Test(expectedExceptions = ZipException.class)
+	public void rejectsTruncatedDirectory() throws IOException {
+		byte[] zip = zip("com/A.class");
+		ByteBuffer.wrap(zip).order(ByteOrder.LITTLE_ENDIAN).putInt(zip.length - 22 + 12, 0x7ffffff0);
+		names(write("a.jar", new byte[0], zip));
+	}
+
+	@Test(expectedExceptions = ZipException.class)
+	public void rejectsCountLargerThanDirectory() throws IOException {
+		names(write("a.jar", new byte[0], zip64Count(Integer.MAX_VALUE)));
+	}
+
+	@Test
+	public void readsZip64Count() throws IOException {
+		Assert.assertEquals(names(write("a.jar", new byte[0], zip64Count(1))), Arrays.asList("com/A.class"));
+	}
+
+	@Test
+	public void scannerSkipsBrokenJar() throws IOException {
+		Path broken = write("broken.jar", new byte[0], negativeZip64Offset());
+		Path huge = write("huge.jar", new byte[0], zip64Count(Integer.MAX_VALUE));
+		Path good = write("good.jar", new byte[0], zip("com/B.class"));
+		ClassPathScanner scanner = new ClassPathScanner(Arrays.asList(broken, huge, good), null);
+		Assert.assertEquals(scanner.findClasses("com"), Collections.singletonList("com.B"));
+	}
+
+	/**
+	 * 只有一个条目的zip, 改用ZIP64的END记录条目个数
+	 */
+	private static byte[] zip64Count(long count) throws IOException {
+		byte[] zip = zip("com/A.class");
+		int eocd = zip.length - 22;
+		ByteBuffer source = ByteBuffer.wrap(zip).order(ByteOrder.LITTLE_ENDIAN);
+		long length = source.getInt(eocd + 12) & 0xffffffffL;
+		long offset = source.getInt(eocd + 16) & 0xffffffffL;
+		ByteBuffer buffer = ByteBuffer.allocate(zip.length + 56 + 20).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put(zip, 0, eocd);
+		buffer.putInt(0x06064b50).putLong(44).putShort((short) 45).putShort((short) 45).putInt(0).putInt(0);
+		buffer.putLong(count).putLong(count).putLong(length).putLong(offset);
+		buffer.putInt(0x07064b50).putInt(0).putLong(eocd).putInt(1);
+		int end = buffer.position();
+		buffer.put(zip, eocd, 22);
+		buffer.putShort(end + 8, (short) 0xffff).putShort(end + 10, (short) 0xffff);
+		return buffer.array();
+	}
+
+	/**
+	 * 在END前面插入一个指向负数位置的ZIP64 locator
+	 */
+	private static byte[] negativeZip64Offset() throws IOException {
+		byte[] zip = zip("com/A.class");
+		int eocd = zip.length - 22;
+		ByteBuffer buffer = ByteBuffer.allocate(zip.length + 20).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put(zip, 0, eocd);
+		buffer.putInt(0x07064b50).putInt(0).putLong(-100).putInt(1);
+		buffer.put(zip, eocd, 22);
+		buffer.putInt(eocd + 20 + 12, 0xffffffff);
+		return buffer.array();
+	}
+
+	private List<String> names(Path jar) throws IOException {
+		try (FileChannel channel = FileChannel.open(jar, StandardOpenOption.READ)) {
+			return ZipDirectory.read(channel).names();
+		}
+	}
+
+	private Path write(String name, byte[] prefix, byte[] zip) throws IOException {
+		Path file = dir.resolve(name);
+		byte[] content = Arrays.copyOf(prefix, prefix.length + zip.length);
+		System.arraycopy(zip, 0, content, prefix.length, zip.length);
+		Files.write(file, content);
+		return file;
+	}
+
+	private static byte[] zip(String... names) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+			for (String name : names) {
+				out.putNextEntry(new ZipEntry(name));
+				out.closeEntry();
+			}
+		}
+		return bytes.toByteArray();
+	}
+}
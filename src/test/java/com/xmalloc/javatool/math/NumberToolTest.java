@@ -0,0 +1,53 @@
+package com.xmalloc.javatool.math;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class NumberToolTest {
+
+	private static final String[] INPUTS = { "0", "-0", "+7", "42", "-42", "0001", "9223372036854775807",
+			"-9223372036854775808", "9223372036854775808", "-9223372036854775809", "99999999999999999999", "", "-",
+			"+", "1a", " 1", "--1", "1-", "12345678901234567890123" };
+
+	@Test
+	public void parsesLikeLongParseLong() {
+		for (String input : INPUTS) {
+			long expected = parseLong(input, -1);
+			byte[] bytes = ("xx" + input + "yy").getBytes(StandardCharsets.US_ASCII);
+			Assert.assertEquals(NumberTool.tryParseLong(input, -1), expected, input);
+			Assert.assertEquals(NumberTool.tryParseLong(bytes, 2, input.length(), -1), expected, input);
+
+			ByteBuffer heap = ByteBuffer.wrap(bytes, 2, input.length()).slice();
+			Assert.assertEquals(NumberTool.tryParseLong(heap, -1), expected, input);
+
+			ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+			direct.put(bytes).position(2).limit(2 + input.length());
+			Assert.assertEquals(NumberTool.tryParseLong(direct, -1), expected, input);
+			Assert.assertEquals(direct.position(), 2);
+		}
+	}
+
+	@Test
+	public void parsesInts() {
+		Assert.assertEquals(NumberTool.tryParseInt("-2147483648", 0), Integer.MIN_VALUE);
+		Assert.assertEquals(NumberTool.tryParseInt("2147483648", 0), 0);
+		Assert.assertEquals(NumberTool.parseId("-5"), -1);
+		Assert.assertEquals(NumberTool.parseId("5"), 5);
+	}
+
+	@Test(expectedExceptions = IndexOutOfBoundsException.class)
+	public void rejectsBadRange() {
+		NumberTool.tryParseLong(new byte[2], 1, 2, 0);
+	}
+
+	private static long parseLong(String s, long defaultValue) {
+		try {
+			return Long.parseLong(s);
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+}
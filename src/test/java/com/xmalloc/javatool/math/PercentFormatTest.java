@@ -0,0 +1,68 @@
+package com.xmalloc.javatool.math;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PercentFormatTest {
+
+	@Test
+	public void decimalTiesRoundHalfEven() {
+		PercentFormat format = new PercentFormat(Locale.US, 0);
+		Assert.assertEquals(format.formatRatio(0.125), "12%");
+		Assert.assertEquals(format.formatRatio(0.135), "14%");
+		Assert.assertEquals(format.formatRatio(-0.125), "-12%");
+		PercentFormat one = new PercentFormat(Locale.US, 1);
+		Assert.assertEquals(one.formatRatio(0.0125), "1.2%");
+		Assert.assertEquals(one.formatRatio(0.0135), "1.4%");
+		Assert.assertEquals(one.formatRatio(0.99995), "100.0%");
+	}
+
+	@Test
+	public void tiesMatchDecimalValue() {
+		Random random = new Random(5);
+		for (int digits = 0; digits <= PercentFormat.MAX_FRACTION_DIGITS; digits++) {
+			PercentFormat format = new PercentFormat(Locale.US, digits);
+			for (int i = 0; i < 20000; i++) {
+				// 十进制的舍入边界, 例如两位小数时的0.123455
+				BigDecimal tie = BigDecimal.valueOf(random.nextInt(2000000) * 2L + 1, digits + 3);
+				double ratio = random.nextBoolean() ? tie.doubleValue() : -tie.doubleValue();
+				long scaled = BigDecimal.valueOf(Math.abs(ratio)).movePointRight(2 + digits)
+						.setScale(0, RoundingMode.HALF_EVEN).longValue();
+				String expected = BigDecimal.valueOf(scaled, digits).toPlainString();
+				String actual = format.formatRatio(ratio).replace(",", "").replace("-", "").replace("%", "");
+				Assert.assertEquals(actual, expected, "ratio=" + ratio + " digits=" + digits);
+			}
+		}
+	}
+
+	@Test
+	public void matchesNumberFormatAwayFromTies() {
+		Random random = new Random(9);
+		for (int digits = 0; digits <= 4; digits++) {
+			PercentFormat format = new PercentFormat(Locale.US, digits);
+			NumberFormat expected = NumberFormat.getPercentInstance(Locale.US);
+			expected.setMinimumFractionDigits(digits);
+			expected.setMaximumFractionDigits(digits);
+			expected.setRoundingMode(RoundingMode.HALF_EVEN);
+			for (int i = 0; i < 20000; i++) {
+				double ratio = (random.nextDouble() - 0.5) * 200;
+				Assert.assertEquals(format.formatRatio(ratio), expected.format(ratio), "ratio=" + ratio);
+			}
+		}
+	}
+
+	@Test
+	public void formatsLongsExactly() {
+		PercentFormat format = new PercentFormat(Locale.US, 2);
+		Assert.assertEquals(format.format(1, 8), "12.50%");
+		Assert.assertEquals(format.format(1, 80000), "0.00%");
+		Assert.assertEquals(format.format(1, 0), PercentFormat.DEFAULT_DIVIDE_BY_ZERO);
+		Assert.assertEquals(format.format(-3, 4), "-75.00%");
+	}
+}
@@ -0,0 +1,85 @@
+package com.xmalloc.javatool.properties;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MappedPropertiesTest {
+
+	@Test
+	public void matchesPropertiesLoad() {
+		for (String text : PropertiesTexts.CASES) {
+			assertParsed(text);
+		}
+		Random random = new Random(11);
+		for (int i = 0; i < 20000; i++) {
+			assertParsed(PropertiesTexts.random(random));
+		}
+	}
+
+	@Test
+	public void rejectsMalformedEscapes() {
+		for (String text : PropertiesTexts.MALFORMED) {
+			try {
+				PropertiesTexts.load(text);
+				Assert.fail("Properties.load accepted " + PropertiesTexts.describe(text));
+			} catch (IllegalArgumentException expected) {
+				// 和Properties.load一样
+			}
+			try {
+				MappedProperties.parse(ByteBuffer.wrap(PropertiesTexts.bytes(text))).toProperties();
+				Assert.fail("MappedProperties accepted " + PropertiesTexts.describe(text));
+			} catch (IllegalArgumentException expected) {
+				// 加载时或者第一次读取时报错
+			}
+		}
+	}
+
+	@Test
+	public void parseKeepsPosition() {
+		ByteBuffer buffer = ByteBuffer.wrap(PropertiesTexts.bytes("skip\na=1\n"));
+		buffer.position(5);
+		MappedProperties properties = MappedProperties.parse(buffer);
+		Assert.assertEquals(buffer.position(), 5);
+		Assert.assertEquals(properties.getProperty("a"), "1");
+		Assert.assertNull(properties.getProperty("skip"));
+		Assert.assertEquals(properties.getProperty("missing", "x"), "x");
+	}
+
+	@Test
+	public void loadsMappedFile() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			sb.append("key.").append(i).append(" = value\\u0020").append(i).append('\n');
+		}
+		Path file = Files.createTempFile("mapped", ".properties");
+		try {
+			Files.write(file, PropertiesTexts.bytes(sb.toString()));
+			MappedProperties properties = MappedProperties.load(file);
+			Assert.assertEquals(properties.size(), 5000);
+			Assert.assertEquals(properties.getProperty("key.4999"), "value 4999");
+			Assert.assertEquals(new HashMap<String, String>(properties), PropertiesTexts.load(sb.toString()));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private static void assertParsed(String text) {
+		Map<String, String> expected = PropertiesTexts.load(text);
+		MappedProperties properties = MappedProperties.parse(ByteBuffer.wrap(PropertiesTexts.bytes(text)));
+		String message = PropertiesTexts.describe(text);
+		Assert.assertEquals(properties.size(), expected.size(), message);
+		for (Map.Entry<String, String> entry : expected.entrySet()) {
+			Assert.assertEquals(properties.get(entry.getKey()), entry.getValue(), message);
+		}
+		Assert.assertEquals(new HashMap<String, String>(properties), expected, message);
+		Assert.assertEquals(properties.toProperties().size(), expected.size(), message);
+	}
+}
@@ -0,0 +1,196 @@
+package com.xmalloc.javatool.properties;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class PropertiesCacheTest {
+
+	private Path dir;
+
+	@BeforeMethod
+	public void createDir() throws IOException {
+		dir = Files.createTempDirectory("properties-cache");
+	}
+
+	@AfterMethod
+	public void deleteDir() throws IOException {
+		for (Path file : Files.newDirectoryStream(dir)) {
+			Files.delete(file);
+		}
+		Files.delete(dir);
+	}
+
+	@Test
+	public void reloadsChangedFile() throws IOException {
+		Path file = write("a.properties", "a=1\n", 1000);
+		PropertiesCache cache = new PropertiesCache(0);
+		List<Map<String, String>> reloaded = listen(cache);
+		Assert.assertEquals(cache.getValue(file.toString(), "a"), "1");
+		write("a.properties", "a=2\nb=3\n", 2000);
+		Assert.assertEquals(cache.getValue(file.toString(), "a"), "2");
+		Assert.assertEquals(reloaded.size(), 1);
+		Assert.assertEquals(reloaded.get(0).get("b"), "3");
+	}
+
+	@Test
+	public void failedReloadKeepsPreviousSnapshot() throws IOException {
+		Path file = write("a.properties", "a=1\n", 1000);
+		PropertiesCache cache = new PropertiesCache(0);
+		List<Map<String, String>> reloaded = listen(cache);
+		Assert.assertEquals(cache.getValue(file.toString(), "a"), "1");
+
+		write("a.properties", "a=2\nb=\\uZZZZ\n", 2000);
+		Assert.assertEquals(cache.getValue(file.toString(), "a"), "1");
+		Assert.assertEquals(cache.getValue(file.toString(), "a"), "1");
+		Assert.assertTrue(reloaded.isEmpty());
+
+		write("a.properties", "a=3\n", 2000);
+		Assert.assertEquals(cache.getValue(file.toString(), "a"), "3");
+		Assert.assertEquals(reloaded.size(), 1);
+	}
+
+	@Test
+	public void failedFirstLoadIsRetried() throws IOException {
+		Path file = write("a.properties", "a=\\u12\n", 1000);
+		PropertiesCache cache = new PropertiesCache(0);
+		Assert.assertTrue(cache.get(file).isEmpty());
+		write("a.properties", "a=1234\n", 1000);
+		Assert.assertEquals(cache.getValue(file.toString(), "a"), "1234");
+	}
+
+	@Test
+	public void reloadIgnoresModifiedTime() throws IOException {
+		Path file = write("a.properties", "a=1\n", 1000);
+		PropertiesCache cache = new PropertiesCache(60000);
+		List<Map<String, String>> reloaded = listen(cache);
+		cache.reload(file);
+		Assert.assertTrue(reloaded.isEmpty());
+		Assert.assertEquals(cache.getValue(file.toString(), "a"), "1");
+		write("a.properties", "a=2\n", 1000);
+		cache.reload(file);
+		Assert.assertEquals(reloaded.size(), 1);
+		Assert.assertEquals(reloaded.get(0).get("a"), "2");
+		Assert.assertEquals(cache.getValue(file.toString(), "a"), "2");
+	}
+
+	@Test
+	public void writePropertiesNotifiesListeners() throws IOException {
+		Path file = write("a.properties", "# keep\na=1\n", 1000);
+		PropertiesCache cache = PropertiesCache.getDefault();
+		final List<Map<String, String>> reloaded = new ArrayList<Map<String, String>>();
+		PropertiesCache.ReloadListener listener = (path, properties) -> {
+			if (path.equals(file.toAbsolutePath().normalize())) {
+				reloaded.add(properties);
+			}
+		};
+		cache.addListener(listener);
+		try {
+			Assert.assertEquals(PropertiesUtil.readValue(file.toString(), "a"), "1");
+			Assert.assertTrue(PropertiesUtil.writeProperties(file.toString(), Collections.singletonMap("a", "2")));
+			Assert.assertEquals(reloaded.size(), 1);
+			Assert.assertEquals(reloaded.get(0).get("a"), "2");
+			Assert.assertEquals(PropertiesUtil.readValue(file.toString(), "a"), "2");
+
+			Assert.assertFalse(PropertiesUtil.writeProperties(dir.resolve("missing.properties").toString(),
+					Collections.singletonMap("a", "3")));
+			Assert.assertEquals(reloaded.size(), 1);
+		} finally {
+			cache.removeListener(listener);
+			cache.invalidate(file);
+		}
+	}
+
+	@Test
+	public void missingFileIsEmpty() {
+		PropertiesCache cache = new PropertiesCache(0);
+		Assert.assertTrue(cache.get(dir.resolve("missing.properties")).isEmpty());
+	}
+
+	@Test
+	public void missingFilesAreNotCached() {
+		PropertiesCache cache = new PropertiesCache(60000);
+		for (int i = 0; i < 1000; i++) {
+			Assert.assertTrue(cache.get(dir.resolve("missing" + i + ".properties")).isEmpty());
+		}
+		Assert.assertEquals(cache.size(), 0);
+		cache.reload(dir.resolve("missing0.properties"));
+		Assert.assertEquals(cache.size(), 0);
+	}
+
+	@Test
+	public void deletedFileIsReportedOnce() throws IOException {
+		Path file = write("a.properties", "a=1\n", 1000);
+		PropertiesCache cache = new PropertiesCache(0);
+		List<Map<String, String>> reloaded = listen(cache);
+		Assert.assertEquals(cache.getValue(file.toString(), "a"), "1");
+		Files.delete(file);
+		Assert.assertTrue(cache.get(file).isEmpty());
+		Assert.assertTrue(cache.get(file).isEmpty());
+		Assert.assertEquals(reloaded.size(), 1);
+		Assert.assertTrue(reloaded.get(0).isEmpty());
+		Assert.assertEquals(cache.size(), 1);
+
+		write("a.properties", "a=2\n", 2000);
+		Assert.assertEquals(cache.getValue(file.toString(), "a"), "2");
+		Assert.assertEquals(reloaded.size(), 2);
+	}
+
+	@Test
+	public void concurrentReadersReloadOnce() throws Exception {
+		final Path file = write("a.properties", "a=1\n", 1000);
+		final PropertiesCache cache = new PropertiesCache(0);
+		final List<Map<String, String>> reloaded = Collections.synchronizedList(new ArrayList<Map<String, String>>());
+		cache.addListener((path, properties) -> reloaded.add(properties));
+		Assert.assertEquals(cache.getValue(file.toString(), "a"), "1");
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			for (int version = 2; version <= 20; version++) {
+				write("a.properties", "a=" + version + "\n", version * 1000);
+				final CountDownLatch start = new CountDownLatch(1);
+				List<Future<String>> futures = new ArrayList<Future<String>>();
+				for (int t = 0; t < 8; t++) {
+					futures.add(pool.submit(() -> {
+						start.await();
+						return cache.getValue(file.toString(), "a");
+					}));
+				}
+				start.countDown();
+				for (Future<String> future : futures) {
+					Assert.assertEquals(future.get(), String.valueOf(version));
+				}
+				Assert.assertEquals(reloaded.size(), version - 1);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private Path write(String name, String content, long modified) throws IOException {
+		Path file = dir.resolve(name);
+		Files.write(file, content.getBytes(StandardCharsets.ISO_8859_1));
+		Files.setLastModifiedTime(file, FileTime.fromMillis(modified));
+		return file;
+	}
+
+	private static List<Map<String, String>> listen(PropertiesCache cache) {
+		final List<Map<String, String>> reloaded = new ArrayList<Map<String, String>>();
+		cache.addListener((file, properties) -> reloaded.add(properties));
+		return reloaded;
+	}
+}
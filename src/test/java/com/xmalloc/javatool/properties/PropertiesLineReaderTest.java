@@ -0,0 +1,73 @@
+package com.xmalloc.javatool.properties;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PropertiesLineReaderTest {
+
+	@Test
+	public void matchesPropertiesLoad() {
+		for (String text : PropertiesTexts.CASES) {
+			Assert.assertEquals(read(text), PropertiesTexts.load(text), PropertiesTexts.describe(text));
+		}
+		Random random = new Random(3);
+		for (int i = 0; i < 20000; i++) {
+			String text = PropertiesTexts.random(random);
+			Assert.assertEquals(read(text), PropertiesTexts.load(text), PropertiesTexts.describe(text));
+		}
+	}
+
+	@Test
+	public void recordsRawRangeOfContinuedLine() {
+		String text = "# c\nfirst=1\nkey=a\\\n   b\\\r\n c\nlast=2";
+		PropertiesLineReader reader = new PropertiesLineReader(text);
+		Assert.assertTrue(reader.readLine() >= 0);
+		Assert.assertEquals(reader.key(), "first");
+		Assert.assertFalse(reader.isJoined());
+		Assert.assertEquals(text.substring(reader.getRawStart(), reader.getRawEnd()), "first=1");
+
+		Assert.assertTrue(reader.readLine() >= 0);
+		Assert.assertEquals(reader.key(), "key");
+		Assert.assertEquals(reader.value(), "abc");
+		Assert.assertTrue(reader.isJoined());
+		Assert.assertEquals(text.substring(reader.getRawStart(), reader.getRawEnd()), "key=a\\\n   b\\\r\n c");
+
+		Assert.assertTrue(reader.readLine() >= 0);
+		Assert.assertEquals(reader.value(), "2");
+		Assert.assertEquals(reader.getRawEnd(), text.length());
+		Assert.assertEquals(reader.readLine(), -1);
+	}
+
+	@Test
+	public void trailingBackslashAtEndOfInput() {
+		PropertiesLineReader reader = new PropertiesLineReader("a=1\\");
+		Assert.assertEquals(reader.readLine(), 3);
+		Assert.assertEquals(reader.value(), "1");
+		Assert.assertEquals(reader.readLine(), -1);
+	}
+
+	@Test
+	public void validateAndConvert() {
+		Assert.assertFalse(PropertiesLineReader.validate("abc", 0, 3));
+		Assert.assertTrue(PropertiesLineReader.validate("a\\u0041", 0, 7));
+		Assert.assertEquals(PropertiesLineReader.convert("x\\u0041\\tb\\\\", 1, 11), "A\tb\\");
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void validateRejectsShortEscape() {
+		PropertiesLineReader.validate("a\\u004", 0, 6);
+	}
+
+	private static Map<String, String> read(String text) {
+		Map<String, String> map = new HashMap<String, String>();
+		PropertiesLineReader reader = new PropertiesLineReader(text);
+		while (reader.readLine() >= 0) {
+			map.put(reader.key(), reader.value());
+		}
+		return map;
+	}
+}
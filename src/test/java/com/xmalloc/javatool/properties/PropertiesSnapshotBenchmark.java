@@ -0,0 +1,89 @@
+package com.xmalloc.javatool.properties;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * 比较启动时读取配置文件的耗时: Properties.load, MappedProperties和PropertiesSnapshot.
+ *
+ * 不是单元测试, 手动运行: mvn test-compile 后以test classpath运行这个类, 参数是key的个数和轮数, 默认 200000 20.
+ * 每轮用每种方式打开同一个文件并查找全部key, 输出最好和平均耗时. 快照在计时前已经编译好.
+ */
+public class PropertiesSnapshotBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		int keys = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		Path dir = Files.createTempDirectory("properties-benchmark");
+		Path file = dir.resolve("bench.properties");
+		try {
+			StringBuilder sb = new StringBuilder(keys * 48);
+			for (int i = 0; i < keys; i++) {
+				sb.append("# entry ").append(i).append('\n');
+				sb.append("app.module").append(i % 97).append(".key").append(i).append(" = value ").append(i)
+						.append(i % 10 == 0 ? " \\u4e2d\\u6587" : "").append('\n');
+			}
+			Files.write(file, sb.toString().getBytes(StandardCharsets.ISO_8859_1));
+			PropertiesSnapshot.open(file);
+			System.out.printf("%d keys, %d bytes, %d rounds%n", keys, Files.size(file), rounds);
+
+			String[] names = new String[keys];
+			for (int i = 0; i < keys; i++) {
+				names[i] = "app.module" + (i % 97) + ".key" + i;
+			}
+
+			long[] load = new long[rounds];
+			long[] mapped = new long[rounds];
+			long[] snapshot = new long[rounds];
+			long check = 0;
+			for (int r = 0; r < rounds; r++) {
+				long start = System.nanoTime();
+				Properties props = new Properties();
+				try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+					props.load(in);
+				}
+				for (String name : names) {
+					check += props.getProperty(name).length();
+				}
+				load[r] = System.nanoTime() - start;
+
+				start = System.nanoTime();
+				MappedProperties map = MappedProperties.load(file);
+				for (String name : names) {
+					check += map.getProperty(name).length();
+				}
+				mapped[r] = System.nanoTime() - start;
+
+				start = System.nanoTime();
+				PropertiesSnapshot open = PropertiesSnapshot.open(file);
+				for (String name : names) {
+					check += open.getProperty(name).length();
+				}
+				snapshot[r] = System.nanoTime() - start;
+			}
+			report("Properties.load", load);
+			report("MappedProperties", mapped);
+			report("PropertiesSnapshot", snapshot);
+			System.out.println("check " + check);
+		} finally {
+			Files.deleteIfExists(PropertiesSnapshot.snapshotPath(file));
+			Files.deleteIfExists(file);
+			Files.delete(dir);
+		}
+	}
+
+	private static void report(String name, long[] nanos) {
+		long best = Long.MAX_VALUE;
+		long total = 0;
+		for (long n : nanos) {
+			best = Math.min(best, n);
+			total += n;
+		}
+		System.out.printf("%-20s best %8.2f ms, mean %8.2f ms%n", name, best / 1e6, total / 1e6 / nanos.length);
+	}
+}
@@ -0,0 +1,89 @@
+package com.xmalloc.javatool.properties;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.HashMap;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class PropertiesSnapshotTest {
+
+	private Path dir;
+
+	@BeforeMethod
+	public void createDir() throws IOException {
+		dir = Files.createTempDirectory("properties-snapshot");
+	}
+
+	@AfterMethod
+	public void deleteDir() throws IOException {
+		for (Path file : Files.newDirectoryStream(dir)) {
+			Files.delete(file);
+		}
+		Files.delete(dir);
+	}
+
+	@Test
+	public void matchesPropertiesLoad() throws IOException {
+		Random random = new Random(23);
+		for (int i = 0; i < 200; i++) {
+			String text = PropertiesTexts.random(random);
+			Path file = write("a.properties", text, 1000 + i);
+			PropertiesSnapshot snapshot = PropertiesSnapshot.open(file);
+			Assert.assertEquals(new HashMap<String, String>(snapshot), PropertiesTexts.load(text),
+					PropertiesTexts.describe(text));
+		}
+	}
+
+	@Test
+	public void reusesAndRecompilesSnapshot() throws IOException {
+		Path file = write("a.properties", "b=2\na=1\n", 1000);
+		Assert.assertEquals(PropertiesSnapshot.open(file).getProperty("a"), "1");
+		Path snapshot = PropertiesSnapshot.snapshotPath(file);
+		Assert.assertTrue(Files.isRegularFile(snapshot));
+
+		// 只有修改时间变化
+		write("a.properties", "b=2\na=1\n", 2000);
+		PropertiesSnapshot touched = PropertiesSnapshot.open(file);
+		Assert.assertEquals(touched.keySet().iterator().next(), "a");
+		Assert.assertEquals(touched.getProperty("b"), "2");
+
+		write("a.properties", "b=3\na=1\n", 3000);
+		Assert.assertEquals(PropertiesSnapshot.open(file).getProperty("b"), "3");
+		Assert.assertEquals(PropertiesSnapshot.open(file).getProperty("c", "x"), "x");
+	}
+
+	@Test
+	public void snapshotHasSourcePermissions() throws IOException {
+		if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+			throw new SkipException("not a POSIX file system");
+		}
+		Path file = write("a.properties", "a=1\n", 1000);
+		Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-r--r--"));
+		PropertiesSnapshot.open(file);
+		Path snapshot = PropertiesSnapshot.snapshotPath(file);
+		Assert.assertEquals(PosixFilePermissions.toString(Files.getPosixFilePermissions(snapshot)), "rw-r--r--");
+
+		// 快照已经存在时也使用配置文件的权限
+		Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-rw-r--"));
+		write("a.properties", "a=2\n", 2000);
+		Assert.assertEquals(PropertiesSnapshot.open(file).getProperty("a"), "2");
+		Assert.assertEquals(PosixFilePermissions.toString(Files.getPosixFilePermissions(snapshot)), "rw-rw-r--");
+	}
+
+	private Path write(String name, String content, long modified) throws IOException {
+		Path file = dir.resolve(name);
+		Files.write(file, PropertiesTexts.bytes(content));
+		Files.setLastModifiedTime(file, FileTime.fromMillis(modified));
+		return file;
+	}
+}
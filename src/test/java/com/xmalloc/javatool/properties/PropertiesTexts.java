@@ -0,0 +1,71 @@
+package com.xmalloc.javatool.properties;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * 差分测试用的配置文件文本, 和 {@link Properties#load(java.io.InputStream)} 的结果比较
+ */
+final class PropertiesTexts {
+
+	/** 容易出错的写法 */
+	static final String[] CASES = { "", "\n", "a=1", "a=1\n", "a = 1\r\nb:2\rc 3\n", "  # comment\n! other\na=1",
+			"a\n", "a=\n", "=1\n", ":\n", "a==1\n", "a::1\n", "a = = 1\n", "a\\=b=c\n", "a\\ b c\n",
+			"a\\:b:c\n", "key\\\n  continued=value\n", "a=1\\\n  2\\\n\t3\n", "a=1\\\r\n 2\r\n",
+			"a=1\\\r  2\r", "a=1\\\n", "a=1\\", "a=1\\\\", "a=1\\\\\\", "a=1\\\n\n b=2\n", "a=1\\\n# not comment\n",
+			"a=\\u0041\\u00e9\\u4E2D\n", "a=\\t\\n\\r\\f\\x\\\\\n", "\\u0041=b\n", "a=1\na=2\n",
+			"a=\u00e9\u00ff\n", "\f\t a\t\f=\t1 \n", "a=1\\\n\\\n\\\n2\n", "#\\\na=1\n", "a=#1\n", "a\\\n=1\n",
+			"\\\n\\\n", "\\\\\n", "a=\\\n" };
+
+	/** 解析失败的写法 */
+	static final String[] MALFORMED = { "a=\\u12\n", "a=\\uZZZZ\n", "a=\\u\n", "\\u12=1\n", "a=1\\\n\\u00x1\n" };
+
+	private static final String[] PIECES = { "a", "b", "key", "=", ":", " ", "\t", "\f", "\\", "\\\\", "\n", "\r",
+			"\r\n", "#", "!", "\\u0041", "\\t", "\\n", "\\=", "\\ ", "\u00e9", "1", "\\\n" };
+
+	private PropertiesTexts() {
+	}
+
+	/**
+	 * 由容易出错的片段拼成的随机文本, 不含不合法的转义
+	 */
+	static String random(Random random) {
+		StringBuilder sb = new StringBuilder();
+		int n = random.nextInt(40);
+		for (int i = 0; i < n; i++) {
+			sb.append(PIECES[random.nextInt(PIECES.length)]);
+		}
+		return sb.toString();
+	}
+
+	static byte[] bytes(String text) {
+		return text.getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * @return Properties.load的结果
+	 */
+	static Map<String, String> load(String text) {
+		Properties props = new Properties();
+		try {
+			props.load(new ByteArrayInputStream(bytes(text)));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		Map<String, String> map = new HashMap<String, String>();
+		for (String name : props.stringPropertyNames()) {
+			map.put(name, props.getProperty(name));
+		}
+		return map;
+	}
+
+	static String describe(String text) {
+		return text.replace("\\", "\\\\").replace("\r", "\\r").replace("\n", "\\n").replace("\t", "\\t")
+				.replace("\f", "\\f");
+	}
+}
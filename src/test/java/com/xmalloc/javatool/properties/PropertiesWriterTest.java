@@ -0,0 +1,164 @@
+package com.xmalloc.javatool.properties;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PropertiesWriterTest {
+
+	private static final String[] VALUES = { "", "v", " leading", "trailing ", "a=b:c", "#!", "line\nbreak", "tab\t",
+			"back\\slash", "\\", "\u00e9\u4e2d", "x\\" };
+
+	@Test
+	public void replacesOnlyChangedLines() {
+		String text = "# header\r\na=1\r\nb = 2\r\n\r\n! note\r\nc:3\r\n";
+		String updated = PropertiesWriter.update(text, Collections.singletonMap("b", "two"));
+		Assert.assertEquals(updated, "# header\r\na=1\r\nb=two\r\n\r\n! note\r\nc:3\r\n");
+	}
+
+	@Test
+	public void deletesLineWithItsSeparator() {
+		Map<String, String> changes = new HashMap<String, String>();
+		changes.put("b", null);
+		changes.put("missing", null);
+		Assert.assertEquals(PropertiesWriter.update("a=1\nb=2\\\n  more\nc=3\n", changes), "a=1\nc=3\n");
+		Assert.assertEquals(PropertiesWriter.update("a=1\nb=2", changes), "a=1\n");
+	}
+
+	@Test
+	public void appendsNewKeysWithFileLineSeparator() {
+		Map<String, String> changes = new LinkedHashMap<String, String>();
+		changes.put("new key", "v");
+		changes.put("z", "\u4e2d");
+		Assert.assertEquals(PropertiesWriter.update("a=1\r\n", changes), "a=1\r\nnew\\ key=v\r\nz=\\u4E2D\r\n");
+		Assert.assertEquals(PropertiesWriter.update("a=1", changes), "a=1\nnew\\ key=v\nz=\\u4E2D\n");
+	}
+
+	@Test
+	public void trailingBackslashAtEndOfFile() {
+		Map<String, String> changes = Collections.singletonMap("b", "2");
+		for (String text : new String[] { "a=1\\", "a=1\\\n", "a=1\\\r\n", "x=0\na=1\\\\\\" }) {
+			String updated = PropertiesWriter.update(text, changes);
+			Map<String, String> expected = PropertiesTexts.load(text);
+			expected.put("b", "2");
+			Assert.assertEquals(PropertiesTexts.load(updated), expected, PropertiesTexts.describe(updated));
+		}
+	}
+
+	@Test
+	public void matchesPropertiesLoadAfterUpdate() {
+		Random random = new Random(17);
+		for (int i = 0; i < 20000; i++) {
+			String text = PropertiesTexts.random(random);
+			Map<String, String> expected = PropertiesTexts.load(text);
+			List<String> keys = new ArrayList<String>(expected.keySet());
+			Map<String, String> changes = new LinkedHashMap<String, String>();
+			int n = random.nextInt(4);
+			for (int k = 0; k < n; k++) {
+				String key = !keys.isEmpty() && random.nextBoolean() ? keys.get(random.nextInt(keys.size()))
+						: VALUES[random.nextInt(VALUES.length)] + k;
+				String value = random.nextInt(4) == 0 ? null : VALUES[random.nextInt(VALUES.length)];
+				changes.put(key, value);
+				if (value == null) {
+					expected.remove(key);
+				} else {
+					expected.put(key, value);
+				}
+			}
+			String updated = PropertiesWriter.update(text, changes);
+			Assert.assertEquals(PropertiesTexts.load(updated), expected,
+					PropertiesTexts.describe(text) + " -> " + PropertiesTexts.describe(updated));
+		}
+	}
+
+	@Test
+	public void writesFile() throws IOException {
+		Path dir = Files.createTempDirectory("properties-writer");
+		Path file = dir.resolve("a.properties");
+		try {
+			Files.write(file, "# keep\na=1\n".getBytes(StandardCharsets.ISO_8859_1));
+			Map<String, String> changes = new LinkedHashMap<String, String>();
+			changes.put("a", "2");
+			changes.put("b", "3");
+			PropertiesWriter.write(file, changes);
+			Assert.assertEquals(new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1), "# keep\na=2\nb=3\n");
+			try (Stream<Path> files = Files.list(dir)) {
+				Assert.assertEquals(files.count(), 1L);
+			}
+		} finally {
+			Files.deleteIfExists(file);
+			Files.delete(dir);
+		}
+	}
+
+	@Test
+	public void singleValueWriteRejectsNull() throws IOException {
+		Path dir = Files.createTempDirectory("properties-writer");
+		Path file = dir.resolve("a.properties");
+		try {
+			Files.write(file, "a=1\n".getBytes(StandardCharsets.ISO_8859_1));
+			try {
+				PropertiesUtil.writeProperties(file.toString(), "a", null);
+				Assert.fail();
+			} catch (NullPointerException expected) {
+			}
+			Assert.assertEquals(new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1), "a=1\n");
+			// 删除只能通过Map
+			Assert.assertTrue(PropertiesUtil.writeProperties(file.toString(), Collections.singletonMap("a", null)));
+			Assert.assertEquals(Files.size(file), 0L);
+		} finally {
+			Files.deleteIfExists(file);
+			Files.delete(dir);
+		}
+	}
+
+	@Test
+	public void concurrentWritesToOneFileAreSerialized() throws Exception {
+		Path dir = Files.createTempDirectory("properties-writer");
+		final Path file = dir.resolve("a.properties");
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			Files.write(file, new byte[0]);
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int t = 0; t < 8; t++) {
+				final int thread = t;
+				futures.add(pool.submit(() -> {
+					for (int i = 0; i < 25; i++) {
+						PropertiesWriter.write(file, Collections.singletonMap("k" + thread + "." + i, "v" + i));
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			Properties props = new Properties();
+			try (InputStream in = Files.newInputStream(file)) {
+				props.load(in);
+			}
+			Assert.assertEquals(props.size(), 200);
+			Assert.assertEquals(props.getProperty("k7.24"), "v24");
+		} finally {
+			pool.shutdown();
+			Files.deleteIfExists(file);
+			Files.delete(dir);
+		}
+	}
+}
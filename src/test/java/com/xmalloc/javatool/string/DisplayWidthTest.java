@@ -0,0 +1,89 @@
+package com.xmalloc.javatool.string;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DisplayWidthTest {
+
+	@Test
+	public void asciiAndControl() {
+		Assert.assertEquals(DisplayWidth.of("hello, world"), 12);
+		Assert.assertEquals(DisplayWidth.of(""), 0);
+		Assert.assertEquals(DisplayWidth.of('\t'), 0);
+		Assert.assertEquals(DisplayWidth.of(0x7f), 0);
+		Assert.assertEquals(DisplayWidth.of(0x9b), 0);
+		Assert.assertEquals(DisplayWidth.of("a\nb"), 2);
+	}
+
+	@Test
+	public void cjkAndFullwidth() {
+		Assert.assertEquals(DisplayWidth.of("中文"), 4);
+		Assert.assertEquals(DisplayWidth.of("日本語かなカナ"), 14);
+		Assert.assertEquals(DisplayWidth.of("한국어"), 6);
+		Assert.assertEquals(DisplayWidth.of("，。　"), 6);
+		Assert.assertEquals(DisplayWidth.of("ＡＢ１"), 6);
+		// 半角片假名
+		Assert.assertEquals(DisplayWidth.of("ｱｲｳ"), 3);
+		// 扩展B区, 代理对按一个字符计算
+		Assert.assertEquals(DisplayWidth.of("𠀀𪚥"), 4);
+		Assert.assertEquals(DisplayWidth.of(0x1100), 2);
+		Assert.assertEquals(DisplayWidth.of(0x4DBF), 2);
+		Assert.assertEquals(DisplayWidth.of(0xA4D0), 1);
+	}
+
+	@Test
+	public void combiningAndZeroWidth() {
+		// e + 组合的锐音符
+		Assert.assertEquals(DisplayWidth.of("e\u0301"), 1);
+		Assert.assertEquals(DisplayWidth.of("a\u20dd"), 1);
+		Assert.assertEquals(DisplayWidth.of("\u200b\u200d\u2060\ufeff"), 0);
+		Assert.assertEquals(DisplayWidth.of("中\u0301"), 2);
+		// 韩文字母的初声占两列, 中声和终声占零列
+		Assert.assertEquals(DisplayWidth.of("\u1100\u1161\u11a8"), 2);
+		// 变体选择符
+		Assert.assertEquals(DisplayWidth.of(0xFE0F), 0);
+		Assert.assertEquals(DisplayWidth.of(0xE0100), 0);
+	}
+
+	@Test
+	public void emoji() {
+		Assert.assertEquals(DisplayWidth.of("😀"), 2);
+		Assert.assertEquals(DisplayWidth.of("🚀🦀"), 4);
+		Assert.assertEquals(DisplayWidth.of(0x231A), 2);
+		Assert.assertEquals(DisplayWidth.of(0x2B50), 2);
+		Assert.assertEquals(DisplayWidth.of("✅"), 2);
+		// 默认按文本显示的符号占一列
+		Assert.assertEquals(DisplayWidth.of("☺"), 1);
+		Assert.assertEquals(DisplayWidth.of("©"), 1);
+		// 单独的代理
+		Assert.assertEquals(DisplayWidth.of("\ud83d"), 1);
+		Assert.assertEquals(DisplayWidth.of("😀", 0, 1), 1);
+	}
+
+	@Test
+	public void ambiguousWidthIsNarrow() {
+		// East Asian Width 为 A 的字符按一列计算, 和西文终端一致
+		for (String s : new String[] { "·", "é", "α", "Ж", "○", "①", "→", "§", "±", "─", "¼" }) {
+			Assert.assertEquals(DisplayWidth.of(s), 1, s);
+		}
+	}
+
+	@Test
+	public void fit() {
+		Assert.assertEquals(DisplayWidth.fit("abcdef", 0, 3), 3);
+		Assert.assertEquals(DisplayWidth.fit("abcdef", 4, 3), 6);
+		Assert.assertEquals(DisplayWidth.fit("ab中文", 0, 4), 3);
+		Assert.assertEquals(DisplayWidth.fit("ab中文", 0, 3), 2);
+		Assert.assertEquals(DisplayWidth.fit("中文", 0, 4), 2);
+		// 至少一个字符
+		Assert.assertEquals(DisplayWidth.fit("中文", 0, 1), 1);
+		Assert.assertEquals(DisplayWidth.fit("中文", 0, 0), 1);
+		// 代理对不拆开
+		Assert.assertEquals(DisplayWidth.fit("a😀b", 0, 2), 1);
+		Assert.assertEquals(DisplayWidth.fit("😀b", 0, 1), 2);
+		// 零宽的字符跟在前一个字符后面
+		Assert.assertEquals(DisplayWidth.fit("ae\u0301b", 0, 2), 3);
+		Assert.assertEquals(DisplayWidth.fit("中\u0301\u0301文", 0, 2), 3);
+		Assert.assertEquals(DisplayWidth.fit("", 0, 5), 0);
+	}
+}
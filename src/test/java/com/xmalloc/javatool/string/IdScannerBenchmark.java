@@ -0,0 +1,64 @@
+package com.xmalloc.javatool.string;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 比较IdScanner顺序解析和并行解析的耗时.
+ *
+ * 不是单元测试, 手动运行: mvn test-compile 后以test classpath运行这个类, 参数是ID个数, 轮数和并行度,
+ * 默认 2000000 20 和CPU个数. 输入是随机的正数ID, 用逗号和"; "分隔. 并行度小于2时parseParallel按顺序解析.
+ */
+public class IdScannerBenchmark {
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		int parallelism = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		Random random = new Random(1);
+		StringBuilder sb = new StringBuilder(count * 12);
+		for (int i = 0; i < count; i++) {
+			sb.append(Math.abs(random.nextLong() % 100000000000L)).append(i % 7 == 0 ? "; " : ",");
+		}
+		String ids = sb.toString();
+		IdScanner scanner = new IdScanner("; ");
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		System.out.printf("%d ids, %d chars, %d rounds, parallelism %d, %d cpus%n", count, ids.length(), rounds,
+				parallelism, Runtime.getRuntime().availableProcessors());
+
+		long[] sequential = new long[rounds];
+		long[] parallel = new long[rounds];
+		long[] expected = scanner.parse(ids);
+		for (int r = 0; r < rounds; r++) {
+			long start = System.nanoTime();
+			long[] result = scanner.parse(ids);
+			sequential[r] = System.nanoTime() - start;
+			check(result, expected);
+
+			start = System.nanoTime();
+			result = scanner.parseParallel(ids, null, pool);
+			parallel[r] = System.nanoTime() - start;
+			check(result, expected);
+		}
+		pool.shutdown();
+		report("parse", sequential);
+		report("parseParallel", parallel);
+	}
+
+	private static void check(long[] result, long[] expected) {
+		if (!Arrays.equals(result, expected)) {
+			throw new AssertionError("results differ");
+		}
+	}
+
+	private static void report(String name, long[] nanos) {
+		long best = Long.MAX_VALUE;
+		long total = 0;
+		for (long n : nanos) {
+			best = Math.min(best, n);
+			total += n;
+		}
+		System.out.printf("%-20s best %8.2f ms, mean %8.2f ms%n", name, best / 1e6, total / 1e6 / nanos.length);
+	}
+}
@@ -0,0 +1,220 @@
+package com.xmalloc.javatool.string;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.xmalloc.javatool.collection.LongList;
+
+public class IdScannerTest {
+
+	private static final String[] DELIMITERS = { ";", "||", "、", "<sep>" };
+
+	/** 片段: 数字, 正负号, 溢出, 空白, 非ASCII数字和不合法的内容 */
+	private static final String[] TOKENS = { "1", "42", "007", "-5", "+5", "-", "+", "--1", "+-1", "9223372036854775807",
+			"9223372036854775808", "-9223372036854775808", "-9223372036854775809", "99999999999999999999", "", " ",
+			"\t", " ", "　", "abc", "1a", "0x10", "1 2", "1.5", "١٢", "１２",
+			"-٣", "०१", "²", "|", "<se", "p>", "\n" };
+
+	/**
+	 * 改写前的idsToList: 依次把分隔符替换成逗号, split后逐个Long.parseLong
+	 */
+	static List<Long> legacyParse(String[] delimiters, String ids, List<String> bad) {
+		List<Long> result = new ArrayList<Long>();
+		if (ids == null || ids.length() == 0) {
+			return result;
+		}
+		if (delimiters != null) {
+			for (String delimiter : delimiters) {
+				if (!",".equals(delimiter))
+					ids = ids.replace(delimiter, ",");
+			}
+		}
+		for (String id : ids.split(",")) {
+			if (id.length() > 0) {
+				try {
+					result.add(Long.parseLong(id.trim()));
+				} catch (NumberFormatException e) {
+					if (bad != null && id.trim().length() > 0) {
+						bad.add(id.trim());
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	static String randomIds(Random random, String[] delimiters, int tokens) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < tokens; i++) {
+			if (random.nextInt(3) == 0) {
+				sb.append(random.nextBoolean() ? " " : "\t");
+			}
+			sb.append(TOKENS[random.nextInt(TOKENS.length)]);
+			if (random.nextInt(3) == 0) {
+				sb.append(' ');
+			}
+			int d = random.nextInt(delimiters.length + 1);
+			sb.append(d == delimiters.length ? "," : delimiters[d]);
+		}
+		return sb.toString();
+	}
+
+	private static void assertSameAsLegacy(IdScanner scanner, String[] delimiters, String ids) {
+		List<String> expectedBad = new ArrayList<String>();
+		List<Long> expected = legacyParse(delimiters, ids, expectedBad);
+		LongList ok = new LongList();
+		final List<String> bad = new ArrayList<String>();
+		scanner.parse(ids, ok, (start, end) -> bad.add(ids.substring((int) start, (int) end)));
+		Assert.assertEquals(ok.asList(), expected, ids);
+		Assert.assertEquals(bad, expectedBad, ids);
+		Assert.assertEquals(StringTool.idsToList(delimiters, ids), expected, ids);
+	}
+
+	@Test
+	public void fixedCases() {
+		IdScanner scanner = new IdScanner(DELIMITERS);
+		String[] inputs = { "", ",", ",,,", "1", "1,2,3", " 1 , 2 ,3 ", "1;2||3、4<sep>5", "-1,+2,-,+",
+				"9223372036854775807,9223372036854775808", "-9223372036854775808,-9223372036854775809",
+				"١٢,１２,-٣", "1|2|||3", "<sep<sep>>1", "1 2,3", " \t ,\n" };
+		for (String input : inputs) {
+			assertSameAsLegacy(scanner, DELIMITERS, input);
+		}
+		Assert.assertEquals(IdScanner.getDefault().parse("١٢"), new long[] { 12 });
+		Assert.assertEquals(IdScanner.getDefault().parse(null), new long[0]);
+	}
+
+	@Test
+	public void randomInputsMatchSplitAndParseLong() {
+		Random random = new Random(7);
+		IdScanner scanner = new IdScanner(DELIMITERS);
+		for (int i = 0; i < 20000; i++) {
+			assertSameAsLegacy(scanner, DELIMITERS, randomIds(random, DELIMITERS, random.nextInt(12)));
+		}
+		String[] comma = { "," };
+		for (int i = 0; i < 5000; i++) {
+			String ids = randomIds(random, new String[0], random.nextInt(12));
+			assertSameAsLegacy(IdScanner.getDefault(), comma, ids);
+			Assert.assertEquals(StringTool.idsToList(ids), legacyParse(comma, ids, null), ids);
+		}
+	}
+
+	@Test
+	public void overlappingDelimitersPreferTheLongest() {
+		// 以前先把"b"替换成逗号, 得到"1a"和"2"; 现在"ab"整个是分隔符
+		Assert.assertEquals(new IdScanner("b", "ab").parse("1ab2"), new long[] { 1, 2 });
+		Assert.assertEquals(legacyParse(new String[] { "b", "ab" }, "1ab2", null), Arrays.asList(2L));
+	}
+
+	private static void assertParallelSameAsSequential(IdScanner scanner, final String ids, ForkJoinPool pool) {
+		LongList expected = new LongList();
+		final List<String> expectedBad = new ArrayList<String>();
+		scanner.parse(ids, expected, (start, end) -> expectedBad.add(start + ":" + end));
+		final Queue<String> bad = new ConcurrentLinkedQueue<String>();
+		long[] parallel = scanner.parseParallel(ids, (start, end) -> bad.add(start + ":" + end), pool);
+		Assert.assertEquals(parallel, expected.toArray(), "length " + ids.length());
+		// 并行时回调的顺序不确定
+		List<String> sorted = new ArrayList<String>(bad);
+		Collections.sort(sorted);
+		Collections.sort(expectedBad);
+		Assert.assertEquals(sorted, expectedBad, "length " + ids.length());
+	}
+
+	/**
+	 * 先用"1,"填到pad个字符, 再放一个跨过第一块边界的片段, 剩下的用随机片段填到length个字符
+	 */
+	private static String acrossBoundary(int pad, String across, int length, Random random) {
+		StringBuilder sb = new StringBuilder(length + 64);
+		while (sb.length() < pad - 1) {
+			sb.append("1,");
+		}
+		if (sb.length() < pad) {
+			sb.append(' ');
+		}
+		sb.append(across);
+		while (sb.length() < length) {
+			sb.append(random.nextInt(1000000)).append(DELIMITERS[random.nextInt(DELIMITERS.length)]);
+		}
+		sb.setLength(length);
+		return sb.toString();
+	}
+
+	@Test
+	public void parallelMatchesSequentialAtChunkBoundaries() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			Random random = new Random(10);
+			IdScanner scanner = new IdScanner(DELIMITERS);
+			// 最小的块是64K个字符, 第一次切分从这里开始找
+			int boundary = 64 * 1024;
+			String[] across = { "1234567890123456789", "<sep>", "||", "、", "   ", "-9223372036854775808",
+					"99999999999999999999", "12<se", "p>34", "x1;" };
+			for (String token : across) {
+				for (int offset = 0; offset <= token.length() + 1; offset++) {
+					String ids = acrossBoundary(boundary - offset, token, IdScanner.PARALLEL_THRESHOLD + 4096, random);
+					assertParallelSameAsSequential(scanner, ids, pool);
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void parallelAroundThreshold() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			Random random = new Random(11);
+			IdScanner scanner = new IdScanner(DELIMITERS);
+			for (int length : new int[] { IdScanner.PARALLEL_THRESHOLD - 1, IdScanner.PARALLEL_THRESHOLD,
+					IdScanner.PARALLEL_THRESHOLD + 1, IdScanner.PARALLEL_THRESHOLD * 4 + 17 }) {
+				StringBuilder sb = new StringBuilder(length + 64);
+				while (sb.length() < length) {
+					sb.append(randomIds(random, DELIMITERS, 50));
+				}
+				sb.setLength(length);
+				assertParallelSameAsSequential(scanner, sb.toString(), pool);
+				assertParallelSameAsSequential(IdScanner.getDefault(), sb.toString(), pool);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void parallelWithoutSplitPoints() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			int length = IdScanner.PARALLEL_THRESHOLD * 2;
+			// 一个超长的片段, 找不到切分位置
+			StringBuilder sb = new StringBuilder(length);
+			while (sb.length() < length) {
+				sb.append('7');
+			}
+			assertParallelSameAsSequential(IdScanner.getDefault(), sb.toString(), pool);
+			// 只有末尾一个可以切分的位置
+			sb.setLength(length - 2);
+			sb.append(",5");
+			assertParallelSameAsSequential(IdScanner.getDefault(), sb.toString(), pool);
+			// 分隔符含有数字时按顺序解析
+			IdScanner digits = new IdScanner("0x");
+			sb.setLength(0);
+			Random random = new Random(12);
+			while (sb.length() < length) {
+				sb.append(random.nextInt(100000)).append(random.nextBoolean() ? "0x" : ",");
+			}
+			assertParallelSameAsSequential(digits, sb.toString(), pool);
+			Assert.assertEquals(IdScanner.getDefault().parseParallel(null, null), new long[0]);
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
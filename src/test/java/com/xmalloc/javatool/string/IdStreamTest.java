@@ -0,0 +1,235 @@
+package com.xmalloc.javatool.string;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.xmalloc.javatool.collection.LongList;
+
+public class IdStreamTest {
+
+	private static final String[] DELIMITERS = { ";", "||", "、", "<sep>" };
+
+	/** 字节输入只识别ASCII数字, 不用非ASCII数字 */
+	private static final String[] TOKENS = { "1", "42", "007", "-5", "+5", "-", "9223372036854775807",
+			"9223372036854775808", "-9223372036854775808", "123456789012345", "", " ", "abc", "1a", "中文", "<se",
+			"p>", "|" };
+
+	private static final IdScanner SCANNER = new IdScanner(DELIMITERS);
+
+	/**
+	 * 每次最多读取几个字符的Reader, 让数字和分隔符落在两次读取之间
+	 */
+	private static Reader trickle(final String text, final Random random) {
+		return new Reader() {
+			private int pos;
+
+			@Override
+			public int read(char[] buf, int off, int len) {
+				if (pos == text.length()) {
+					return -1;
+				}
+				int n = Math.min(Math.min(len, 1 + random.nextInt(7)), text.length() - pos);
+				text.getChars(pos, pos + n, buf, off);
+				pos += n;
+				return n;
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+	}
+
+	/**
+	 * 每次最多读取几个字节的阻塞通道
+	 */
+	private static ReadableByteChannel trickle(final byte[] bytes, final Random random) {
+		return new ReadableByteChannel() {
+			private int pos;
+			private boolean open = true;
+
+			@Override
+			public int read(ByteBuffer dst) {
+				if (pos == bytes.length) {
+					return -1;
+				}
+				int n = Math.min(Math.min(dst.remaining(), 1 + random.nextInt(5)), bytes.length - pos);
+				dst.put(bytes, pos, n);
+				pos += n;
+				return n;
+			}
+
+			@Override
+			public boolean isOpen() {
+				return open;
+			}
+
+			@Override
+			public void close() {
+				open = false;
+			}
+		};
+	}
+
+	private static String randomIds(Random random, int tokens) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < tokens; i++) {
+			if (random.nextInt(3) == 0) {
+				sb.append("  ");
+			}
+			sb.append(TOKENS[random.nextInt(TOKENS.length)]);
+			int d = random.nextInt(DELIMITERS.length + 1);
+			sb.append(d == DELIMITERS.length ? "," : DELIMITERS[d]);
+		}
+		if (random.nextBoolean()) {
+			sb.append(TOKENS[random.nextInt(TOKENS.length)]);
+		}
+		return sb.toString();
+	}
+
+	private static List<Long> drain(IdStream stream) throws IOException {
+		List<Long> result = new ArrayList<Long>();
+		try {
+			while (stream.hasNext()) {
+				result.add(stream.nextLong());
+			}
+		} finally {
+			stream.close();
+		}
+		return result;
+	}
+
+	@Test
+	public void readerMatchesScanner() throws IOException {
+		Random random = new Random(9);
+		for (int i = 0; i < 3000; i++) {
+			final String ids = randomIds(random, random.nextInt(40));
+			final List<String> expectedBad = new ArrayList<String>();
+			LongList expected = new LongList();
+			SCANNER.parse(ids, expected, (start, end) -> expectedBad.add(ids.substring((int) start, (int) end)));
+
+			final List<String> bad = new ArrayList<String>();
+			IdStream stream = IdStream.of(trickle(ids, random), SCANNER, IdStream.MIN_BUFFER_SIZE)
+					.onBadToken((start, end) -> bad.add(ids.substring((int) start, (int) end)));
+			Assert.assertEquals(drain(stream), expected.asList(), ids);
+			Assert.assertEquals(bad, expectedBad, ids);
+		}
+	}
+
+	@Test
+	public void bytesMatchScanner() throws IOException {
+		Random random = new Random(10);
+		Path file = Files.createTempFile("ids", ".txt");
+		try {
+			for (int i = 0; i < 1000; i++) {
+				final String ids = randomIds(random, random.nextInt(40));
+				final byte[] bytes = ids.getBytes(StandardCharsets.UTF_8);
+				final List<String> expectedBad = new ArrayList<String>();
+				LongList expected = new LongList();
+				SCANNER.parse(ids, expected, (start, end) -> expectedBad.add(ids.substring((int) start, (int) end)));
+
+				final List<String> bad = new ArrayList<String>();
+				IdScanner.BadTokenHandler handler = (start, end) -> bad
+						.add(new String(bytes, (int) start, (int) (end - start), StandardCharsets.UTF_8));
+				Assert.assertEquals(drain(IdStream.of(trickle(bytes, random), SCANNER, IdStream.MIN_BUFFER_SIZE)
+						.onBadToken(handler)), expected.asList(), ids);
+				Assert.assertEquals(bad, expectedBad, ids);
+
+				bad.clear();
+				Assert.assertEquals(drain(IdStream.of(new ByteArrayInputStream(bytes), SCANNER).onBadToken(handler)),
+						expected.asList(), ids);
+				Assert.assertEquals(bad, expectedBad, ids);
+
+				ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 4);
+				direct.put(new byte[] { '9', '9', ',', ',' }).put(bytes).flip();
+				direct.position(4);
+				Assert.assertEquals(drain(IdStream.of(direct, SCANNER)), expected.asList(), ids);
+				Assert.assertEquals(direct.position(), 4);
+
+				Files.write(file, bytes);
+				bad.clear();
+				Assert.assertEquals(drain(IdStream.map(file, SCANNER).onBadToken(handler)), expected.asList(), ids);
+				Assert.assertEquals(bad, expectedBad, ids);
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void largeMappedFileAndBatches() throws IOException {
+		Path file = Files.createTempFile("ids", ".txt");
+		try {
+			StringBuilder sb = new StringBuilder();
+			for (long i = 0; i < 200000; i++) {
+				sb.append(i * 7919).append(i % 5 == 0 ? "、" : ",");
+			}
+			Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+			long[] expected = LongStream.range(0, 200000).map(i -> i * 7919).toArray();
+			try (IdStream stream = IdStream.map(file, SCANNER)) {
+				long[] batch = new long[1000];
+				LongList all = new LongList();
+				int n;
+				while ((n = stream.nextBatch(batch)) > 0) {
+					for (int i = 0; i < n; i++) {
+						all.add(batch[i]);
+					}
+				}
+				Assert.assertEquals(all.toArray(), expected);
+			}
+			try (LongStream stream = IdStream.of(new StringReader(sb.toString()), SCANNER, 100).stream()) {
+				Assert.assertEquals(stream.toArray(), expected);
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void tokenLongerThanBufferIsReported() throws IOException {
+		StringBuilder sb = new StringBuilder("1,");
+		for (int i = 0; i < 200; i++) {
+			sb.append('7');
+		}
+		sb.append(",2,");
+		for (int i = 0; i < 100; i++) {
+			sb.append(' ');
+		}
+		final String ids = sb.append('3').toString();
+		final List<String> bad = new ArrayList<String>();
+		IdStream stream = IdStream.of(new StringReader(ids), SCANNER, IdStream.MIN_BUFFER_SIZE)
+				.onBadToken((start, end) -> bad.add(ids.substring((int) start, (int) end)));
+		Assert.assertEquals(drain(stream), Arrays.asList(1L, 2L));
+		Assert.assertEquals(bad.stream().map(String::trim).collect(Collectors.toList()),
+				Arrays.asList(ids.substring(2, 202), "3"));
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void rejectsNonBlockingChannel() throws IOException {
+		Pipe pipe = Pipe.open();
+		try {
+			pipe.source().configureBlocking(false);
+			IdStream.of(pipe.source(), SCANNER, IdStream.DEFAULT_BUFFER_SIZE);
+		} finally {
+			pipe.sink().close();
+			pipe.source().close();
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.xmalloc.javatool.string;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class InfoUtilTest {
+
+	@AfterMethod
+	public void restore() {
+		InfoUtil.LW = 80;
+		InfoUtil.LC = '*';
+		InfoUtil.LS = System.getProperty("line.separator");
+		InfoUtil.init();
+	}
+
+	@Test
+	public void defaultBanner() {
+		Assert.assertEquals(InfoUtil.startInfo("start"), legacyStartInfo("start"));
+		Assert.assertEquals(InfoUtil.endInfo("end"), legacyEndInfo("end"));
+	}
+
+	@Test
+	public void assignedHeadAndFootLinesAreUsed() throws Exception {
+		InfoUtil.headLine = "== head ==\n";
+		InfoUtil.footLine = "\n== foot ==";
+		Assert.assertEquals(InfoUtil.startInfo("start"), legacyStartInfo("start"));
+		Assert.assertEquals(InfoUtil.endInfo("end"), legacyEndInfo("end"));
+		StringBuilder out = new StringBuilder();
+		InfoUtil.startInfo(out, "start");
+		Assert.assertEquals(out.toString(), legacyStartInfo("start"));
+		Assert.assertEquals(InfoUtil.headLine, "== head ==\n");
+	}
+
+	@Test
+	public void changingWidthKeepsLinesUntilInit() {
+		String head = InfoUtil.headLine;
+		InfoUtil.LW = 20;
+		InfoUtil.LC = '#';
+		Assert.assertEquals(InfoUtil.startInfo("start"), legacyStartInfo("start"));
+		Assert.assertEquals(InfoUtil.endInfo("end"), legacyEndInfo("end"));
+		Assert.assertSame(InfoUtil.headLine, head);
+		InfoUtil.init();
+		Assert.assertEquals(InfoUtil.startInfo("start"), legacyStartInfo("start"));
+		Assert.assertTrue(InfoUtil.headLine.startsWith("####################"));
+	}
+
+	@Test
+	public void paddingByDisplayWidth() {
+		InfoUtil.LW = 10;
+		// 正好是行宽时不填充
+		Assert.assertEquals(InfoUtil.fillContent("1234567890"), "1234567890");
+		Assert.assertEquals(InfoUtil.fillContent("中文中文中"), "中文中文中");
+		Assert.assertEquals(InfoUtil.fillContent("中文中文中", true), "中文中文中");
+		Assert.assertEquals(InfoUtil.fillContent("12345678"), "*12345678*");
+		Assert.assertEquals(InfoUtil.fillContent("中文中文"), "*中文中文*");
+		Assert.assertEquals(InfoUtil.fillContent("e\u0301\u0301"), "****e\u0301\u0301****");
+		Assert.assertEquals(InfoUtil.fillContent("😀😀"), "***😀😀***");
+		// 比行宽长时原样返回
+		Assert.assertEquals(InfoUtil.fillContent("中文中文中a"), "中文中文中a");
+	}
+
+	@Test
+	public void wrapAtExactWidth() {
+		InfoUtil.LW = 10;
+		String ls = InfoUtil.LS;
+		// 每行最多8列, 宽字符放不下时换到下一行
+		Assert.assertEquals(InfoUtil.fillContent("中文中文中a", true), "*中文中文*" + ls + "***中a***");
+		Assert.assertEquals(InfoUtil.fillContent("1234567中文", true), "*1234567*" + ls + "***中文***");
+		Assert.assertEquals(InfoUtil.fillContent("12345678123", true), "*12345678*" + ls + "***123***");
+		// 组合字符不和前面的字符拆开
+		Assert.assertEquals(InfoUtil.fillContent("1234567e\u0301xyz", true), "*1234567e\u0301*" + ls + "***xyz***");
+		Assert.assertEquals(InfoUtil.fillContent("1234567😀ab", true), "*1234567*" + ls + "***😀ab***");
+
+		// 任何长度的内容拆开后拼起来不变, 每行不超过行宽
+		String content = "ab中文😀e\u0301x，。ＡＢ1234567890한국어";
+		for (int width = 0; width <= 12; width++) {
+			InfoUtil.LW = width;
+			String wrapped = InfoUtil.fillContent(content, true);
+			StringBuilder joined = new StringBuilder();
+			for (String line : wrapped.split(ls)) {
+				String text = line.replace("*", "");
+				Assert.assertFalse(text.isEmpty(), wrapped);
+				Assert.assertTrue(DisplayWidth.of(line) <= Math.max(width, 2), width + ": " + line);
+				joined.append(text);
+			}
+			Assert.assertEquals(joined.toString(), content, "width " + width);
+		}
+	}
+
+	private static String legacyStartInfo(String content) {
+		return InfoUtil.LS + InfoUtil.headLine + legacyFillContent(content);
+	}
+
+	private static String legacyEndInfo(String content) {
+		return InfoUtil.LS + legacyFillContent(content) + InfoUtil.footLine;
+	}
+
+	private static String legacyFillContent(String content) {
+		if (content.length() > InfoUtil.LW) {
+			return content;
+		}
+		StringBuilder result = new StringBuilder();
+		int num = (InfoUtil.LW - content.length()) / 2;
+		for (int i = 0; i < num; i++) {
+			result.append(InfoUtil.LC);
+		}
+		result.append(content);
+		for (int i = 0; i < num; i++) {
+			result.append(InfoUtil.LC);
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,271 @@
+package com.xmalloc.javatool.string;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class UnicodeEscapeTest {
+
+	@Test
+	public void decodesShortLegacyEscapes() throws IOException {
+		String[] inputs = { "\\u61", "\\u61\\u62\\u63", "\\u4e2d\\u6587", "\\u7\\u4e2d", "\\uA\\u0041" };
+		for (String input : inputs) {
+			String expected = legacyUnicode2String(input);
+			Assert.assertEquals(UnicodeEscape.unescape(input), expected, input);
+			Assert.assertEquals(StringTool.unicode2String(input), expected, input);
+			StringBuilder out = new StringBuilder();
+			UnicodeEscape.unescape(input, out);
+			Assert.assertEquals(out.toString(), expected, input);
+		}
+	}
+
+	@Test
+	public void shortEscapeEndsAtFirstNonHexDigit() throws IOException {
+		Assert.assertEquals(UnicodeEscape.unescape("x\\u61-y"), "xa-y");
+		Assert.assertEquals(UnicodeEscape.unescape("\\u0061bc"), "abc");
+		Assert.assertEquals(UnicodeEscape.unescape("\\u \\u"), "\\u \\u");
+		StringBuilder out = new StringBuilder();
+		UnicodeEscape.unescape("x\\u61-y\\u", out);
+		Assert.assertEquals(out.toString(), "xa-y\\u");
+	}
+
+	@Test
+	public void strictKeepsShortEscapes() throws IOException {
+		Assert.assertEquals(UnicodeEscape.unescape("\\u61\\u0062", true), "\\u61b");
+		StringBuilder out = new StringBuilder();
+		UnicodeEscape.unescape("\\u61\\u0062", true, out);
+		Assert.assertEquals(out.toString(), "\\u61b");
+	}
+
+	@Test
+	public void roundTrip() {
+		String text = "a\\b 中😀";
+		Assert.assertEquals(UnicodeEscape.unescape(UnicodeEscape.escape(text)), text);
+		Assert.assertEquals(UnicodeEscape.unescape(UnicodeEscape.escape(text, true)), text);
+		Assert.assertEquals(UnicodeEscape.unescape(UnicodeEscape.escape(text, true), true), text);
+	}
+
+	/** 随机文本的片段: 完整, 不完整和不合法的转义, 转义和未转义的代理 */
+	private static final String[] PIECES = { "a", "\\", "\\u", "\\u0", "\\u00", "\\u004", "\\u0041", "\\u4e2d",
+			"\\u00E9", "\\ud83d", "\\ude00", "\\uD83D\\uDE00", "\\u12g4", "\\x", "中", "é", "😀", "\ud83d",
+			"\ude00", "~" };
+
+	private static String randomText(Random random, int pieces) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < pieces; i++) {
+			sb.append(PIECES[random.nextInt(PIECES.length)]);
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void escapeToSmallBuffers() {
+		Random random = new Random(14);
+		for (int i = 0; i < 300; i++) {
+			String text = randomText(random, random.nextInt(12));
+			for (boolean nonAsciiOnly : new boolean[] { false, true }) {
+				String expected = UnicodeEscape.escape(text, nonAsciiOnly);
+				// 至少要能放下一个转义
+				for (int capacity = UnicodeEscape.ESCAPE_LENGTH; capacity <= 13; capacity++) {
+					Assert.assertEquals(escapeChars(text, nonAsciiOnly, capacity), expected, text + " " + capacity);
+					Assert.assertEquals(escapeBytes(text, nonAsciiOnly, capacity), expected, text + " " + capacity);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void escapeOverflowKeepsInputPosition() {
+		CharBuffer in = CharBuffer.wrap("ab中");
+		CharBuffer out = CharBuffer.allocate(7);
+		Assert.assertEquals(UnicodeEscape.escape(in, out, true), CoderResult.OVERFLOW);
+		Assert.assertEquals(in.position(), 2);
+		Assert.assertEquals(out.position(), 2);
+		out.clear();
+		Assert.assertEquals(UnicodeEscape.escape(in, out, true), CoderResult.UNDERFLOW);
+		Assert.assertFalse(in.hasRemaining());
+		Assert.assertEquals(out.flip().toString(), "\\u4e2d");
+
+		// 空的输出放不下一个转义时不前进, 调用者需要更大的缓冲区
+		in = CharBuffer.wrap("中");
+		out = CharBuffer.allocate(UnicodeEscape.ESCAPE_LENGTH - 1);
+		Assert.assertEquals(UnicodeEscape.escape(in, out, true), CoderResult.OVERFLOW);
+		Assert.assertEquals(in.position(), 0);
+		Assert.assertEquals(out.position(), 0);
+	}
+
+	private static String escapeChars(String text, boolean nonAsciiOnly, int capacity) {
+		CharBuffer in = CharBuffer.wrap(text);
+		CharBuffer out = CharBuffer.allocate(capacity);
+		StringBuilder result = new StringBuilder();
+		while (UnicodeEscape.escape(in, out, nonAsciiOnly) == CoderResult.OVERFLOW) {
+			Assert.assertTrue(out.position() > capacity - UnicodeEscape.ESCAPE_LENGTH, "overflow with room left");
+			result.append(out.flip());
+			out.clear();
+		}
+		Assert.assertFalse(in.hasRemaining());
+		return result.append(out.flip()).toString();
+	}
+
+	private static String escapeBytes(String text, boolean nonAsciiOnly, int capacity) {
+		CharBuffer in = CharBuffer.wrap(text);
+		ByteBuffer out = ByteBuffer.allocateDirect(capacity);
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		CoderResult cr;
+		do {
+			cr = UnicodeEscape.escape(in, out, nonAsciiOnly);
+			drain(out, result);
+		} while (cr == CoderResult.OVERFLOW);
+		Assert.assertFalse(in.hasRemaining());
+		return new String(result.toByteArray(), nonAsciiOnly ? StandardCharsets.US_ASCII : StandardCharsets.ISO_8859_1);
+	}
+
+	@Test
+	public void unescapeAcrossInputChunks() {
+		Random random = new Random(15);
+		for (int i = 0; i < 500; i++) {
+			String text = randomText(random, random.nextInt(12));
+			String expected = UnicodeEscape.unescape(text, true);
+			byte[] expectedBytes = expected.getBytes(StandardCharsets.UTF_8);
+			for (int chunk = 1; chunk <= 8; chunk++) {
+				for (int capacity = 1; capacity <= 5; capacity++) {
+					Assert.assertEquals(unescapeChars(text, chunk, capacity), expected, text + " " + chunk + " " + capacity);
+					// 至少要能放下一个四字节的UTF-8字符
+					Assert.assertEquals(unescapeBytes(text, chunk, capacity + 3), expectedBytes,
+							text + " " + chunk + " " + capacity);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void partialEscapeWaitsForMoreInput() {
+		CharBuffer out = CharBuffer.allocate(16);
+		CharBuffer in = CharBuffer.wrap("ab\\u00");
+		Assert.assertEquals(UnicodeEscape.unescape(in, out, false), CoderResult.UNDERFLOW);
+		Assert.assertEquals(in.position(), 2);
+		// 补充输入后是完整的转义
+		in = CharBuffer.wrap("\\u0041c");
+		Assert.assertEquals(UnicodeEscape.unescape(in, out, false), CoderResult.UNDERFLOW);
+		Assert.assertFalse(in.hasRemaining());
+		Assert.assertEquals(out.flip().toString(), "abAc");
+
+		// 没有更多输入时, 不完整的转义原样输出
+		out.clear();
+		in = CharBuffer.wrap("x\\u4e");
+		Assert.assertEquals(UnicodeEscape.unescape(in, out, false), CoderResult.UNDERFLOW);
+		Assert.assertEquals(in.position(), 1);
+		Assert.assertEquals(UnicodeEscape.unescape(in, out, true), CoderResult.UNDERFLOW);
+		Assert.assertFalse(in.hasRemaining());
+		Assert.assertEquals(out.flip().toString(), "x\\u4e");
+	}
+
+	@Test
+	public void surrogatePairAcrossInputChunks() {
+		ByteBuffer out = ByteBuffer.allocate(16);
+		CharBuffer in = CharBuffer.wrap("\\ud83d");
+		// 高代理留在输入中, 等待低代理
+		Assert.assertEquals(UnicodeEscape.unescape(in, out, false), CoderResult.UNDERFLOW);
+		Assert.assertEquals(in.position(), 0);
+		Assert.assertEquals(out.position(), 0);
+		in = CharBuffer.wrap("\\ud83d\\ude00");
+		Assert.assertEquals(UnicodeEscape.unescape(in, out, false), CoderResult.UNDERFLOW);
+		Assert.assertFalse(in.hasRemaining());
+		out.flip();
+		Assert.assertEquals(StandardCharsets.UTF_8.decode(out).toString(), "😀");
+
+		// 输出空间不足四个字节
+		out = ByteBuffer.allocate(3);
+		in = CharBuffer.wrap((char) 0xd83d + "\\ude00");
+		Assert.assertEquals(UnicodeEscape.unescape(in, out, true), CoderResult.OVERFLOW);
+		Assert.assertEquals(in.position(), 0);
+		Assert.assertEquals(out.position(), 0);
+
+		// 没有更多输入时, 单独的高代理写成'?'
+		out = ByteBuffer.allocate(4);
+		in = CharBuffer.wrap("\\ud83d");
+		Assert.assertEquals(UnicodeEscape.unescape(in, out, true), CoderResult.UNDERFLOW);
+		Assert.assertFalse(in.hasRemaining());
+		Assert.assertEquals(out.position(), 1);
+		Assert.assertEquals(out.get(0), (byte) '?');
+	}
+
+	/**
+	 * 每次补充chunk个字符, 未处理的部分留到下一次, 最后以endOfInput为true处理剩下的输入
+	 */
+	private static String unescapeChars(String text, int chunk, int capacity) {
+		StringBuilder pending = new StringBuilder();
+		StringBuilder result = new StringBuilder();
+		CharBuffer out = CharBuffer.allocate(capacity);
+		int next = 0;
+		while (true) {
+			int end = Math.min(text.length(), next + chunk);
+			pending.append(text, next, end);
+			next = end;
+			boolean endOfInput = next == text.length();
+			CharBuffer in = CharBuffer.wrap(pending);
+			while (UnicodeEscape.unescape(in, out, endOfInput) == CoderResult.OVERFLOW) {
+				Assert.assertEquals(out.position(), capacity);
+				result.append(out.flip());
+				out.clear();
+			}
+			pending.delete(0, in.position());
+			if (endOfInput) {
+				Assert.assertEquals(pending.length(), 0);
+				return result.append(out.flip()).toString();
+			}
+			Assert.assertTrue(pending.length() < UnicodeEscape.ESCAPE_LENGTH * 2, pending.toString());
+		}
+	}
+
+	private static byte[] unescapeBytes(String text, int chunk, int capacity) {
+		StringBuilder pending = new StringBuilder();
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		ByteBuffer out = ByteBuffer.allocateDirect(capacity);
+		int next = 0;
+		while (true) {
+			int end = Math.min(text.length(), next + chunk);
+			pending.append(text, next, end);
+			next = end;
+			boolean endOfInput = next == text.length();
+			CharBuffer in = CharBuffer.wrap(pending);
+			CoderResult cr;
+			do {
+				cr = UnicodeEscape.unescape(in, out, endOfInput);
+				drain(out, result);
+			} while (cr == CoderResult.OVERFLOW);
+			pending.delete(0, in.position());
+			if (endOfInput) {
+				Assert.assertEquals(pending.length(), 0);
+				return result.toByteArray();
+			}
+		}
+	}
+
+	private static void drain(ByteBuffer out, ByteArrayOutputStream result) {
+		out.flip();
+		while (out.hasRemaining()) {
+			result.write(out.get());
+		}
+		out.clear();
+	}
+
+	/**
+	 * 原来的unicode2String
+	 */
+	private static String legacyUnicode2String(String unicode) {
+		StringBuilder string = new StringBuilder();
+		String[] hex = unicode.split("\\\\u");
+		for (int i = 1; i < hex.length; i++) {
+			string.append((char) Integer.parseInt(hex[i], 16));
+		}
+		return string.toString();
+	}
+}
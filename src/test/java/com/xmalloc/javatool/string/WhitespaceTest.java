@@ -0,0 +1,153 @@
+package com.xmalloc.javatool.string;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class WhitespaceTest {
+
+	/** 空白和容易判断错的字符 */
+	private static final int[] CODE_POINTS = { ' ', '\t', '\n', 0x0b, '\f', '\r', 0x1c, 0x1d, 0x1e, 0x1f, 0x00, '!',
+			'a', 0x7f, 0x85, 0xa0, 0x1680, 0x2000, 0x2007, 0x200b, 0x2028, 0x2029, 0x202f, 0x205f, 0x3000, 0xfeff,
+			0xffff, 0x10000, 0x1f600 };
+
+	/** 不合法或不完整的UTF-8片段 */
+	private static final byte[][] MALFORMED = { bytes(0xc0, 0xa0), bytes(0xc1, 0x89), bytes(0xe0, 0x80, 0xa0),
+			bytes(0xe0, 0x9f, 0xbf), bytes(0xf0, 0x80, 0x80, 0xa0), bytes(0xf0, 0x8f, 0xbf, 0xbf),
+			bytes(0xed, 0xa0, 0x80), bytes(0xed, 0xbf, 0xbf), bytes(0xf4, 0x90, 0x80, 0x80),
+			bytes(0xf5, 0x80, 0x80, 0x80), bytes(0xf8, 0x88, 0x80, 0x80, 0x80), bytes(0x80), bytes(0xbf),
+			bytes(0xe2, 0x80), bytes(0xe3, 0x80), bytes(0xff), bytes(0xfe) };
+
+	private static byte[] bytes(int... values) {
+		byte[] bytes = new byte[values.length];
+		for (int i = 0; i < values.length; i++) {
+			bytes[i] = (byte) values[i];
+		}
+		return bytes;
+	}
+
+	private static boolean expected(CharSequence s) {
+		return s.codePoints().allMatch(Character::isWhitespace);
+	}
+
+	private static boolean expected(byte[] bytes) {
+		return expected(new String(bytes, StandardCharsets.UTF_8));
+	}
+
+	private static void assertUtf8(byte[] bytes) {
+		boolean expected = expected(bytes);
+		String message = toHex(bytes);
+		Assert.assertEquals(StringTool.isBlankUtf8(bytes), expected, message);
+		Assert.assertEquals(StringTool.isBlankUtf8(ByteBuffer.wrap(bytes)), expected, message);
+		ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+		direct.put(bytes).flip();
+		Assert.assertEquals(StringTool.isBlankUtf8(direct), expected, message);
+		Assert.assertEquals(direct.position(), 0);
+
+		// 前后加上非空白字节, 只判断中间一段
+		byte[] padded = new byte[bytes.length + 6];
+		padded[0] = padded[1] = padded[2] = 'x';
+		padded[padded.length - 1] = padded[padded.length - 2] = padded[padded.length - 3] = 'x';
+		System.arraycopy(bytes, 0, padded, 3, bytes.length);
+		Assert.assertEquals(StringTool.isBlankUtf8(padded, 3, bytes.length), expected, message);
+		ByteBuffer slice = ByteBuffer.wrap(padded, 3, bytes.length).slice();
+		Assert.assertEquals(StringTool.isBlankUtf8(slice), expected, message);
+		ByteBuffer window = ByteBuffer.allocateDirect(padded.length);
+		window.put(padded).position(3).limit(3 + bytes.length);
+		Assert.assertEquals(StringTool.isBlankUtf8(window), expected, message);
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder();
+		for (byte b : bytes) {
+			sb.append(String.format("%02x ", b & 0xff));
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void nullAndEmpty() {
+		Assert.assertTrue(StringTool.isBlank((String) null));
+		Assert.assertTrue(StringTool.isBlank((CharSequence) null));
+		Assert.assertTrue(StringTool.isBlankUtf8((byte[]) null));
+		Assert.assertTrue(StringTool.isBlankUtf8((ByteBuffer) null));
+		Assert.assertTrue(StringTool.isBlank(""));
+		Assert.assertTrue(StringTool.isBlankUtf8(new byte[0]));
+		Assert.assertTrue(StringTool.isBlankUtf8(new byte[] { 'x' }, 1, 0));
+	}
+
+	@Test(expectedExceptions = IndexOutOfBoundsException.class)
+	public void rangeIsChecked() {
+		StringTool.isBlankUtf8(new byte[4], 2, 3);
+	}
+
+	@Test
+	public void everyCharMatchesCharacterIsWhitespace() {
+		for (int c = 0; c <= Character.MAX_VALUE; c++) {
+			String s = String.valueOf((char) c);
+			boolean expected = Character.isWhitespace((char) c);
+			Assert.assertEquals(StringTool.isBlank(s), expected, Integer.toHexString(c));
+			// 8个字符一块的路径
+			Assert.assertEquals(StringTool.isBlank("        " + s + "       "), expected, Integer.toHexString(c));
+		}
+	}
+
+	@Test
+	public void everyCodePointMatchesDecoder() {
+		for (int cp = 0; cp <= Character.MAX_CODE_POINT; cp++) {
+			if (cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE) {
+				continue;
+			}
+			byte[] bytes = new String(Character.toChars(cp)).getBytes(StandardCharsets.UTF_8);
+			if (StringTool.isBlankUtf8(bytes) != Character.isWhitespace(cp)) {
+				Assert.fail(Integer.toHexString(cp));
+			}
+		}
+	}
+
+	@Test
+	public void malformedSequencesAreNotBlank() {
+		for (byte[] malformed : MALFORMED) {
+			Assert.assertFalse(StringTool.isBlankUtf8(malformed), toHex(malformed));
+			assertUtf8(malformed);
+			byte[] surrounded = new byte[malformed.length + 16];
+			Arrays.fill(surrounded, (byte) ' ');
+			System.arraycopy(malformed, 0, surrounded, 8, malformed.length);
+			Assert.assertFalse(StringTool.isBlankUtf8(surrounded), toHex(surrounded));
+			assertUtf8(surrounded);
+		}
+	}
+
+	@Test
+	public void randomTextsMatchDecoder() {
+		Random random = new Random(15);
+		for (int i = 0; i < 20000; i++) {
+			StringBuilder sb = new StringBuilder();
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			boolean mostlyBlank = random.nextInt(4) != 0;
+			for (int k = random.nextInt(40); k > 0; k--) {
+				if (random.nextInt(60) == 0) {
+					byte[] malformed = MALFORMED[random.nextInt(MALFORMED.length)];
+					out.write(malformed, 0, malformed.length);
+					continue;
+				}
+				int cp = mostlyBlank && random.nextInt(50) != 0 ? CODE_POINTS[random.nextInt(10)]
+						: CODE_POINTS[random.nextInt(CODE_POINTS.length)];
+				sb.appendCodePoint(cp);
+				byte[] encoded = new String(Character.toChars(cp)).getBytes(StandardCharsets.UTF_8);
+				out.write(encoded, 0, encoded.length);
+			}
+			String text = sb.toString();
+			Assert.assertEquals(StringTool.isBlank(text), expected(text), text);
+			Assert.assertEquals(StringTool.isBlank(new StringBuilder(text)), expected(text), text);
+			Assert.assertEquals(StringTool.isBlank(CharBuffer.wrap(text)), expected(text), text);
+			assertUtf8(out.toByteArray());
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.xmalloc.javatool.time;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CachedClockTest {
+
+	private static final String[] ZONES = { "UTC", "Asia/Shanghai", "America/Sao_Paulo", "America/St_Johns",
+			"Pacific/Apia", "Asia/Kolkata", "GMT-12:00", "GMT+14:00" };
+
+	private static String expected(long millis, TimeZone zone, String pattern) {
+		SimpleDateFormat format = new SimpleDateFormat(pattern);
+		format.setTimeZone(zone);
+		return format.format(new Date(millis));
+	}
+
+	@Test
+	public void formatMatchesSimpleDateFormat() {
+		Random random = new Random(3);
+		long from = -20000000000000L; // 1336
+		long to = 320000000000000L; // 12110
+		for (String id : ZONES) {
+			TimeZone zone = TimeZone.getTimeZone(id);
+			CachedClock clock = new CachedClock(zone);
+			for (int i = 0; i < 5000; i++) {
+				long millis = i % 2 == 0 ? from + (long) (random.nextDouble() * (to - from))
+						: 1500000000000L + random.nextInt(1000) * 3600000L + random.nextInt(3600000);
+				Assert.assertEquals(clock.format(millis), expected(millis, zone, TimeTool.FORMAT_LONG), id + " " + millis);
+			}
+			// 格里高利历起点和四位年份上限两边
+			for (long millis : new long[] { -12219292800000L - 1, -12219292800000L, 253402300800000L - 1,
+					253402300800000L }) {
+				for (long delta = -2 * CalendarMath.MILLIS_PER_DAY; delta <= 2 * CalendarMath.MILLIS_PER_DAY; delta += 3600000L) {
+					Assert.assertEquals(clock.format(millis + delta),
+							expected(millis + delta, zone, TimeTool.FORMAT_LONG), id + " " + (millis + delta));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void currentTimeMatchesNow() {
+		CachedClock clock = new CachedClock(TimeZone.getTimeZone("Asia/Shanghai"));
+		for (int i = 0; i < 100; i++) {
+			long before = System.currentTimeMillis();
+			String time = clock.currentTime();
+			String date = clock.currentDate();
+			long after = System.currentTimeMillis();
+			if (before / 1000 != after / 1000) {
+				continue;
+			}
+			TimeZone zone = TimeZone.getTimeZone("Asia/Shanghai");
+			Assert.assertEquals(time, expected(before, zone, TimeTool.FORMAT_LONG));
+			Assert.assertEquals(date, expected(before, zone, TimeTool.FORMAT_SHORT));
+			Assert.assertEquals(clock.format(before), time);
+		}
+	}
+
+	@Test
+	public void fixedZoneIsNotAffectedByDefault() throws Exception {
+		TimeZone saved = TimeZone.getDefault();
+		TimeZone zone = TimeZone.getTimeZone("Asia/Shanghai");
+		CachedClock clock = new CachedClock(zone);
+		try {
+			TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+			long millis = System.currentTimeMillis() - 86400000L;
+			Assert.assertEquals(clock.format(millis), expected(millis, zone, TimeTool.FORMAT_LONG));
+		} finally {
+			TimeZone.setDefault(saved);
+		}
+	}
+
+	@Test
+	public void defaultFollowsSetDefaultWithinASecond() throws Exception {
+		TimeZone saved = TimeZone.getDefault();
+		try {
+			for (String id : new String[] { "Pacific/Kiritimati", "Pacific/Pago_Pago" }) {
+				TimeZone zone = TimeZone.getTimeZone(id);
+				TimeZone.setDefault(zone);
+				// 缓存的这一秒过去后才读取新的默认时区
+				Thread.sleep(1100);
+				long millis = System.currentTimeMillis() - 86400000L;
+				Assert.assertEquals(CachedClock.getDefault().format(millis), expected(millis, zone, TimeTool.FORMAT_LONG));
+				Assert.assertEquals(TimeTool.getFormatDateByUnixTimeStamp(millis / 1000),
+						expected(millis / 1000 * 1000, zone, TimeTool.FORMAT_LONG));
+				long before = System.currentTimeMillis();
+				String date = TimeTool.getCurrDate(0);
+				if (before / 1000 == System.currentTimeMillis() / 1000) {
+					Assert.assertEquals(date, expected(before, zone, TimeTool.FORMAT_SHORT));
+				}
+			}
+		} finally {
+			TimeZone.setDefault(saved);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.xmalloc.javatool.time;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SimpleTimeZone;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DateFormatCacheTest {
+
+	@Test
+	public void parseWithZoneDoesNotChangeLaterFormat() throws ParseException {
+		DateFormatCache cache = new DateFormatCache(4);
+		DateFormatCache.Formatter formatter = cache.get("yyyy-MM-dd HH:mm z", TimeZone.getTimeZone("UTC"));
+		Date parsed = formatter.parse("2012-01-01 10:00 PST");
+		Assert.assertEquals(parsed.getTime(), 1325440800000L);
+		for (int i = 0; i < 16; i++) {
+			Assert.assertEquals(formatter.format(parsed), "2012-01-01 18:00 UTC");
+		}
+	}
+
+	@Test
+	public void cachesByPatternAndZone() {
+		DateFormatCache cache = new DateFormatCache(4);
+		Assert.assertSame(cache.get("yyyy"), cache.get("yyyy"));
+		Assert.assertNotSame(cache.get("yyyy", TimeZone.getTimeZone("UTC")), cache.get("yyyy"));
+		Assert.assertEquals(cache.missCount(), 2);
+		Assert.assertEquals(cache.hitCount(), 2);
+	}
+
+	@Test
+	public void zonesWithSameIdAndDifferentRules() {
+		DateFormatCache cache = new DateFormatCache(4);
+		TimeZone plusOne = new SimpleTimeZone(3600000, "Custom");
+		TimeZone plusFive = new SimpleTimeZone(5 * 3600000, "Custom");
+		Date date = new Date(1325412000000L);
+		Assert.assertEquals(cache.get("HH:mm", plusOne).format(date), "11:00");
+		Assert.assertEquals(cache.get("HH:mm", plusFive).format(date), "15:00");
+		Assert.assertEquals(cache.get("HH:mm", new SimpleTimeZone(3600000, "Custom")).format(date), "11:00");
+		Assert.assertEquals(cache.missCount(), 2);
+
+		// 缓存保存时区的副本, 之后修改调用方的时区不影响已缓存的格式
+		plusOne.setRawOffset(2 * 3600000);
+		Assert.assertEquals(cache.get("HH:mm", new SimpleTimeZone(3600000, "Custom")).format(date), "11:00");
+		Assert.assertEquals(cache.get("HH:mm", plusOne).format(date), "12:00");
+	}
+
+	@Test
+	public void evictsBeyondMaxSize() {
+		DateFormatCache cache = new DateFormatCache(4);
+		for (int i = 0; i < 20; i++) {
+			cache.get("yyyy'" + i + "'");
+		}
+		Assert.assertTrue(cache.size() <= 4);
+		Assert.assertEquals(cache.evictionCount(), 20 - cache.size());
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void rejectsInvalidPattern() {
+		new DateFormatCache(4).get("yyyy-qq");
+	}
+
+	@Test
+	public void concurrentFormatAndParse() throws Exception {
+		final DateFormatCache.Formatter formatter = new DateFormatCache(4).get("yyyy-MM-dd'T'HH:mm:ss.SSS Z",
+				TimeZone.getTimeZone("UTC"));
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int t = 0; t < 4; t++) {
+				final long seed = t;
+				results.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws ParseException {
+						for (int i = 0; i < 5000; i++) {
+							Date date = new Date(seed * 1000000007L + i * 86400123L);
+							String text = formatter.format(date);
+							if (!text.endsWith("+0000") || formatter.parse(text).getTime() != date.getTime()) {
+								return false;
+							}
+							formatter.parse("2012-01-01T00:00:00.000 -0500");
+						}
+						return true;
+					}
+				}));
+			}
+			for (Future<Boolean> result : results) {
+				Assert.assertTrue(result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.xmalloc.javatool.time;
+
+import java.text.DateFormat;
+import java.text.DateFormatSymbols;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DateToolTest {
+
+	/** parseDate在改写前使用的格式 */
+	private static final String[][] FORMATS = { { "yyyy-MM-dd'T'HH:mm:ss'Z'", "UTC" }, { "yyyy-MM-dd'T'HH:mm:ssZ", null },
+			{ "yyyy-MM-dd'T'HH:mm:ss", null }, { "yyyy-MM-dd' 'HH:mm:ss'Z'", "UTC" },
+			{ "yyyy-MM-dd' 'HH:mm:ssZ", null }, { "yyyy-MM-dd' 'HH:mm:ss", null }, { "yyyy-MM-dd", "GMT-12:00" },
+			{ "yyyy:MM:dd", "GMT-12:00" } };
+
+	private static Date legacyParse(String date) {
+		int n = date.length();
+		if (n >= 6 && date.charAt(n - 3) == ':' && (date.charAt(n - 6) == '+' || date.charAt(n - 6) == '-')) {
+			date = date.substring(0, n - 3) + date.substring(n - 2);
+		}
+		for (String[] f : FORMATS) {
+			DateFormat format = new SimpleDateFormat(f[0], new DateFormatSymbols(Locale.US));
+			if (f[1] != null) {
+				format.setTimeZone(TimeZone.getTimeZone(f[1]));
+			}
+			try {
+				return format.parse(date);
+			} catch (ParseException ignore) {
+			}
+		}
+		return null;
+	}
+
+	@Test
+	public void acceptsSameInputsAsSimpleDateFormat() {
+		String[] inputs = { "2012-01-01T10:00:00Z", "2012-01-01T10:00:00+05:30", "2012-01-01T10:00:00-0800",
+				"2012-01-01 10:00:00", "2012-01-01T10:00:00 PST", "2012-01-01T10:00:00EST", "2012-01-01 10:00:00 UTC",
+				"2012--1-01", "2012-01-01Tfoo", "2012-02-31", "2012:01:01", "1500-02-03T01:02:03+0100",
+				"1546-12-102012", "2012-13-45T25:61:61Z", "foo", "2012", "\n2012-01-01", "2012-\n01-01",
+				"2012-\t01-01", " 2012-01-01", "2012-01-01T10:00:00\n+0800", "2012-01-01T10:00:00\u001c+0800",
+				"2012-01-01T10:00:00\t+0800", "2012-01-01T10:00:00\r\n", "2012-01-01T\f10:00:00" };
+		for (String input : inputs) {
+			Assert.assertEquals(DateTool.parseDate(input), legacyParse(input), input);
+		}
+	}
+
+	@Test
+	public void randomInputs() {
+		Random random = new Random(1);
+		String[] tokens = { "2012", "1", "01", "31", "-", ":", "T", " ", "Z", "+", "0100", "05:30", "PST", "UTC", "x",
+				"99", "-1", "23", "60", "\t", "\n", "\r", "\f", "\u001c", "\u00a0", "\u3000" };
+		String[] blanks = { "", "", "", "", " ", "\t", "\n", "\r", "\f", "\u001c", "\u2028" };
+		for (int i = 0; i < 20000; i++) {
+			StringBuilder sb = new StringBuilder();
+			sb.append(pick(random, blanks)).append(random.nextInt(3000)).append('-').append(pick(random, blanks))
+					.append(random.nextInt(14)).append('-').append(pick(random, blanks)).append(random.nextInt(33));
+			if (random.nextBoolean()) {
+				sb.append(random.nextBoolean() ? 'T' : ' ').append(pick(random, blanks)).append(random.nextInt(25))
+						.append(':').append(pick(random, blanks)).append(random.nextInt(61)).append(':')
+						.append(pick(random, blanks)).append(random.nextInt(61)).append(pick(random, blanks));
+			}
+			for (int k = random.nextInt(3); k > 0; k--) {
+				sb.append(tokens[random.nextInt(tokens.length)]);
+			}
+			String input = sb.toString();
+			Assert.assertEquals(DateTool.parseDate(input), legacyParse(input), input);
+		}
+	}
+
+	private static String pick(Random random, String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	@Test
+	public void formatRoundTrip() {
+		long millis = 1325412000000L;
+		Assert.assertEquals(DateTool.formatDate(millis), "2012-01-01T10:00:00Z");
+		Assert.assertEquals(DateTool.parseDate(DateTool.formatDate(millis)).getTime(), millis);
+	}
+}
@@ -0,0 +1,87 @@
+package com.xmalloc.javatool.time;
+
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.function.LongSupplier;
+
+/**
+ * 比较N天后0点和是否当天的旧Calendar/SimpleDateFormat写法和DayBoundary的耗时和分配.
+ *
+ * 不是单元测试, 手动运行: mvn test-compile 后以test classpath运行这个类, 参数是每轮调用次数和轮数, 默认 1000000 10.
+ * 分配字节数来自com.sun.management.ThreadMXBean, 在不支持的JVM上输出-1.
+ */
+public class DayBoundaryBenchmark {
+
+	public static void main(String[] args) {
+		int calls = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		long seconds = System.currentTimeMillis() / 1000;
+		String today = TimeTool.getCurrDate(0);
+		System.out.printf("%d calls, %d rounds%n", calls, rounds);
+
+		run("legacy getCalendarAfterByDay", calls, rounds, () -> legacyCalendarAfterByDay(1).getTimeInMillis());
+		run("getCalendarAfterByDay", calls, rounds, () -> TimeTool.getCalendarAfterByDay(1).getTimeInMillis());
+		run("getMillisAfterByDay", calls, rounds, () -> TimeTool.getMillisAfterByDay(1));
+		run("legacy isCurrDay(long)", calls, rounds, () -> legacyIsCurrDay(seconds) ? 1 : 0);
+		run("isCurrDay(long)", calls, rounds, () -> TimeTool.isCurrDay(seconds) ? 1 : 0);
+		run("legacy isCurrDay(String)", calls, rounds, () -> legacyIsCurrDay(today) ? 1 : 0);
+		run("isCurrDay(String)", calls, rounds, () -> TimeTool.isCurrDay(today) ? 1 : 0);
+	}
+
+	/**
+	 * 改写前的getCalendarAfterByDay, 包括用HOUR清零的问题
+	 */
+	private static Calendar legacyCalendarAfterByDay(int days) {
+		Calendar now = Calendar.getInstance();
+		now.setTime(new Date());
+		now.set(Calendar.DATE, now.get(Calendar.DATE) + days);
+		now.set(Calendar.HOUR, 0);
+		now.set(Calendar.MINUTE, 0);
+		now.set(Calendar.SECOND, 0);
+		return now;
+	}
+
+	private static boolean legacyIsCurrDay(String time) {
+		String currDay = new SimpleDateFormat("yyyy-MM-dd").format(new Date()).replaceAll("-", "");
+		String tempTime = time.substring(0, 10).replaceAll("-", "");
+		return currDay.equals(tempTime);
+	}
+
+	private static boolean legacyIsCurrDay(long time) {
+		Date date = new Date(time * 1000);
+		String loginTime = new SimpleDateFormat("yyyy-MM-dd").format(date);
+		return legacyIsCurrDay(loginTime);
+	}
+
+	private static void run(String name, int calls, int rounds, LongSupplier op) {
+		long best = Long.MAX_VALUE;
+		long total = 0;
+		long bytes = 0;
+		long check = 0;
+		for (int r = 0; r < rounds; r++) {
+			long allocated = allocatedBytes();
+			long start = System.nanoTime();
+			for (int i = 0; i < calls; i++) {
+				check += op.getAsLong();
+			}
+			long nanos = System.nanoTime() - start;
+			bytes = allocatedBytes() - allocated;
+			best = Math.min(best, nanos);
+			total += nanos;
+		}
+		// 最后一轮的分配, 前几轮包括预热时的编译
+		System.out.printf("%-30s best %8.2f ns/op, mean %8.2f ns/op, %8.1f B/op (check %d)%n", name,
+				(double) best / calls, (double) total / calls / rounds, allocatedBytes() < 0 ? -1 : (double) bytes / calls,
+				check);
+	}
+
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,149 @@
+package com.xmalloc.javatool.time;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Calendar;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DayBoundaryTest {
+
+	/** 有夏令时, 午夜切换, 跳过整天或非整点偏移的时区 */
+	private static final String[] ZONES = { "UTC", "Asia/Shanghai", "America/Sao_Paulo", "Pacific/Apia",
+			"America/New_York", "Europe/London", "Australia/Lord_Howe", "Asia/Kolkata", "America/Havana", "Asia/Beirut",
+			"Africa/Casablanca", "America/St_Johns", "Pacific/Kiritimati" };
+
+	private static final long DAY = CalendarMath.MILLIS_PER_DAY;
+
+	private static void assertDay(DayBoundary boundary, long millis) {
+		ZoneId zone = boundary.getZone();
+		LocalDate date = Instant.ofEpochMilli(millis).atZone(zone).toLocalDate();
+		String message = zone + " " + Instant.ofEpochMilli(millis);
+		Assert.assertEquals(boundary.epochDay(millis), date.toEpochDay(), message);
+		Assert.assertEquals(boundary.startOfDay(millis), start(date, zone), message);
+		for (int days = -2; days <= 2; days++) {
+			Assert.assertEquals(boundary.startOfDay(millis, days), start(date.plusDays(days), zone), message + " " + days);
+		}
+	}
+
+	private static long start(LocalDate date, ZoneId zone) {
+		return date.atStartOfDay(zone).toInstant().toEpochMilli();
+	}
+
+	@Test
+	public void randomInstantsMatchJavaTime() {
+		Random random = new Random(5);
+		long from = -2208988800000L; // 1900
+		long to = 4102444800000L; // 2100
+		for (String id : ZONES) {
+			DayBoundary boundary = DayBoundary.of(ZoneId.of(id));
+			for (int i = 0; i < 5000; i++) {
+				assertDay(boundary, from + (long) (random.nextDouble() * (to - from)));
+			}
+		}
+	}
+
+	@Test
+	public void aroundEveryOffsetChange() {
+		for (String id : ZONES) {
+			ZoneId zone = ZoneId.of(id);
+			DayBoundary boundary = DayBoundary.of(zone);
+			ZoneRules rules = zone.getRules();
+			Instant at = Instant.parse("1970-01-01T00:00:00Z");
+			Instant end = Instant.parse("2040-01-01T00:00:00Z");
+			for (ZoneOffsetTransition t = rules.nextTransition(at); t != null
+					&& t.getInstant().isBefore(end); t = rules.nextTransition(t.getInstant())) {
+				long millis = t.getInstant().toEpochMilli();
+				// 切换前后, 以及前一天和后一天的同一时刻
+				for (long delta : new long[] { -DAY - 1, -DAY, -1, 0, 1, DAY - 1, DAY, DAY + 1 }) {
+					assertDay(boundary, millis + delta);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void dayStartsAfterGapAtMidnight() {
+		// 这些日子的00:00不存在, 一天从01:00开始
+		assertStart("America/Sao_Paulo", LocalDate.of(2018, 11, 4), LocalDateTime.of(2018, 11, 4, 1, 0));
+		assertStart("America/Havana", LocalDate.of(2019, 3, 10), LocalDateTime.of(2019, 3, 10, 1, 0));
+		assertStart("Asia/Beirut", LocalDate.of(2019, 3, 31), LocalDateTime.of(2019, 3, 31, 1, 0));
+		// 夏令时结束时00:00出现两次, 取第一次
+		ZoneId saoPaulo = ZoneId.of("America/Sao_Paulo");
+		long first = ZonedDateTime.ofLocal(LocalDateTime.of(2019, 2, 16, 0, 0), saoPaulo, null)
+				.withEarlierOffsetAtOverlap().toInstant().toEpochMilli();
+		Assert.assertEquals(DayBoundary.of(saoPaulo).startOfEpochDay(LocalDate.of(2019, 2, 16).toEpochDay()), first);
+	}
+
+	private static void assertStart(String id, LocalDate date, LocalDateTime expected) {
+		ZoneId zone = ZoneId.of(id);
+		long millis = expected.atZone(zone).toInstant().toEpochMilli();
+		DayBoundary boundary = DayBoundary.of(zone);
+		Assert.assertEquals(boundary.startOfEpochDay(date.toEpochDay()), millis, id);
+		Assert.assertEquals(boundary.epochDay(millis), date.toEpochDay(), id);
+		Assert.assertEquals(boundary.epochDay(millis - 1), date.toEpochDay() - 1, id);
+		Assert.assertEquals(boundary.startOfDay(millis - 1, 1), millis, id);
+	}
+
+	@Test
+	public void skippedDayHasNoInstants() {
+		// 萨摩亚跳过了2011-12-30
+		ZoneId apia = ZoneId.of("Pacific/Apia");
+		DayBoundary boundary = DayBoundary.of(apia);
+		long lastOf29 = LocalDateTime.of(2011, 12, 29, 23, 59, 59, 999000000).atZone(apia).toInstant().toEpochMilli();
+		Assert.assertEquals(boundary.epochDay(lastOf29), LocalDate.of(2011, 12, 29).toEpochDay());
+		Assert.assertEquals(boundary.epochDay(lastOf29 + 1), LocalDate.of(2011, 12, 31).toEpochDay());
+		Assert.assertEquals(boundary.startOfDay(lastOf29, 1), lastOf29 + 1);
+		Assert.assertEquals(boundary.startOfDay(lastOf29, 2), lastOf29 + 1);
+	}
+
+	@Test
+	public void afternoonIsTruncatedToMidnight() {
+		// 以前用Calendar.HOUR清零, 下午调用得到的是中午12点, 毫秒也没有清零
+		for (String id : ZONES) {
+			ZoneId zone = ZoneId.of(id);
+			for (int hour : new int[] { 0, 11, 12, 13, 23 }) {
+				LocalDateTime time = LocalDateTime.of(2016, 6, 15, hour, 30, 45, 123000000);
+				long millis = time.atZone(zone).toInstant().toEpochMilli();
+				long start = DayBoundary.of(zone).startOfDay(millis, 1);
+				ZonedDateTime midnight = Instant.ofEpochMilli(start).atZone(zone);
+				Assert.assertEquals(midnight.toLocalDateTime(), LocalDateTime.of(2016, 6, 16, 0, 0), id + " " + hour);
+			}
+		}
+	}
+
+	@Test
+	public void timeToolReturnsExactMidnight() {
+		for (int days = -3; days <= 3; days++) {
+			Calendar calendar = TimeTool.getCalendarAfterByDay(days);
+			Assert.assertEquals(calendar.get(Calendar.HOUR_OF_DAY), 0);
+			Assert.assertEquals(calendar.get(Calendar.MINUTE), 0);
+			Assert.assertEquals(calendar.get(Calendar.SECOND), 0);
+			Assert.assertEquals(calendar.get(Calendar.MILLISECOND), 0);
+
+			Calendar expected = Calendar.getInstance();
+			long before = expected.getTimeInMillis();
+			expected.add(Calendar.DATE, days);
+			expected.set(Calendar.HOUR_OF_DAY, 0);
+			expected.set(Calendar.MINUTE, 0);
+			expected.set(Calendar.SECOND, 0);
+			expected.set(Calendar.MILLISECOND, 0);
+			long millis = TimeTool.getMillisAfterByDay(days);
+			if (DayBoundary.systemDefault().startOfDay(before) != DayBoundary.systemDefault().todayStart()) {
+				// 刚好跨过午夜
+				continue;
+			}
+			Assert.assertEquals(millis, expected.getTimeInMillis(), "days " + days);
+			Assert.assertEquals(TimeTool.getDateBeforeByDay(-days).getTime(), millis);
+			Assert.assertEquals(TimeTool.getTimeStampAfterByDay(days), millis / 1000);
+			Assert.assertEquals(TimeTool.getTimeStampBeforeByDay(-days), millis / 1000);
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package com.xmalloc.javatool.time;
+
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TimeToolTest {
+
+	private static final long HOUR = 3600000L;
+
+	private static final long DAY = CalendarMath.MILLIS_PER_DAY;
+
+	private static final String[] ZONES = { "UTC", "Asia/Shanghai", "America/Sao_Paulo", "America/New_York",
+			"America/St_Johns", "America/Santiago", "America/Havana", "Pacific/Apia", "Australia/Lord_Howe" };
+
+	/** 改写前的afterNow, now是当前时间 */
+	private static boolean legacyAfterNow(Date inDate, long now, TimeZone zone) {
+		Calendar calendar = Calendar.getInstance(zone);
+		calendar.setTimeInMillis(now);
+		Calendar inCalendar = Calendar.getInstance(zone);
+		inCalendar.setTime(inDate);
+		int nowYear = calendar.get(Calendar.YEAR);
+		int nowMonth = calendar.get(Calendar.MONTH);
+		int nowDay = calendar.get(Calendar.DAY_OF_MONTH);
+		int inYear = inCalendar.get(Calendar.YEAR);
+		int inMonth = inCalendar.get(Calendar.MONTH);
+		int inDay = inCalendar.get(Calendar.DAY_OF_MONTH);
+		if (nowYear > inYear) return true;
+		if (nowYear == inYear && nowMonth > inMonth) return true;
+		if (nowYear == inYear && nowMonth == inMonth && nowDay > inDay) return true;
+		return false;
+	}
+
+	/** 改写前的inNow */
+	private static boolean legacyInNow(Date inDate, long now, TimeZone zone) {
+		Calendar calendar = Calendar.getInstance(zone);
+		calendar.setTimeInMillis(now);
+		Calendar inCalendar = Calendar.getInstance(zone);
+		inCalendar.setTime(inDate);
+		return calendar.get(Calendar.YEAR) == inCalendar.get(Calendar.YEAR)
+				&& calendar.get(Calendar.MONTH) == inCalendar.get(Calendar.MONTH)
+				&& calendar.get(Calendar.DAY_OF_MONTH) == inCalendar.get(Calendar.DAY_OF_MONTH);
+	}
+
+	/** 改写前的isCurrDay(String) */
+	private static boolean legacyIsCurrDay(String time, long now, TimeZone zone) {
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+		format.setTimeZone(zone);
+		String currDay = format.format(new Date(now)).replaceAll("-", "");
+		String tempTime = time.substring(0, 10).replaceAll("-", "");
+		return currDay.equals(tempTime);
+	}
+
+	/** 改写前的isCurrDay(long) */
+	private static boolean legacyIsCurrDay(long time, long now, TimeZone zone) {
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+		format.setTimeZone(zone);
+		return legacyIsCurrDay(format.format(new Date(time * 1000)), now, zone);
+	}
+
+	private static void assertSameAsLegacy(DayBoundary boundary, long now, long millis) {
+		TimeZone zone = TimeZone.getTimeZone(boundary.getZone());
+		DayBoundary.Today today = boundary.today(now);
+		Date date = new Date(millis);
+		String message = boundary.getZone() + " now " + Instant.ofEpochMilli(now) + " in " + Instant.ofEpochMilli(millis);
+		Assert.assertEquals(today.contains(millis), legacyInNow(date, now, zone), message);
+		Assert.assertEquals(today.before(millis), legacyAfterNow(date, now, zone), message);
+		long seconds = Math.floorDiv(millis, 1000);
+		Assert.assertEquals(today.contains(seconds * 1000), legacyIsCurrDay(seconds, now, zone), message);
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+		format.setTimeZone(zone);
+		String text = format.format(date);
+		Assert.assertEquals(today.matches(text, 0, 10), legacyIsCurrDay(text, now, zone), message);
+	}
+
+	@Test
+	public void aroundMidnightAndOffsetChanges() {
+		Random random = new Random(6);
+		Instant from = Instant.parse("2000-01-01T00:00:00Z");
+		Instant to = Instant.parse("2030-01-01T00:00:00Z");
+		for (String id : ZONES) {
+			ZoneId zoneId = ZoneId.of(id);
+			DayBoundary boundary = DayBoundary.of(zoneId);
+			ZoneRules rules = zoneId.getRules();
+			List<Long> nows = new ArrayList<Long>();
+			for (ZoneOffsetTransition t = rules.nextTransition(from); t != null
+					&& t.getInstant().isBefore(to); t = rules.nextTransition(t.getInstant())) {
+				nows.add(t.toEpochSecond() * 1000);
+			}
+			for (int i = 0; i < 50; i++) {
+				nows.add(from.toEpochMilli() + (long) (random.nextDouble() * (to.toEpochMilli() - from.toEpochMilli())));
+			}
+			for (long base : nows) {
+				for (long now : new long[] { base - HOUR, base - 1, base, base + 1, base + HOUR }) {
+					long start = boundary.startOfDay(now);
+					long end = boundary.startOfDay(now, 1);
+					for (long millis : new long[] { start - 1, start, start + 1, end - 1000, end - 1, end, end + 1,
+							now, now - DAY, now + DAY, now - HOUR, now + HOUR }) {
+						assertSameAsLegacy(boundary, now, millis);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void wrappersMatchLegacyToday() {
+		DayBoundary boundary = DayBoundary.systemDefault();
+		TimeZone zone = TimeZone.getTimeZone(boundary.getZone());
+		Random random = new Random(7);
+		for (int i = 0; i < 2000; i++) {
+			long start = boundary.todayStart();
+			long end = boundary.todayEnd();
+			long[] candidates = { start - 1, start, end - 1, end, start + (long) (random.nextDouble() * 5 * DAY) - 2 * DAY };
+			long millis = candidates[i % candidates.length];
+			long now = System.currentTimeMillis();
+			Date date = new Date(millis);
+			boolean inNow = TimeTool.inNow(date);
+			boolean afterNow = TimeTool.afterNow(date);
+			boolean currDay = TimeTool.isCurrDay(Math.floorDiv(millis, 1000));
+			String text = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(date);
+			boolean currDayText = TimeTool.isCurrDay(text);
+			if (boundary.todayStart() != start || !boundary.isToday(now)) {
+				// 刚好跨过午夜
+				continue;
+			}
+			Assert.assertEquals(inNow, legacyInNow(date, now, zone), text);
+			Assert.assertEquals(afterNow, legacyAfterNow(date, now, zone), text);
+			Assert.assertEquals(currDay, legacyIsCurrDay(Math.floorDiv(millis, 1000), now, zone), text);
+			Assert.assertEquals(currDayText, legacyIsCurrDay(text, now, zone), text);
+		}
+	}
+
+	@Test
+	public void nullAndShortInputs() {
+		Assert.assertFalse(TimeTool.inNow(null));
+		Assert.assertFalse(TimeTool.afterNow(null));
+		Assert.assertFalse(TimeTool.isCurrDay((String) null));
+		Assert.assertFalse(TimeTool.isCurrDay("2012"));
+		Assert.assertTrue(TimeTool.isCurrDay(TimeTool.getCurrDate(0)));
+		Assert.assertFalse(TimeTool.isCurrDay(TimeTool.getCurrDate(0).replace("-", "") + "xx"));
+		Assert.assertTrue(TimeTool.inNow(new Date()));
+		Assert.assertFalse(TimeTool.afterNow(new Date()));
+	}
+}